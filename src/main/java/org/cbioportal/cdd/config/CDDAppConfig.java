@@ -20,10 +20,13 @@ package org.cbioportal.cdd.config;
 
 import javax.cache.CacheManager;
 import javax.cache.spi.CachingProvider;
+import org.cbioportal.cdd.util.PersistentCacheErrorHandler;
 import org.ehcache.jsr107.EhcacheCachingProvider;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.annotation.CachingConfigurerSupport;
 import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.cache.interceptor.CacheErrorHandler;
 import org.springframework.cache.jcache.JCacheCacheManager;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
@@ -34,7 +37,7 @@ import org.springframework.context.annotation.Configuration;
  */
 @Configuration
 @EnableCaching
-public class CDDAppConfig {
+public class CDDAppConfig extends CachingConfigurerSupport {
 
     @Bean
     public CachingProvider cachingProvider() throws Exception {
@@ -53,4 +56,9 @@ public class CDDAppConfig {
         return new JCacheCacheManager(cddCacheManager());
     }
 
+    @Override
+    public CacheErrorHandler errorHandler() {
+        return new PersistentCacheErrorHandler();
+    }
+
 }
@@ -60,6 +60,21 @@ public class RepositoryConfig {
     @Value("${topbraid.mskVocabulary.password:}")
     private String mskVocabularyPassword;
 
+    @Value("${topbraid.http.connectTimeoutMillis:10000}")
+    private int topBraidConnectTimeout;
+
+    @Value("${topbraid.http.readTimeoutMillis:300000}")
+    private int topBraidReadTimeout;
+
+    @Value("${topbraid.http.connectionRequestTimeoutMillis:10000}")
+    private int topBraidConnectionRequestTimeout;
+
+    @Value("${topbraid.http.keepAliveMillis:60000}")
+    private long topBraidKeepAlive;
+
+    @Value("${topbraid.http.maxConnections:10}")
+    private int topBraidMaxConnections;
+
     @Bean
     @Qualifier("knowledgeSystemsSessionConfiguration")
     public TopBraidSessionConfiguration knowledgeSystemsSessionConfiguration() {
@@ -68,6 +83,7 @@ public class RepositoryConfig {
         knowledgeSystemsSessionConfiguration.setLoginURL(topbraidKnowledgeSystemsLoginUrl);
         knowledgeSystemsSessionConfiguration.setUsername(topbraidKnowledgeSystemsUsername);
         knowledgeSystemsSessionConfiguration.setPassword(topbraidKnowledgeSystemsPassword);
+        setHttpTransportProperties(knowledgeSystemsSessionConfiguration);
         return knowledgeSystemsSessionConfiguration;
     }
 
@@ -79,9 +95,18 @@ public class RepositoryConfig {
         mskVocabularySessionConfiguration.setLoginURL(mskVocabularyLoginUrl);
         mskVocabularySessionConfiguration.setUsername(mskVocabularyUsername);
         mskVocabularySessionConfiguration.setPassword(mskVocabularyPassword);
+        setHttpTransportProperties(mskVocabularySessionConfiguration);
         return mskVocabularySessionConfiguration;
     }
 
+    private void setHttpTransportProperties(TopBraidSessionConfiguration sessionConfiguration) {
+        sessionConfiguration.setConnectTimeout(topBraidConnectTimeout);
+        sessionConfiguration.setReadTimeout(topBraidReadTimeout);
+        sessionConfiguration.setConnectionRequestTimeout(topBraidConnectionRequestTimeout);
+        sessionConfiguration.setKeepAlive(topBraidKeepAlive);
+        sessionConfiguration.setMaxConnections(topBraidMaxConnections);
+    }
+
     @Bean
     @Qualifier("knowledgeSystemsSessionManager")
     public TopBraidSessionManager knowledgeSystemsSessionManager() {
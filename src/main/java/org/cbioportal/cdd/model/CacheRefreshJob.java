@@ -0,0 +1,155 @@
+/*
+ * Copyright (c) 2026 Memorial Sloan-Kettering Cancer Center.
+ *
+ * This library is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY, WITHOUT EVEN THE IMPLIED WARRANTY OF MERCHANTABILITY OR FITNESS
+ * FOR A PARTICULAR PURPOSE. The software and documentation provided hereunder
+ * is on an "as is" basis, and Memorial Sloan-Kettering Cancer Center has no
+ * obligations to provide maintenance, support, updates, enhancements or
+ * modifications. In no event shall Memorial Sloan-Kettering Cancer Center be
+ * liable to any party for direct, indirect, special, incidental or
+ * consequential damages, including lost profits, arising out of the use of this
+ * software and its documentation, even if Memorial Sloan-Kettering Cancer
+ * Center has been advised of the possibility of such damage.
+ */
+
+package org.cbioportal.cdd.model;
+
+import com.fasterxml.jackson.annotation.JsonFormat;
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonInclude.Include;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.annotation.JsonPropertyOrder;
+import io.swagger.annotations.ApiModelProperty;
+import java.util.Date;
+import java.util.concurrent.CountDownLatch;
+
+/**
+ * Handle for one cache refresh. The refresh runs in the background and updates the job as it progresses.
+ */
+@JsonInclude(Include.NON_NULL)
+@JsonPropertyOrder({
+    "job_id",
+    "trigger",
+    "status",
+    "submitted_date",
+    "start_date",
+    "end_date",
+    "duration_ms",
+    "message",
+})
+public class CacheRefreshJob {
+
+    public enum Status {
+        PENDING,
+        RUNNING,
+        SUCCEEDED,
+        FAILED
+    }
+
+    @ApiModelProperty(value = "The refresh job id")
+    @JsonProperty("job_id")
+    private final String jobId;
+    @ApiModelProperty(value = "What triggered the refresh e.g. scheduled, startup, request")
+    @JsonProperty("trigger")
+    private final String trigger;
+    @ApiModelProperty(value = "The refresh job status", allowableValues = "PENDING,RUNNING,SUCCEEDED,FAILED")
+    @JsonProperty("status")
+    private volatile Status status = Status.PENDING;
+    @JsonProperty("submitted_date")
+    @JsonFormat(shape = JsonFormat.Shape.STRING, pattern = "yyyy-MM-dd'T'HH:mm:ss.SSSZ")
+    private final Date submittedDate;
+    @JsonProperty("start_date")
+    @JsonFormat(shape = JsonFormat.Shape.STRING, pattern = "yyyy-MM-dd'T'HH:mm:ss.SSSZ")
+    private volatile Date startDate;
+    @JsonProperty("end_date")
+    @JsonFormat(shape = JsonFormat.Shape.STRING, pattern = "yyyy-MM-dd'T'HH:mm:ss.SSSZ")
+    private volatile Date endDate;
+    @ApiModelProperty(value = "Failure or informational message")
+    @JsonProperty("message")
+    private volatile String message;
+    private final CountDownLatch finished = new CountDownLatch(1);
+
+    public CacheRefreshJob(String jobId, String trigger) {
+        this.jobId = jobId;
+        this.trigger = trigger;
+        this.submittedDate = new Date();
+    }
+
+    public String getJobId() {
+        return jobId;
+    }
+
+    public String getTrigger() {
+        return trigger;
+    }
+
+    public Status getStatus() {
+        return status;
+    }
+
+    public Date getSubmittedDate() {
+        return submittedDate;
+    }
+
+    public Date getStartDate() {
+        return startDate;
+    }
+
+    public Date getEndDate() {
+        return endDate;
+    }
+
+    public String getMessage() {
+        return message;
+    }
+
+    /**
+    *
+    * @return
+    * Run time of the job in milliseconds, up to now if the job is still running
+    */
+    @JsonProperty("duration_ms")
+    public Long getDurationMs() {
+        Date jobStartDate = startDate;
+        if (jobStartDate == null) {
+            return null;
+        }
+        Date jobEndDate = endDate;
+        long until = jobEndDate != null ? jobEndDate.getTime() : System.currentTimeMillis();
+        return until - jobStartDate.getTime();
+    }
+
+    @JsonIgnore
+    public boolean isFinished() {
+        Status jobStatus = status;
+        return jobStatus == Status.SUCCEEDED || jobStatus == Status.FAILED;
+    }
+
+    /**
+    * Blocks until the job has succeeded or failed.
+    */
+    public void awaitFinished() throws InterruptedException {
+        finished.await();
+    }
+
+    public void markRunning() {
+        this.startDate = new Date();
+        this.status = Status.RUNNING;
+    }
+
+    public void markSucceeded(String message) {
+        this.message = message;
+        this.endDate = new Date();
+        this.status = Status.SUCCEEDED;
+        finished.countDown();
+    }
+
+    public void markFailed(String message) {
+        this.message = message;
+        this.endDate = new Date();
+        this.status = Status.FAILED;
+        finished.countDown();
+    }
+}
@@ -0,0 +1,84 @@
+/*
+ * Copyright (c) 2026 Memorial Sloan-Kettering Cancer Center.
+ *
+ * This library is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY, WITHOUT EVEN THE IMPLIED WARRANTY OF MERCHANTABILITY OR FITNESS
+ * FOR A PARTICULAR PURPOSE. The software and documentation provided hereunder
+ * is on an "as is" basis, and Memorial Sloan-Kettering Cancer Center has no
+ * obligations to provide maintenance, support, updates, enhancements or
+ * modifications. In no event shall Memorial Sloan-Kettering Cancer Center be
+ * liable to any party for direct, indirect, special, incidental or
+ * consequential damages, including lost profits, arising out of the use of this
+ * software and its documentation, even if Memorial Sloan-Kettering Cancer
+ * Center has been advised of the possibility of such damage.
+ */
+
+package org.cbioportal.cdd.model;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.annotation.JsonPropertyOrder;
+import io.swagger.annotations.ApiModelProperty;
+
+/**
+ * Point in time statistics for one in-memory cache, counted since the service started.
+ */
+@JsonPropertyOrder({
+    "cache_name",
+    "size",
+    "hit_count",
+    "miss_count",
+    "hit_rate",
+    "eviction_count",
+})
+public class CacheStatistics {
+
+    @ApiModelProperty(value = "The cache name")
+    @JsonProperty("cache_name")
+    private final String cacheName;
+    @ApiModelProperty(value = "Number of entries currently in the cache")
+    @JsonProperty("size")
+    private final long size;
+    @JsonProperty("hit_count")
+    private final long hitCount;
+    @JsonProperty("miss_count")
+    private final long missCount;
+    @ApiModelProperty(value = "Fraction of lookups which were hits, 1.0 if there were no lookups")
+    @JsonProperty("hit_rate")
+    private final double hitRate;
+    @ApiModelProperty(value = "Number of entries evicted to keep the cache within its bound")
+    @JsonProperty("eviction_count")
+    private final long evictionCount;
+
+    public CacheStatistics(String cacheName, long size, long hitCount, long missCount, double hitRate, long evictionCount) {
+        this.cacheName = cacheName;
+        this.size = size;
+        this.hitCount = hitCount;
+        this.missCount = missCount;
+        this.hitRate = hitRate;
+        this.evictionCount = evictionCount;
+    }
+
+    public String getCacheName() {
+        return cacheName;
+    }
+
+    public long getSize() {
+        return size;
+    }
+
+    public long getHitCount() {
+        return hitCount;
+    }
+
+    public long getMissCount() {
+        return missCount;
+    }
+
+    public double getHitRate() {
+        return hitRate;
+    }
+
+    public long getEvictionCount() {
+        return evictionCount;
+    }
+}
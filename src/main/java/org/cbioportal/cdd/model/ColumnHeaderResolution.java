@@ -0,0 +1,52 @@
+/*
+ * Copyright (c) 2026 Memorial Sloan-Kettering Cancer Center.
+ *
+ * This library is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY, WITHOUT EVEN THE IMPLIED WARRANTY OF MERCHANTABILITY OR FITNESS
+ * FOR A PARTICULAR PURPOSE. The software and documentation provided hereunder
+ * is on an "as is" basis, and Memorial Sloan-Kettering Cancer Center has no
+ * obligations to provide maintenance, support, updates, enhancements or
+ * modifications. In no event shall Memorial Sloan-Kettering Cancer Center be
+ * liable to any party for direct, indirect, special, incidental or
+ * consequential damages, including lost profits, arising out of the use of this
+ * software and its documentation, even if Memorial Sloan-Kettering Cancer
+ * Center has been advised of the possibility of such damage.
+ */
+
+package org.cbioportal.cdd.model;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.annotation.JsonPropertyOrder;
+import io.swagger.annotations.ApiModelProperty;
+import java.util.List;
+
+/**
+ * Result of resolving a list of column headers in partial mode: the metadata for every header which
+ * exists, in request order, and the headers which do not exist.
+ */
+@JsonPropertyOrder({
+    "clinical_attributes",
+    "unresolved_column_headers",
+})
+public class ColumnHeaderResolution {
+
+    @ApiModelProperty(value = "Metadata for the column headers which were found, in request order")
+    @JsonProperty("clinical_attributes")
+    private final List<ClinicalAttributeMetadata> clinicalAttributes;
+    @ApiModelProperty(value = "Column headers which were not found, in request order")
+    @JsonProperty("unresolved_column_headers")
+    private final List<UnresolvedColumnHeader> unresolvedColumnHeaders;
+
+    public ColumnHeaderResolution(List<ClinicalAttributeMetadata> clinicalAttributes, List<UnresolvedColumnHeader> unresolvedColumnHeaders) {
+        this.clinicalAttributes = clinicalAttributes;
+        this.unresolvedColumnHeaders = unresolvedColumnHeaders;
+    }
+
+    public List<ClinicalAttributeMetadata> getClinicalAttributes() {
+        return clinicalAttributes;
+    }
+
+    public List<UnresolvedColumnHeader> getUnresolvedColumnHeaders() {
+        return unresolvedColumnHeaders;
+    }
+}
@@ -0,0 +1,120 @@
+/*
+ * Copyright (c) 2026 Memorial Sloan-Kettering Cancer Center.
+ *
+ * This library is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY, WITHOUT EVEN THE IMPLIED WARRANTY OF MERCHANTABILITY OR FITNESS
+ * FOR A PARTICULAR PURPOSE. The software and documentation provided hereunder
+ * is on an "as is" basis, and Memorial Sloan-Kettering Cancer Center has no
+ * obligations to provide maintenance, support, updates, enhancements or
+ * modifications. In no event shall Memorial Sloan-Kettering Cancer Center be
+ * liable to any party for direct, indirect, special, incidental or
+ * consequential damages, including lost profits, arising out of the use of this
+ * software and its documentation, even if Memorial Sloan-Kettering Cancer
+ * Center has been advised of the possibility of such damage.
+ */
+
+package org.cbioportal.cdd.model;
+
+import com.fasterxml.jackson.annotation.JsonFormat;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.annotation.JsonPropertyOrder;
+import io.swagger.annotations.ApiModelProperty;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The differences between two consecutive dictionary versions. Default attribute changes apply to every
+ * study without an override for that attribute; override changes are listed per study.
+ */
+@JsonPropertyOrder({
+    "from_version",
+    "to_version",
+    "change_date",
+    "added_attributes",
+    "modified_attributes",
+    "removed_attributes",
+    "added_studies",
+    "modified_studies",
+    "removed_studies",
+})
+public class DictionaryChangeSet {
+
+    @ApiModelProperty(value = "The dictionary version these changes apply to")
+    @JsonProperty("from_version")
+    private final String fromVersion;
+    @ApiModelProperty(value = "The dictionary version after these changes")
+    @JsonProperty("to_version")
+    private final String toVersion;
+    @JsonProperty("change_date")
+    @JsonFormat(shape = JsonFormat.Shape.STRING, pattern = "yyyy-MM-dd'T'HH:mm:ss.SSSZ")
+    private final Date changeDate;
+    @ApiModelProperty(value = "Default metadata of attributes which were added")
+    @JsonProperty("added_attributes")
+    private final List<ClinicalAttributeMetadata> addedAttributes;
+    @ApiModelProperty(value = "New default metadata of attributes which were modified")
+    @JsonProperty("modified_attributes")
+    private final List<ClinicalAttributeMetadata> modifiedAttributes;
+    @ApiModelProperty(value = "Column headers of attributes which were removed")
+    @JsonProperty("removed_attributes")
+    private final List<String> removedAttributes;
+    @ApiModelProperty(value = "Cancer studies which were added")
+    @JsonProperty("added_studies")
+    private final List<String> addedStudies;
+    @ApiModelProperty(value = "Map of cancer study to the column headers whose override was added, modified or removed")
+    @JsonProperty("modified_studies")
+    private final Map<String, List<String>> modifiedStudies;
+    @ApiModelProperty(value = "Cancer studies which were removed")
+    @JsonProperty("removed_studies")
+    private final List<String> removedStudies;
+
+    public DictionaryChangeSet(String fromVersion, String toVersion, Date changeDate, List<ClinicalAttributeMetadata> addedAttributes,
+            List<ClinicalAttributeMetadata> modifiedAttributes, List<String> removedAttributes, List<String> addedStudies,
+            Map<String, List<String>> modifiedStudies, List<String> removedStudies) {
+        this.fromVersion = fromVersion;
+        this.toVersion = toVersion;
+        this.changeDate = changeDate;
+        this.addedAttributes = addedAttributes;
+        this.modifiedAttributes = modifiedAttributes;
+        this.removedAttributes = removedAttributes;
+        this.addedStudies = addedStudies;
+        this.modifiedStudies = modifiedStudies;
+        this.removedStudies = removedStudies;
+    }
+
+    public String getFromVersion() {
+        return fromVersion;
+    }
+
+    public String getToVersion() {
+        return toVersion;
+    }
+
+    public Date getChangeDate() {
+        return changeDate;
+    }
+
+    public List<ClinicalAttributeMetadata> getAddedAttributes() {
+        return addedAttributes;
+    }
+
+    public List<ClinicalAttributeMetadata> getModifiedAttributes() {
+        return modifiedAttributes;
+    }
+
+    public List<String> getRemovedAttributes() {
+        return removedAttributes;
+    }
+
+    public List<String> getAddedStudies() {
+        return addedStudies;
+    }
+
+    public Map<String, List<String>> getModifiedStudies() {
+        return modifiedStudies;
+    }
+
+    public List<String> getRemovedStudies() {
+        return removedStudies;
+    }
+}
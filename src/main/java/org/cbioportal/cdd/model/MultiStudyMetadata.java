@@ -0,0 +1,64 @@
+/*
+ * Copyright (c) 2026 Memorial Sloan-Kettering Cancer Center.
+ *
+ * This library is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY, WITHOUT EVEN THE IMPLIED WARRANTY OF MERCHANTABILITY OR FITNESS
+ * FOR A PARTICULAR PURPOSE. The software and documentation provided hereunder
+ * is on an "as is" basis, and Memorial Sloan-Kettering Cancer Center has no
+ * obligations to provide maintenance, support, updates, enhancements or
+ * modifications. In no event shall Memorial Sloan-Kettering Cancer Center be
+ * liable to any party for direct, indirect, special, incidental or
+ * consequential damages, including lost profits, arising out of the use of this
+ * software and its documentation, even if Memorial Sloan-Kettering Cancer
+ * Center has been advised of the possibility of such damage.
+ */
+
+package org.cbioportal.cdd.model;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.annotation.JsonPropertyOrder;
+import io.swagger.annotations.ApiModelProperty;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Clinical attribute metadata for a list of column headers in several cancer studies. Every distinct
+ * attribute is emitted once under a reference such as "default/AGE", "priority_zero/AGE" or
+ * "mskimpact/AGE", and each study maps its column headers to those references.
+ */
+@JsonPropertyOrder({
+    "attributes",
+    "studies",
+    "unresolved_column_headers",
+})
+public class MultiStudyMetadata {
+
+    @ApiModelProperty(value = "Map of reference to clinical attribute metadata, each distinct attribute appears once")
+    @JsonProperty("attributes")
+    private final Map<String, ClinicalAttributeMetadata> attributes;
+    @ApiModelProperty(value = "Map of cancer study to a map of upper case column header to attribute reference")
+    @JsonProperty("studies")
+    private final Map<String, Map<String, String>> studies;
+    @ApiModelProperty(value = "Column headers which were not found, these are the same for every study")
+    @JsonProperty("unresolved_column_headers")
+    private final List<UnresolvedColumnHeader> unresolvedColumnHeaders;
+
+    public MultiStudyMetadata(Map<String, ClinicalAttributeMetadata> attributes, Map<String, Map<String, String>> studies,
+            List<UnresolvedColumnHeader> unresolvedColumnHeaders) {
+        this.attributes = attributes;
+        this.studies = studies;
+        this.unresolvedColumnHeaders = unresolvedColumnHeaders;
+    }
+
+    public Map<String, ClinicalAttributeMetadata> getAttributes() {
+        return attributes;
+    }
+
+    public Map<String, Map<String, String>> getStudies() {
+        return studies;
+    }
+
+    public List<UnresolvedColumnHeader> getUnresolvedColumnHeaders() {
+        return unresolvedColumnHeaders;
+    }
+}
@@ -0,0 +1,54 @@
+/*
+ * Copyright (c) 2026 Memorial Sloan-Kettering Cancer Center.
+ *
+ * This library is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY, WITHOUT EVEN THE IMPLIED WARRANTY OF MERCHANTABILITY OR FITNESS
+ * FOR A PARTICULAR PURPOSE. The software and documentation provided hereunder
+ * is on an "as is" basis, and Memorial Sloan-Kettering Cancer Center has no
+ * obligations to provide maintenance, support, updates, enhancements or
+ * modifications. In no event shall Memorial Sloan-Kettering Cancer Center be
+ * liable to any party for direct, indirect, special, incidental or
+ * consequential damages, including lost profits, arising out of the use of this
+ * software and its documentation, even if Memorial Sloan-Kettering Cancer
+ * Center has been advised of the possibility of such damage.
+ */
+
+package org.cbioportal.cdd.model;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.annotation.JsonPropertyOrder;
+import io.swagger.annotations.ApiModelProperty;
+import java.util.List;
+
+/**
+ * Request body for resolving one list of column headers against several cancer studies at once.
+ */
+@JsonPropertyOrder({
+    "cancer_studies",
+    "column_headers",
+})
+public class MultiStudyMetadataRequest {
+
+    @ApiModelProperty(value = "Cancer study names e.g. [\"mskimpact\", \"msk_solid_heme\"]", required = true)
+    @JsonProperty("cancer_studies")
+    private List<String> cancerStudies;
+    @ApiModelProperty(value = "Column headers to retrieve clinical attribute metadata for e.g. [\"PATIENT_ID\", \"SAMPLE_ID\"]", required = true)
+    @JsonProperty("column_headers")
+    private List<String> columnHeaders;
+
+    public List<String> getCancerStudies() {
+        return cancerStudies;
+    }
+
+    public void setCancerStudies(List<String> cancerStudies) {
+        this.cancerStudies = cancerStudies;
+    }
+
+    public List<String> getColumnHeaders() {
+        return columnHeaders;
+    }
+
+    public void setColumnHeaders(List<String> columnHeaders) {
+        this.columnHeaders = columnHeaders;
+    }
+}
@@ -0,0 +1,50 @@
+/*
+ * Copyright (c) 2026 Memorial Sloan-Kettering Cancer Center.
+ *
+ * This library is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY, WITHOUT EVEN THE IMPLIED WARRANTY OF MERCHANTABILITY OR FITNESS
+ * FOR A PARTICULAR PURPOSE. The software and documentation provided hereunder
+ * is on an "as is" basis, and Memorial Sloan-Kettering Cancer Center has no
+ * obligations to provide maintenance, support, updates, enhancements or
+ * modifications. In no event shall Memorial Sloan-Kettering Cancer Center be
+ * liable to any party for direct, indirect, special, incidental or
+ * consequential damages, including lost profits, arising out of the use of this
+ * software and its documentation, even if Memorial Sloan-Kettering Cancer
+ * Center has been advised of the possibility of such damage.
+ */
+
+package org.cbioportal.cdd.model;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.annotation.JsonPropertyOrder;
+import com.fasterxml.jackson.annotation.JsonUnwrapped;
+import io.swagger.annotations.ApiModelProperty;
+
+/**
+ * Clinical attribute metadata as seen by one cancer study, serialized as the attribute's own fields plus study_id.
+ * Used for exports which cover several studies in one flat stream.
+ */
+@JsonPropertyOrder({
+    "study_id",
+})
+public class StudyClinicalAttributeMetadata {
+
+    @ApiModelProperty(value = "The cancer study this metadata applies to")
+    @JsonProperty("study_id")
+    private final String studyId;
+    @JsonUnwrapped
+    private final ClinicalAttributeMetadata clinicalAttributeMetadata;
+
+    public StudyClinicalAttributeMetadata(String studyId, ClinicalAttributeMetadata clinicalAttributeMetadata) {
+        this.studyId = studyId;
+        this.clinicalAttributeMetadata = clinicalAttributeMetadata;
+    }
+
+    public String getStudyId() {
+        return studyId;
+    }
+
+    public ClinicalAttributeMetadata getClinicalAttributeMetadata() {
+        return clinicalAttributeMetadata;
+    }
+}
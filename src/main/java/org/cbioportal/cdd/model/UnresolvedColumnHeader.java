@@ -0,0 +1,51 @@
+/*
+ * Copyright (c) 2026 Memorial Sloan-Kettering Cancer Center.
+ *
+ * This library is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY, WITHOUT EVEN THE IMPLIED WARRANTY OF MERCHANTABILITY OR FITNESS
+ * FOR A PARTICULAR PURPOSE. The software and documentation provided hereunder
+ * is on an "as is" basis, and Memorial Sloan-Kettering Cancer Center has no
+ * obligations to provide maintenance, support, updates, enhancements or
+ * modifications. In no event shall Memorial Sloan-Kettering Cancer Center be
+ * liable to any party for direct, indirect, special, incidental or
+ * consequential damages, including lost profits, arising out of the use of this
+ * software and its documentation, even if Memorial Sloan-Kettering Cancer
+ * Center has been advised of the possibility of such damage.
+ */
+
+package org.cbioportal.cdd.model;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.annotation.JsonPropertyOrder;
+import io.swagger.annotations.ApiModelProperty;
+import java.util.List;
+
+/**
+ * A requested column header with no clinical attribute, and the closest existing column headers.
+ */
+@JsonPropertyOrder({
+    "column_header",
+    "suggestions",
+})
+public class UnresolvedColumnHeader {
+
+    @ApiModelProperty(value = "The column header as requested")
+    @JsonProperty("column_header")
+    private final String columnHeader;
+    @ApiModelProperty(value = "Existing column headers closest to the requested one, closest first (may be empty)")
+    @JsonProperty("suggestions")
+    private final List<String> suggestions;
+
+    public UnresolvedColumnHeader(String columnHeader, List<String> suggestions) {
+        this.columnHeader = columnHeader;
+        this.suggestions = suggestions;
+    }
+
+    public String getColumnHeader() {
+        return columnHeader;
+    }
+
+    public List<String> getSuggestions() {
+        return suggestions;
+    }
+}
@@ -0,0 +1,54 @@
+/*
+ * Copyright (c) 2026 Memorial Sloan-Kettering Cancer Center.
+ *
+ * This library is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY, WITHOUT EVEN THE IMPLIED WARRANTY OF MERCHANTABILITY OR FITNESS
+ * FOR A PARTICULAR PURPOSE. The software and documentation provided hereunder
+ * is on an "as is" basis, and Memorial Sloan-Kettering Cancer Center has no
+ * obligations to provide maintenance, support, updates, enhancements or
+ * modifications. In no event shall Memorial Sloan-Kettering Cancer Center be
+ * liable to any party for direct, indirect, special, incidental or
+ * consequential damages, including lost profits, arising out of the use of this
+ * software and its documentation, even if Memorial Sloan-Kettering Cancer
+ * Center has been advised of the possibility of such damage.
+ */
+
+package org.cbioportal.cdd.model;
+
+/**
+ * The result of a dictionary lookup together with the versions of the dictionary snapshot it was read from,
+ * so validators, cached renderings and version headers always describe the body they are sent with.
+ */
+public class VersionedResult<T> {
+
+    private final T result;
+    // content hash of the whole snapshot, as accepted by /changes; null if the source is not versioned
+    private final String dictionaryVersion;
+    // changes whenever this result may change, e.g. the view hash of one study; null if the source is not versioned
+    private final String resultVersion;
+
+    public VersionedResult(T result, String dictionaryVersion, String resultVersion) {
+        this.result = result;
+        this.dictionaryVersion = dictionaryVersion;
+        this.resultVersion = resultVersion;
+    }
+
+    /**
+    * A result from a source which is not versioned, so responses built from it have no validators and are not reused.
+    */
+    public static <T> VersionedResult<T> unversioned(T result) {
+        return new VersionedResult<T>(result, null, null);
+    }
+
+    public T getResult() {
+        return result;
+    }
+
+    public String getDictionaryVersion() {
+        return dictionaryVersion;
+    }
+
+    public String getResultVersion() {
+        return resultVersion;
+    }
+}
@@ -18,13 +18,13 @@
 
 package org.cbioportal.cdd.repository.topbraid;
 
+import com.fasterxml.jackson.databind.JsonNode;
 import java.util.*;
 import org.cbioportal.cdd.model.ClinicalAttributeMetadata;
 import org.cbioportal.cdd.repository.topbraid.TopBraidException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.core.ParameterizedTypeReference;
 import org.springframework.util.LinkedMultiValueMap;
 import org.springframework.util.MultiValueMap;
 
@@ -41,8 +41,7 @@ public class KnowledgeSystemsRepository extends TopBraidRepository<ClinicalAttri
 
     private MultiValueMap<String, String> overridesRequestParameters = null;
     private MultiValueMap<String, String> attributesRequestParameters = null;
-
-    private final ParameterizedTypeReference<List<ClinicalAttributeMetadata>> clinicalAttributeMetaDataListType = new ParameterizedTypeReference<List<ClinicalAttributeMetadata>>(){};
+    private MultiValueMap<String, String> graphFingerprintRequestParameters = null;
 
     public KnowledgeSystemsRepository(TopBraidSessionManager topBraidSessionManager, String topBraidCddNamespacePrefix, String topBraidCddGraphId) {
         super.setTopBraidSessionManager(topBraidSessionManager);
@@ -92,6 +91,32 @@ public class KnowledgeSystemsRepository extends TopBraidRepository<ClinicalAttri
                 "}";
     }
 
+    private String getGraphFingerprintQuery() {
+        // both aggregates are answered from the store's indexes without reading the literal values of the graph,
+        // so the probe stays cheap however large the dictionary grows
+        return
+                "PREFIX dcterms:<http://purl.org/dc/terms/> " +
+                "SELECT ?triple_count ?last_modified " +
+                "WHERE { " +
+                "    { " +
+                "        SELECT (COUNT(*) AS ?triple_count) " +
+                "        WHERE { " +
+                "            GRAPH <" + topBraidCddGraphId + "> { " +
+                "                ?subject ?predicate ?object. " +
+                "            } " +
+                "        } " +
+                "    } " +
+                "    { " +
+                "        SELECT (MAX(?modified) AS ?last_modified) " +
+                "        WHERE { " +
+                "            GRAPH <" + topBraidCddGraphId + "> { " +
+                "                ?subject dcterms:modified ?modified. " +
+                "            } " +
+                "        } " +
+                "    } " +
+                "}";
+    }
+
     private MultiValueMap<String, String> getOverridesRequestParameters() {
         if (overridesRequestParameters == null) {
             overridesRequestParameters = new LinkedMultiValueMap<String, String>();
@@ -110,11 +135,42 @@ public class KnowledgeSystemsRepository extends TopBraidRepository<ClinicalAttri
         return attributesRequestParameters;
     }
 
+    private MultiValueMap<String, String> getGraphFingerprintRequestParameters() {
+        if (graphFingerprintRequestParameters == null) {
+            graphFingerprintRequestParameters = new LinkedMultiValueMap<String, String>();
+            graphFingerprintRequestParameters.add("format", "json-simple");
+            graphFingerprintRequestParameters.add("query", getGraphFingerprintQuery());
+        }
+        return graphFingerprintRequestParameters;
+    }
+
+    /**
+    * Returns a fingerprint of the CDD graph: the number of triples and the latest modification date recorded in it.
+    * Adding or removing attributes, overrides or values changes the count, and edits which record a modification date
+    * change the date. An edit which does neither goes unnoticed, so callers must still bound how long they trust it.
+    */
+    public String getGraphFingerprint() {
+        logger.info("Fetching CDD graph fingerprint from TopBraid...");
+        ArrayList<JsonNode> rows;
+        try {
+            rows = super.getSparqlResponse(getGraphFingerprintRequestParameters(), JsonNode.class, ArrayList<JsonNode>::new, ArrayList::add);
+        } catch (TopBraidException e) {
+            logger.error("Problem connecting to TopBraid");
+            throw new RuntimeException(e);
+        }
+        if (rows.size() != 1) {
+            throw new RuntimeException("Expected one graph fingerprint row from TopBraid but found " + rows.size());
+        }
+        JsonNode row = rows.get(0);
+        return "triples=" + row.path("triple_count").asText() + ";modified=" + row.path("last_modified").asText();
+    }
+
     public ArrayList<ClinicalAttributeMetadata> getClinicalAttributeMetadata() {
         logger.info("Fetching clinical attribute metadata from TopBraid...");
         try {
-            List<ClinicalAttributeMetadata> responseList = super.getSparqlResponse(getAttributesRequestParameters(), clinicalAttributeMetaDataListType);
-            return new ArrayList<ClinicalAttributeMetadata>(responseList);
+            // elements are appended to the returned list as they are parsed
+            return super.getSparqlResponse(getAttributesRequestParameters(), ClinicalAttributeMetadata.class,
+                ArrayList<ClinicalAttributeMetadata>::new, ArrayList::add);
         } catch (TopBraidException e) {
             logger.error("Problem connecting to TopBraid");
             throw new RuntimeException(e);
@@ -124,15 +180,12 @@ public class KnowledgeSystemsRepository extends TopBraidRepository<ClinicalAttri
     public HashMap<String, ArrayList<ClinicalAttributeMetadata>> getClinicalAttributeMetadataOverrides() {
         logger.info("Fetch clinical attribute metadata overrides from TopBraid...");
         try {
-            List<ClinicalAttributeMetadata> overridesList = super.getSparqlResponse(getOverridesRequestParameters(), clinicalAttributeMetaDataListType);
-            HashMap<String, ArrayList<ClinicalAttributeMetadata>> overridesStudyMap = new HashMap<>();
-            for (ClinicalAttributeMetadata clinicalAttributeMetadata : overridesList) {
-                if (!overridesStudyMap.containsKey(clinicalAttributeMetadata.getStudyId())) {
-                    overridesStudyMap.put(clinicalAttributeMetadata.getStudyId(), new ArrayList<ClinicalAttributeMetadata>());
-                }
-                overridesStudyMap.get(clinicalAttributeMetadata.getStudyId()).add(clinicalAttributeMetadata);
-            }
-            return overridesStudyMap;
+            // overrides are grouped by study as they are parsed
+            return super.getSparqlResponse(getOverridesRequestParameters(), ClinicalAttributeMetadata.class,
+                HashMap<String, ArrayList<ClinicalAttributeMetadata>>::new,
+                (overridesStudyMap, clinicalAttributeMetadata) -> overridesStudyMap
+                    .computeIfAbsent(clinicalAttributeMetadata.getStudyId(), studyId -> new ArrayList<ClinicalAttributeMetadata>())
+                    .add(clinicalAttributeMetadata));
         } catch (TopBraidException e) {
             logger.error("Problem connecting to TopBraid");
             throw new RuntimeException(e);
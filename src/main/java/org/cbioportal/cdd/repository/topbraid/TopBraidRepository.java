@@ -18,8 +18,14 @@
 
 package org.cbioportal.cdd.repository.topbraid;
 
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.IOException;
 import java.net.URI;
 import java.util.*;
+import java.util.function.BiConsumer;
+import java.util.function.Supplier;
 import org.cbioportal.cdd.repository.topbraid.TopBraidException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -29,6 +35,8 @@ import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpMethod;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.http.client.ClientHttpResponse;
+import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
 import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
 import org.springframework.util.MultiValueMap;
 import org.springframework.web.client.RestClientException;
@@ -45,63 +53,92 @@ public abstract class TopBraidRepository<T> {
 
     protected TopBraidSessionManager topBraidSessionManager;
 
+    private static final MediaType SPARQL_RESULTS_JSON_SIMPLE = new MediaType("application","sparql-results+json-simple");
+
+    // built once per repository on top of the session manager's pooled http client
+    private RestTemplate restTemplate;
+    private MappingJackson2HttpMessageConverter sparqlMessageConverter;
+
     protected TopBraidSessionManager getTopBraidSessionManager() {
         return topBraidSessionManager;
     }
 
     protected void setTopBraidSessionManager(TopBraidSessionManager topBraidSessionManager) {
         this.topBraidSessionManager = topBraidSessionManager;
+        this.restTemplate = new RestTemplate(new HttpComponentsClientHttpRequestFactory(topBraidSessionManager.getHttpClient()));
+
+        // the default supported types for MappingJackson2HttpMessageConverter are:
+        //   application/json and application/*+json
+        // our sparql response content type is application/sparql-results+json-simple
+        // sparql responses are parsed incrementally with this converter's ObjectMapper (see readSparqlResponse())
+        this.sparqlMessageConverter = new MappingJackson2HttpMessageConverter();
+        sparqlMessageConverter.setSupportedMediaTypes(Collections.singletonList(SPARQL_RESULTS_JSON_SIMPLE));
+        restTemplate.getMessageConverters().add(sparqlMessageConverter);
     }
 
-    protected List<T> getSparqlResponse(MultiValueMap<String, String> requestParameters, ParameterizedTypeReference<List<T>> parameterizedType)
-            throws TopBraidException {
-        return getSparqlResponse(requestParameters, parameterizedType, true);
+    /**
+     * Streams the elements of a sparql json-simple response (a top level array of objects) into a result object.
+     * Each element is bound and handed to the accumulator as soon as it has been parsed, so the response is never
+     * held in memory as a whole. If the request is retried with a fresh session a new result object is used.
+     */
+    protected <E, R> R getSparqlResponse(MultiValueMap<String, String> requestParameters, Class<E> elementType,
+            Supplier<R> resultSupplier, BiConsumer<R, E> accumulator) throws TopBraidException {
+        return getSparqlResponse(requestParameters, elementType, resultSupplier, accumulator, true);
     }
 
-    private List<T> getSparqlResponse(MultiValueMap<String, String> requestParameters, ParameterizedTypeReference<List<T>> parameterizedType, boolean refreshSessionOnFailure)
-            throws TopBraidException {
+    private <E, R> R getSparqlResponse(MultiValueMap<String, String> requestParameters, Class<E> elementType,
+            Supplier<R> resultSupplier, BiConsumer<R, E> accumulator, boolean refreshSessionOnFailure) throws TopBraidException {
         logger.debug("getSparqlResponse() -- query: '" + requestParameters.get("query") + "'");
         String sessionId = topBraidSessionManager.getSessionId();
         logger.debug("getSparqlResponse() -- sessionId: " + sessionId);
-        RestTemplate restTemplate = new RestTemplate();
-
-        // the default supported types for MappingJackson2HttpMessageConverter are:
-        //   application/json and application/*+json
-        // our response content type is application/sparql-results+json-simple
-        // NOTE: if the response content type was one of the default types we
-        //   would not have to add the message converter to the rest template
-        MappingJackson2HttpMessageConverter messageConverter = new MappingJackson2HttpMessageConverter();
-        messageConverter.setSupportedMediaTypes(Collections.singletonList(
-            new MediaType("application","sparql-results+json-simple")));
-        restTemplate.getMessageConverters().add(messageConverter);
 
         // set our JSESSIONID cookie and our params
         HttpHeaders headers = new HttpHeaders();
         headers.add("Cookie", "JSESSIONID=" + sessionId);
+        headers.setAccept(Collections.singletonList(SPARQL_RESULTS_JSON_SIMPLE));
         HttpEntity<MultiValueMap<String, String>> request = new HttpEntity<MultiValueMap<String, String>>(requestParameters, headers);
 
-        // NOTE ParameterizedTypeReference cannot be made generic, that is why child class passes it
-        // See: http://stackoverflow.com/questions/21987295/using-spring-resttemplate-in-generic-method-with-generic-parameter
         try {
             String url = topBraidSessionManager.getConfiguration().getServiceURL();
-            ResponseEntity<List<T>> response = restTemplate.exchange(url,
+            R result = restTemplate.execute(url,
                 HttpMethod.POST,
-                request,
-                parameterizedType);
-            logger.debug("getSparqlResponse() -- response.getBody(): '" + response.getBody() + "'");
-            return response.getBody();
+                restTemplate.httpEntityCallback(request),
+                response -> readSparqlResponse(response, elementType, resultSupplier.get(), accumulator));
+            logger.debug("getSparqlResponse() -- finished reading response");
+            return result;
         } catch (RestClientException e) {
             logger.debug("getSparqlResponse() -- caught RestClientException");
             // see if we should try again, maybe the session expired
             if (refreshSessionOnFailure) {
                 // force refresh of the session id
                 topBraidSessionManager.getFreshSessionId();
-                return getSparqlResponse(requestParameters, parameterizedType, false); // do not make a second attempt
+                return getSparqlResponse(requestParameters, elementType, resultSupplier, accumulator, false); // do not make a second attempt
             }
             throw new TopBraidException("Failed to connect to TopBraid", e);
         }
     }
 
+    private <E, R> R readSparqlResponse(ClientHttpResponse response, Class<E> elementType, R result, BiConsumer<R, E> accumulator) throws IOException {
+        // an expired session gets a login page rather than json, treat that like any other failed request
+        MediaType contentType = response.getHeaders().getContentType();
+        if (contentType == null || !(SPARQL_RESULTS_JSON_SIMPLE.includes(contentType) || MediaType.APPLICATION_JSON.includes(contentType))) {
+            throw new RestClientException("Unexpected sparql response content type: '" + contentType + "'");
+        }
+        ObjectMapper objectMapper = sparqlMessageConverter.getObjectMapper();
+        try (JsonParser parser = objectMapper.getFactory().createParser(response.getBody())) {
+            if (parser.nextToken() != JsonToken.START_ARRAY) {
+                throw new RestClientException("Expected sparql response to be a json array but found " + parser.getCurrentToken());
+            }
+            while (parser.nextToken() == JsonToken.START_OBJECT) {
+                accumulator.accept(result, objectMapper.readValue(parser, elementType));
+            }
+            if (parser.getCurrentToken() != JsonToken.END_ARRAY) {
+                throw new RestClientException("Unexpected token in sparql response: " + parser.getCurrentToken());
+            }
+        }
+        return result;
+    }
+
     protected T getApiResponse(MultiValueMap<String, String> requestParameters, ParameterizedTypeReference<T> parameterizedType)
             throws TopBraidException {
         return getApiResponse(requestParameters, parameterizedType, true);
@@ -112,7 +149,6 @@ public abstract class TopBraidRepository<T> {
         logger.debug("getApiResponse() called");
         String sessionId = topBraidSessionManager.getSessionId();
         logger.debug("getApiResponse() -- sessionId: " + sessionId);
-        RestTemplate restTemplate = new RestTemplate();
 
         // set our JSESSIONID cookie and our params
         HttpHeaders headers = new HttpHeaders();
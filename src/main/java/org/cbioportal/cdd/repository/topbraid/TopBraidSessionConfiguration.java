@@ -28,6 +28,12 @@ public class TopBraidSessionConfiguration {
     private String loginUrl;
     private String username;
     private String password;
+    // http transport settings, all in milliseconds
+    private int connectTimeout = 10000;
+    private int readTimeout = 300000;
+    private int connectionRequestTimeout = 10000;
+    private long keepAlive = 60000;
+    private int maxConnections = 10;
 
     public String getServiceURL() {
         return serviceUrl;
@@ -61,4 +67,50 @@ public class TopBraidSessionConfiguration {
         this.password = password;
     }
 
+    public int getConnectTimeout() {
+        return connectTimeout;
+    }
+
+    public void setConnectTimeout(int connectTimeout) {
+        this.connectTimeout = connectTimeout;
+    }
+
+    public int getReadTimeout() {
+        return readTimeout;
+    }
+
+    public void setReadTimeout(int readTimeout) {
+        this.readTimeout = readTimeout;
+    }
+
+    /**
+    * How long to wait for a free connection from the pool.
+    */
+    public int getConnectionRequestTimeout() {
+        return connectionRequestTimeout;
+    }
+
+    public void setConnectionRequestTimeout(int connectionRequestTimeout) {
+        this.connectionRequestTimeout = connectionRequestTimeout;
+    }
+
+    /**
+    * How long an idle pooled connection is kept open when the server does not send a Keep-Alive timeout.
+    */
+    public long getKeepAlive() {
+        return keepAlive;
+    }
+
+    public void setKeepAlive(long keepAlive) {
+        this.keepAlive = keepAlive;
+    }
+
+    public int getMaxConnections() {
+        return maxConnections;
+    }
+
+    public void setMaxConnections(int maxConnections) {
+        this.maxConnections = maxConnections;
+    }
+
 }
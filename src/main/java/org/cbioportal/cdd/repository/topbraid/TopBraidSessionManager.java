@@ -18,16 +18,22 @@
 
 package org.cbioportal.cdd.repository.topbraid;
 
+import java.io.IOException;
 import java.util.List;
+import java.util.concurrent.TimeUnit;
 
 import org.apache.http.StatusLine;
+import org.apache.http.client.config.CookieSpecs;
+import org.apache.http.client.config.RequestConfig;
 import org.apache.http.client.methods.CloseableHttpResponse;
 import org.apache.http.client.methods.HttpHead;
 import org.apache.http.client.protocol.HttpClientContext;
 import org.apache.http.cookie.Cookie;
 import org.apache.http.impl.client.BasicCookieStore;
 import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.impl.client.DefaultConnectionKeepAliveStrategy;
 import org.apache.http.impl.client.HttpClients;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.http.HttpStatus;
@@ -42,10 +48,14 @@ public class TopBraidSessionManager {
 
     private TopBraidSessionConfiguration configuration;
 
-    private Cookie sessionIdCookie;
+    // shared, pooled client for all requests to this TopBraid endpoint (login and queries)
+    private volatile CloseableHttpClient httpClient;
+    private volatile RequestConfig requestConfig;
+
+    private volatile Cookie sessionIdCookie;
 
     public TopBraidSessionManager(TopBraidSessionConfiguration configuration) {
-        this.configuration = configuration;
+        setConfiguration(configuration);
     }
 
     public TopBraidSessionConfiguration getConfiguration() {
@@ -54,6 +64,61 @@ public class TopBraidSessionManager {
 
     public void setConfiguration(TopBraidSessionConfiguration configuration) {
         this.configuration = configuration;
+        CloseableHttpClient previousHttpClient = httpClient;
+        requestConfig = createRequestConfig(configuration);
+        httpClient = createHttpClient(configuration, requestConfig);
+        closeQuietly(previousHttpClient);
+    }
+
+    public CloseableHttpClient getHttpClient() {
+        return httpClient;
+    }
+
+    private static RequestConfig createRequestConfig(TopBraidSessionConfiguration configuration) {
+        return RequestConfig.custom()
+            .setConnectTimeout(configuration.getConnectTimeout())
+            .setSocketTimeout(configuration.getReadTimeout())
+            .setConnectionRequestTimeout(configuration.getConnectionRequestTimeout())
+            // queries send their session cookie explicitly, only the login requests enable cookie handling
+            .setCookieSpec(CookieSpecs.IGNORE_COOKIES)
+            .build();
+    }
+
+    private static CloseableHttpClient createHttpClient(TopBraidSessionConfiguration configuration, RequestConfig requestConfig) {
+        PoolingHttpClientConnectionManager connectionManager = new PoolingHttpClientConnectionManager();
+        connectionManager.setMaxTotal(configuration.getMaxConnections());
+        connectionManager.setDefaultMaxPerRoute(configuration.getMaxConnections());
+        // the server may close idle connections at any time, check them before reuse
+        connectionManager.setValidateAfterInactivity(2000);
+        long keepAlive = configuration.getKeepAlive();
+        return HttpClients.custom()
+            .setConnectionManager(connectionManager)
+            .setDefaultRequestConfig(requestConfig)
+            .setKeepAliveStrategy((response, context) -> {
+                long serverKeepAlive = DefaultConnectionKeepAliveStrategy.INSTANCE.getKeepAliveDuration(response, context);
+                return serverKeepAlive > 0 ? serverKeepAlive : keepAlive;
+            })
+            .evictExpiredConnections()
+            .evictIdleConnections(keepAlive, TimeUnit.MILLISECONDS)
+            .build();
+    }
+
+    /*
+     * Release pooled connections, called by the container on shutdown
+     */
+    public void close() {
+        closeQuietly(httpClient);
+    }
+
+    private static void closeQuietly(CloseableHttpClient client) {
+        if (client == null) {
+            return;
+        }
+        try {
+            client.close();
+        } catch (IOException e) {
+            logger.warn("Unable to close http client: '" + e + "'");
+        }
     }
 
     /*
@@ -103,16 +168,15 @@ public class TopBraidSessionManager {
     }
 
     private Cookie getSessionIdCookie(String url, Cookie initialSessionIdCookie) {
-        try {
-            HttpClientContext context = HttpClientContext.create();
-            if (initialSessionIdCookie != null) {
-                BasicCookieStore requestCookieStore = new BasicCookieStore();
-                requestCookieStore.addCookie(initialSessionIdCookie);
-                context.setCookieStore(requestCookieStore);
-            }
-
-            CloseableHttpClient client = HttpClients.createDefault();
-            CloseableHttpResponse response = client.execute(new HttpHead(url), context);
+        // each login step gets its own cookie store so sessions never leak between requests
+        HttpClientContext context = HttpClientContext.create();
+        BasicCookieStore requestCookieStore = new BasicCookieStore();
+        if (initialSessionIdCookie != null) {
+            requestCookieStore.addCookie(initialSessionIdCookie);
+        }
+        context.setCookieStore(requestCookieStore);
+        context.setRequestConfig(RequestConfig.copy(requestConfig).setCookieSpec(CookieSpecs.STANDARD).build());
+        try (CloseableHttpResponse response = httpClient.execute(new HttpHead(url), context)) {
             StatusLine statusLine = response.getStatusLine();
             if (statusLine.getStatusCode() != HttpStatus.OK.value()) {
                 logger.error("Response status: '" + statusLine + "'");
@@ -127,10 +191,6 @@ public class TopBraidSessionManager {
                     return cookie;
                 }
             }
-
-            // close stuff
-            client.close();
-            response.close();
         } catch (Exception e) {
             logger.error("Unable to secure connection: '" + e + "'");
         }
@@ -16,20 +16,31 @@
 package org.cbioportal.cdd.service;
 
 import java.util.List;
-import java.util.Map;
 
+import org.cbioportal.cdd.model.CacheRefreshJob;
+import org.cbioportal.cdd.model.CacheStatistics;
 import org.cbioportal.cdd.model.ClinicalAttributeMetadata;
+import org.cbioportal.cdd.model.ColumnHeaderResolution;
 import org.cbioportal.cdd.model.CancerStudy;
+import org.cbioportal.cdd.model.VersionedResult;
 import org.cbioportal.cdd.service.exception.ClinicalAttributeNotFoundException;
 
 /**
  * @author Manda Wilson 
  */
 public interface ClinicalDataDictionaryService {
-    List<CancerStudy> getCancerStudies();
-    List<ClinicalAttributeMetadata> getClinicalAttributeMetadata(String cancerStudy);
-    List<ClinicalAttributeMetadata> getMetadataByColumnHeaders(String cancerStudy, List<String> columnHeaders) throws ClinicalAttributeNotFoundException;
-    List<ClinicalAttributeMetadata> getMetadataBySearchTerms(List<String> searchTerms, String attributeType, boolean inclusiveSearch) throws ClinicalAttributeNotFoundException;
-    ClinicalAttributeMetadata getMetadataByColumnHeader(String cancerStudy, String columnHeader) throws ClinicalAttributeNotFoundException;
-    Map<String, String> forceResetCache();
+    VersionedResult<List<CancerStudy>> getCancerStudies();
+    VersionedResult<List<ClinicalAttributeMetadata>> getClinicalAttributeMetadata(String cancerStudy);
+    VersionedResult<List<ClinicalAttributeMetadata>> getMetadataByColumnHeaders(String cancerStudy, List<String> columnHeaders) throws ClinicalAttributeNotFoundException;
+    VersionedResult<ColumnHeaderResolution> resolveColumnHeaders(String cancerStudy, List<String> columnHeaders);
+    VersionedResult<List<ClinicalAttributeMetadata>> getMetadataBySearchTerms(List<String> searchTerms, String attributeType, boolean inclusiveSearch, int offset, Integer limit) throws ClinicalAttributeNotFoundException;
+    VersionedResult<ClinicalAttributeMetadata> getMetadataByColumnHeader(String cancerStudy, String columnHeader) throws ClinicalAttributeNotFoundException;
+    /**
+    * The versions a lookup scoped to cancerStudy (the whole dictionary if null) would report right now, without
+    * looking anything up, so conditional requests can be answered first. The result is always null.
+    */
+    VersionedResult<Void> getMetadataVersion(String cancerStudy);
+    CacheRefreshJob forceResetCache();
+    CacheRefreshJob getCacheRefreshJob(String jobId);
+    List<CacheStatistics> getCacheStatistics();
 }
@@ -0,0 +1,42 @@
+/*
+ * Copyright (c) 2026 Memorial Sloan-Kettering Cancer Center.
+ *
+ * This library is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY, WITHOUT EVEN THE IMPLIED WARRANTY OF MERCHANTABILITY OR FITNESS
+ * FOR A PARTICULAR PURPOSE. The software and documentation provided hereunder
+ * is on an "as is" basis, and Memorial Sloan-Kettering Cancer Center has no
+ * obligations to provide maintenance, support, updates, enhancements or
+ * modifications. In no event shall Memorial Sloan-Kettering Cancer Center be
+ * liable to any party for direct, indirect, special, incidental or
+ * consequential damages, including lost profits, arising out of the use of this
+ * software and its documentation, even if Memorial Sloan-Kettering Cancer
+ * Center has been advised of the possibility of such damage.
+ */
+
+package org.cbioportal.cdd.service;
+
+import java.util.List;
+import java.util.Map;
+
+import org.cbioportal.cdd.model.ClinicalAttributeMetadata;
+import org.cbioportal.cdd.model.DictionaryChangeSet;
+import org.cbioportal.cdd.model.MultiStudyMetadata;
+import org.cbioportal.cdd.model.VersionedResult;
+import org.cbioportal.cdd.service.exception.ClinicalAttributeNotFoundException;
+
+/**
+ * Operations that need the versioned snapshot, per-study overrides and search indexes of the knowledge
+ * systems dictionary. The MSK Standard Vocabulary has none of these, so it only implements
+ * ClinicalDataDictionaryService, and the service router rejects these calls for its studies.
+ */
+public interface KnowledgeSystemsDictionaryService extends ClinicalDataDictionaryService {
+    VersionedResult<Map<String, List<ClinicalAttributeMetadata>>> getClinicalAttributeMetadataForAllCancerStudies();
+    VersionedResult<MultiStudyMetadata> getMetadataForCancerStudies(List<String> cancerStudies, List<String> columnHeaders);
+    VersionedResult<List<ClinicalAttributeMetadata>> getMetadataByFuzzySearchTerms(List<String> searchTerms, String attributeType, boolean inclusiveSearch, int maxEditDistance, int offset, Integer limit) throws ClinicalAttributeNotFoundException;
+    VersionedResult<List<ClinicalAttributeMetadata>> getMetadataSuggestions(String prefix, int limit);
+    /**
+    * Like getMetadataVersion, for searches and suggestions, which only depend on the default attributes.
+    */
+    VersionedResult<Void> getSearchVersion();
+    List<DictionaryChangeSet> getChangesSince(String dictionaryVersion);
+}
@@ -15,14 +15,21 @@
 
 package org.cbioportal.cdd.service.internal;
 
+import com.google.common.cache.CacheStats;
 import java.util.*;
+import org.cbioportal.cdd.model.CacheRefreshJob;
+import org.cbioportal.cdd.model.CacheStatistics;
 import org.cbioportal.cdd.model.CancerStudy;
 import org.cbioportal.cdd.model.ClinicalAttributeMetadata;
-import org.cbioportal.cdd.service.ClinicalDataDictionaryService;
+import org.cbioportal.cdd.model.ColumnHeaderResolution;
+import org.cbioportal.cdd.model.DictionaryChangeSet;
+import org.cbioportal.cdd.model.MultiStudyMetadata;
+import org.cbioportal.cdd.model.UnresolvedColumnHeader;
+import org.cbioportal.cdd.model.VersionedResult;
+import org.cbioportal.cdd.service.KnowledgeSystemsDictionaryService;
 import org.cbioportal.cdd.service.exception.CancerStudyNotFoundException;
 import org.cbioportal.cdd.service.exception.ClinicalAttributeNotFoundException;
 import org.cbioportal.cdd.service.exception.ClinicalMetadataSourceUnresponsiveException;
-import org.cbioportal.cdd.service.exception.FailedCacheRefreshException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -30,15 +37,15 @@ import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.stereotype.Service;
 
 /**
- * Note this class relies on the ClinicalAttributeMetadataCache class which will frequently generate a
- * new cache of clinical attributes.  Each method in this class should only get the cache once
- * and should not attempt to make any modifications to the cache.
+ * Note this class relies on the ClinicalAttributeMetadataCache class which will frequently publish a
+ * new DictionarySnapshot of clinical attributes.  Each method in this class should only get the snapshot once,
+ * pass it along to any helpers, and should not attempt to make any modifications to it.
  *
  * @author Robert Sheridan, Avery Wang, Manda Wilson
  */
 @Service
 @Qualifier("knowledgesystems")
-public class CDDServiceKnowledgeSystemsImpl implements ClinicalDataDictionaryService {
+public class CDDServiceKnowledgeSystemsImpl implements KnowledgeSystemsDictionaryService {
 
     @Autowired
     private ClinicalAttributeMetadataCache clinicalAttributesCache;
@@ -46,65 +53,66 @@ public class CDDServiceKnowledgeSystemsImpl implements ClinicalDataDictionarySer
     @Autowired
     private LevenshteinDistanceCache levenshteinDistanceCache;
 
+    @Autowired
+    private CacheRefreshCoordinator cacheRefreshCoordinator;
+
+    @Autowired
+    private SearchResultCache searchResultCache;
+
+    @Autowired
+    private DictionaryChangeLog dictionaryChangeLog;
+
     private static final Logger logger = LoggerFactory.getLogger(CDDServiceKnowledgeSystemsImpl.class);
 
-    private static final Set<String> CANCER_STUDIES_WITH_ALTERED_DEFAULT_METADATA;
-    static {
-        Set<String> cancerStudySet = new HashSet<>();
-        cancerStudySet.add("mskimpact");
-        cancerStudySet.add("sclc_mskimpact_2017");
-        cancerStudySet.add("mskarcher");
-        cancerStudySet.add("mskraindance");
-        cancerStudySet.add("mskimpact_heme");
-        cancerStudySet.add("msk_solid_heme");
-        CANCER_STUDIES_WITH_ALTERED_DEFAULT_METADATA = Collections.unmodifiableSet(cancerStudySet);
-    }
+    // larger edit distances match most short headers and stop being useful
+    public static final int MAXIMUM_FUZZY_EDIT_DISTANCE = 3;
+    // suggestions are for an autocomplete list, not for paging through the dictionary
+    public static final int MAXIMUM_SUGGESTIONS = 100;
+    // suggestions for an unresolved column header in a partial lookup
+    private static final int COLUMN_HEADER_SUGGESTION_EDIT_DISTANCE = 2;
+    private static final int MAXIMUM_COLUMN_HEADER_SUGGESTIONS = 5;
 
     @Override
-    public List<ClinicalAttributeMetadata> getClinicalAttributeMetadata(String cancerStudy)
+    public VersionedResult<List<ClinicalAttributeMetadata>> getClinicalAttributeMetadata(String cancerStudy)
         throws ClinicalMetadataSourceUnresponsiveException, CancerStudyNotFoundException {
-        assertCacheIsValid();
-        assertCancerStudyIsValid(cancerStudy);
-        List<String> columnHeaders = new ArrayList<>(clinicalAttributesCache.getClinicalAttributeMetadata().keySet());
-        List<ClinicalAttributeMetadata> clinicalAttributes = getMetadataByColumnHeaders(cancerStudy, columnHeaders);
-        return clinicalAttributes;
+        DictionarySnapshot snapshot = getValidSnapshot();
+        assertCancerStudyIsValid(snapshot, cancerStudy);
+        // merged views are built once per snapshot, this list is shared between requests
+        return versionedResult(snapshot, cancerStudy, snapshot.getClinicalAttributeMetadata(cancerStudy));
     }
 
     @Override
-    public List<ClinicalAttributeMetadata> getMetadataByColumnHeaders(String cancerStudy, List<String> columnHeaders)
-        throws ClinicalAttributeNotFoundException, ClinicalMetadataSourceUnresponsiveException, CancerStudyNotFoundException {
-        assertCacheIsValid();
-        assertCancerStudyIsValid(cancerStudy);
-        List<ClinicalAttributeMetadata> clinicalAttributes = new ArrayList<ClinicalAttributeMetadata>();
-        Map<String, ClinicalAttributeMetadata> defaultClinicalAttributeCache = clinicalAttributesCache.getClinicalAttributeMetadata();
-        Map<String, Map<String, ClinicalAttributeMetadata>> overridesCache = clinicalAttributesCache.getClinicalAttributeMetadataOverrides();
-        Map<String, ClinicalAttributeMetadata> overrideClinicalAttributeCache = null;
-        if (cancerStudy != null) { // cancer study has already been validated
-            overrideClinicalAttributeCache = overridesCache.get(cancerStudy);
+    public VersionedResult<Map<String, List<ClinicalAttributeMetadata>>> getClinicalAttributeMetadataForAllCancerStudies()
+        throws ClinicalMetadataSourceUnresponsiveException {
+        DictionarySnapshot snapshot = getValidSnapshot();
+        // every study view comes from the same snapshot, in study order, and is shared rather than copied
+        Map<String, List<ClinicalAttributeMetadata>> studyViews = new LinkedHashMap<String, List<ClinicalAttributeMetadata>>();
+        for (String cancerStudy : new TreeSet<String>(snapshot.getStudies())) {
+            studyViews.put(cancerStudy, snapshot.getClinicalAttributeMetadata(cancerStudy));
         }
+        return versionedResult(snapshot, null, studyViews);
+    }
+
+    @Override
+    public VersionedResult<List<ClinicalAttributeMetadata>> getMetadataByColumnHeaders(String cancerStudy, List<String> columnHeaders)
+        throws ClinicalAttributeNotFoundException, ClinicalMetadataSourceUnresponsiveException, CancerStudyNotFoundException {
+        DictionarySnapshot snapshot = getValidSnapshot();
+        assertCancerStudyIsValid(snapshot, cancerStudy);
+        return versionedResult(snapshot, cancerStudy, getMetadataByColumnHeaders(snapshot, cancerStudy, columnHeaders));
+    }
+
+    private List<ClinicalAttributeMetadata> getMetadataByColumnHeaders(DictionarySnapshot snapshot, String cancerStudy, List<String> columnHeaders)
+        throws ClinicalAttributeNotFoundException {
+        List<ClinicalAttributeMetadata> clinicalAttributes = new ArrayList<ClinicalAttributeMetadata>(columnHeaders.size());
         List<String> invalidClinicalAttributes = new ArrayList<String>();
         for (String columnHeader : columnHeaders) {
-            try {
-                ClinicalAttributeMetadata defaultClinicalAttributeMetadataForColumnHeader = getMetadataByColumnHeader(defaultClinicalAttributeCache, columnHeader);
-                // if there is no cancerStudyArgument, simply add the default metaData for each columnHeader
-                if (cancerStudy == null) {
-                    clinicalAttributes.add(defaultClinicalAttributeMetadataForColumnHeader);
-                    continue;
-                }
-                // if there is an explicit override for a columnHeader in this study, add the explicit override
-                if (overrideClinicalAttributeCache.containsKey(columnHeader.toUpperCase())) {
-                    clinicalAttributes.add(getMetadataByColumnHeader(overrideClinicalAttributeCache, columnHeader));
-                    continue;
-                }
-                // without an explicit override for the study, use the default metadata or a modified version for certain special studies
-                ClinicalAttributeMetadata clinicalAttributeMetadataForColumnHeader = defaultClinicalAttributeMetadataForColumnHeader;
-                if (CANCER_STUDIES_WITH_ALTERED_DEFAULT_METADATA.contains(cancerStudy)) {
-                    clinicalAttributeMetadataForColumnHeader = getAlteredDefaultMetadataByColumnHeader(defaultClinicalAttributeCache, columnHeader);
-                }
-                clinicalAttributes.add(clinicalAttributeMetadataForColumnHeader);
-            } catch (ClinicalAttributeNotFoundException e) {
+            // cancer study has already been validated, snapshot applies overrides and the priority zero policy
+            ClinicalAttributeMetadata clinicalAttributeMetadataForColumnHeader = snapshot.getMetadata(cancerStudy, columnHeader);
+            if (clinicalAttributeMetadataForColumnHeader == null) {
                 invalidClinicalAttributes.add(columnHeader);
+                continue;
             }
+            clinicalAttributes.add(clinicalAttributeMetadataForColumnHeader);
         }
         if (invalidClinicalAttributes.size() > 0) {
             throw new ClinicalAttributeNotFoundException(invalidClinicalAttributes);
@@ -113,110 +121,408 @@ public class CDDServiceKnowledgeSystemsImpl implements ClinicalDataDictionarySer
     }
 
     @Override
-    public List<ClinicalAttributeMetadata> getMetadataBySearchTerms(List<String> searchTerms, String attributeType, boolean inclusiveSearch)
+    public VersionedResult<ColumnHeaderResolution> resolveColumnHeaders(String cancerStudy, List<String> columnHeaders)
+        throws ClinicalMetadataSourceUnresponsiveException, CancerStudyNotFoundException {
+        DictionarySnapshot snapshot = getValidSnapshot();
+        assertCancerStudyIsValid(snapshot, cancerStudy);
+        return versionedResult(snapshot, cancerStudy, resolveColumnHeaders(snapshot, cancerStudy, columnHeaders));
+    }
+
+    private ColumnHeaderResolution resolveColumnHeaders(DictionarySnapshot snapshot, String cancerStudy, List<String> columnHeaders) {
+        List<ClinicalAttributeMetadata> clinicalAttributes = new ArrayList<ClinicalAttributeMetadata>(columnHeaders.size());
+        List<UnresolvedColumnHeader> unresolvedColumnHeaders = new ArrayList<UnresolvedColumnHeader>();
+        for (String columnHeader : columnHeaders) {
+            ClinicalAttributeMetadata clinicalAttributeMetadataForColumnHeader = snapshot.getMetadata(cancerStudy, columnHeader);
+            if (clinicalAttributeMetadataForColumnHeader == null) {
+                unresolvedColumnHeaders.add(new UnresolvedColumnHeader(columnHeader, getColumnHeaderSuggestions(snapshot, columnHeader)));
+                continue;
+            }
+            clinicalAttributes.add(clinicalAttributeMetadataForColumnHeader);
+        }
+        return new ColumnHeaderResolution(clinicalAttributes, unresolvedColumnHeaders);
+    }
+
+    @Override
+    public VersionedResult<MultiStudyMetadata> getMetadataForCancerStudies(List<String> cancerStudies, List<String> columnHeaders)
+        throws ClinicalMetadataSourceUnresponsiveException, CancerStudyNotFoundException {
+        if (cancerStudies == null || cancerStudies.isEmpty() || columnHeaders == null) {
+            throw new IllegalArgumentException("cancer_studies must not be empty and column_headers must be set");
+        }
+        DictionarySnapshot snapshot = getValidSnapshot();
+        for (String cancerStudy : cancerStudies) {
+            if (cancerStudy == null) {
+                throw new IllegalArgumentException("cancer_studies must not contain null");
+            }
+            assertCancerStudyIsValid(snapshot, cancerStudy);
+        }
+        // whether a column header exists does not depend on the study, so headers are normalized and resolved once
+        Map<String, String> normalizedColumnHeaders = new LinkedHashMap<String, String>();
+        List<UnresolvedColumnHeader> unresolvedColumnHeaders = new ArrayList<UnresolvedColumnHeader>();
+        for (String columnHeader : columnHeaders) {
+            String normalizedColumnHeader = columnHeader.toUpperCase();
+            if (normalizedColumnHeaders.containsKey(normalizedColumnHeader)) {
+                continue;
+            }
+            if (snapshot.getMetadata(null, normalizedColumnHeader) == null) {
+                normalizedColumnHeaders.put(normalizedColumnHeader, null);
+                unresolvedColumnHeaders.add(new UnresolvedColumnHeader(columnHeader, getColumnHeaderSuggestions(snapshot, columnHeader)));
+                continue;
+            }
+            normalizedColumnHeaders.put(normalizedColumnHeader, normalizedColumnHeader);
+        }
+        // attributes shared between studies (defaults and priority zero copies) are emitted once and referenced from each study
+        Map<String, ClinicalAttributeMetadata> attributes = new LinkedHashMap<String, ClinicalAttributeMetadata>();
+        Map<String, Map<String, String>> studies = new LinkedHashMap<String, Map<String, String>>();
+        for (String cancerStudy : cancerStudies) {
+            if (studies.containsKey(cancerStudy)) {
+                continue;
+            }
+            Map<String, String> studyReferences = new LinkedHashMap<String, String>();
+            for (String normalizedColumnHeader : normalizedColumnHeaders.values()) {
+                if (normalizedColumnHeader == null) {
+                    continue;
+                }
+                String reference = snapshot.getMetadataReference(cancerStudy, normalizedColumnHeader);
+                if (!attributes.containsKey(reference)) {
+                    attributes.put(reference, snapshot.getMetadata(cancerStudy, normalizedColumnHeader));
+                }
+                studyReferences.put(normalizedColumnHeader, reference);
+            }
+            studies.put(cancerStudy, studyReferences);
+        }
+        return versionedResult(snapshot, null, new MultiStudyMetadata(attributes, studies, unresolvedColumnHeaders));
+    }
+
+    /**
+    * Column headers of the attributes whose column header or display name is closest to columnHeader, closest first.
+    */
+    private List<String> getColumnHeaderSuggestions(DictionarySnapshot snapshot, String columnHeader) {
+        Map<Integer, Integer> ordinalDistances = snapshot.getFuzzyIndex().findOrdinalsWithin(columnHeader, COLUMN_HEADER_SUGGESTION_EDIT_DISTANCE);
+        List<Long> rankedMatches = new ArrayList<Long>(ordinalDistances.size());
+        for (Map.Entry<Integer, Integer> entry : ordinalDistances.entrySet()) {
+            rankedMatches.add(((long) entry.getValue() << 32) | entry.getKey());
+        }
+        // closest first, ties in dictionary order
+        long[] sortedMatches = toSortedArray(rankedMatches);
+        List<String> suggestions = new ArrayList<String>(Math.min(sortedMatches.length, MAXIMUM_COLUMN_HEADER_SUGGESTIONS));
+        for (int i = 0; i < sortedMatches.length && i < MAXIMUM_COLUMN_HEADER_SUGGESTIONS; i++) {
+            suggestions.add(snapshot.getSearchIndex().getAttribute((int) sortedMatches[i]).getColumnHeader());
+        }
+        return suggestions;
+    }
+
+    @Override
+    public VersionedResult<List<ClinicalAttributeMetadata>> getMetadataBySearchTerms(List<String> searchTerms, String attributeType, boolean inclusiveSearch, int offset, Integer limit)
         throws ClinicalAttributeNotFoundException, ClinicalMetadataSourceUnresponsiveException {
-        assertCacheIsValid();
-        Map<ClinicalAttributeMetadata, Integer> clinicalAttributesToLevenshteinDistance = new HashMap<ClinicalAttributeMetadata, Integer>();
-        List<ClinicalAttributeMetadata> defaultClinicalAttributeCache = new ArrayList<ClinicalAttributeMetadata>(clinicalAttributesCache.getClinicalAttributeMetadata().values());
+        if (offset < 0 || (limit != null && limit < 0)) {
+            throw new IllegalArgumentException("offset and limit must not be negative");
+        }
+        DictionarySnapshot snapshot = getValidSnapshot();
+        Optional<List<ClinicalAttributeMetadata>> clinicalAttributes = searchResultCache.getSearchResult(snapshot.getDefaultsHash(), searchTerms,
+            attributeType, inclusiveSearch, -1, offset, limit, () -> searchBySearchTerms(snapshot, searchTerms, attributeType, inclusiveSearch, offset, limit));
+        if (!clinicalAttributes.isPresent()) {
+            throw new ClinicalAttributeNotFoundException(String.join(", ", searchTerms));
+        }
+        // search results only depend on the default attributes, like the search result cache
+        return new VersionedResult<List<ClinicalAttributeMetadata>>(clinicalAttributes.get(), snapshot.getContentHash(), snapshot.getDefaultsHash());
+    }
+
+    /**
+    * Returns the ranked page of matches, or null if no attribute matched at all.
+    */
+    private List<ClinicalAttributeMetadata> searchBySearchTerms(DictionarySnapshot snapshot, List<String> searchTerms, String attributeType,
+            boolean inclusiveSearch, int offset, Integer limit) {
+        ClinicalAttributeSearchIndex searchIndex = snapshot.getSearchIndex();
+
+        // ordinals of the attributes containing each search term, only these attributes are looked at below
+        int[][] searchTermMatches = new int[searchTerms.size()][];
+        int[] candidates = null;
+        for (int i = 0; i < searchTerms.size(); i++) {
+            searchTermMatches[i] = searchIndex.findOrdinalsContaining(searchTerms.get(i));
+            if (candidates == null) {
+                candidates = searchTermMatches[i];
+            } else if (inclusiveSearch) {
+                // inclusive search only keeps attributes that have all search terms present
+                candidates = ClinicalAttributeSearchIndex.intersect(candidates, searchTermMatches[i]);
+            } else {
+                candidates = ClinicalAttributeSearchIndex.union(candidates, searchTermMatches[i]);
+            }
+        }
 
-        // check each attribute for match - skip if doesn't match specified attribute type OR inclusive search that doesn't have all search terms present
-        for (ClinicalAttributeMetadata clinicalAttributeMetadata : defaultClinicalAttributeCache) {
+        // with a limit only the best offset + limit matches are kept, in a max heap so the current cutoff is at the top
+        // each match is encoded as (distance << 32 | ordinal) so that natural long order is the ranking order
+        long rankedMatchCount = limit != null ? (long) offset + limit : Long.MAX_VALUE;
+        PriorityQueue<Long> topMatches = new PriorityQueue<Long>(Collections.reverseOrder());
+        List<Long> allMatches = new ArrayList<Long>();
+        int matchCount = 0;
+        String joinedSearchTerms = String.join(" ", searchTerms);
+        int[] matchPositions = new int[searchTerms.size()];
+        for (int ordinal : candidates != null ? candidates : new int[0]) {
+            ClinicalAttributeMetadata clinicalAttributeMetadata = searchIndex.getAttribute(ordinal);
+            // candidates are visited in increasing order, so each term's match list is walked once
+            boolean containsAllSearchTerms = true;
+            List<String> containedSearchTerms = new ArrayList<String>(searchTerms.size());
+            for (int i = 0; i < searchTerms.size(); i++) {
+                int[] matches = searchTermMatches[i];
+                while (matchPositions[i] < matches.length && matches[matchPositions[i]] < ordinal) {
+                    matchPositions[i]++;
+                }
+                if (matchPositions[i] < matches.length && matches[matchPositions[i]] == ordinal) {
+                    containedSearchTerms.add(searchTerms.get(i));
+                } else {
+                    containsAllSearchTerms = false;
+                }
+            }
+            // skip if doesn't match specified attribute type
             if (!clinicalAttributeMetadata.matchesAttributeType(attributeType)) {
                 continue;
             }
-            if (inclusiveSearch && !clinicalAttributeMetadata.containsAllSearchTerms(searchTerms)) {
+            matchCount++;
+            if (rankedMatchCount == 0) {
                 continue;
             }
-            mapMinimumLevenshteinDistanceFromClinicalAttributeMetadataToSearchTerms(clinicalAttributesToLevenshteinDistance, searchTerms, clinicalAttributeMetadata);
+            int maximumDistance = LevenshteinDistanceScorer.EXCEEDS_MAXIMUM;
+            if (topMatches.size() >= rankedMatchCount) {
+                // ordinals only increase, so a later attribute has to be strictly closer than the cutoff to get in
+                maximumDistance = (int) (topMatches.peek() >>> 32) - 1;
+                if (maximumDistance < 0 || getLevenshteinDistanceLowerBound(clinicalAttributeMetadata, joinedSearchTerms, containedSearchTerms, containsAllSearchTerms) > maximumDistance) {
+                    continue;
+                }
+            }
+            int levenshteinDistance = getMinimumLevenshteinDistance(snapshot.getDefaultsHash(), clinicalAttributeMetadata, joinedSearchTerms,
+                containedSearchTerms, containsAllSearchTerms, maximumDistance);
+            if (levenshteinDistance == LevenshteinDistanceScorer.EXCEEDS_MAXIMUM) {
+                continue;
+            }
+            long rankedMatch = ((long) levenshteinDistance << 32) | ordinal;
+            if (limit == null) {
+                allMatches.add(rankedMatch);
+            } else {
+                topMatches.add(rankedMatch);
+                if (topMatches.size() > rankedMatchCount) {
+                    topMatches.poll();
+                }
+            }
         }
-        List<ClinicalAttributeMetadata> clinicalAttributes = new ArrayList<ClinicalAttributeMetadata>(clinicalAttributesToLevenshteinDistance.keySet());
-        Collections.sort(clinicalAttributes, (a, b) -> {
-            return clinicalAttributesToLevenshteinDistance.get(a).compareTo(clinicalAttributesToLevenshteinDistance.get(b));
-        });
-        if (clinicalAttributes.size() == 0) {
-            throw new ClinicalAttributeNotFoundException(String.join(", ", searchTerms));
+        if (matchCount == 0) {
+            return null;
+        }
+        // closest first, ties in dictionary order
+        long[] rankedMatches = toSortedArray(limit == null ? allMatches : topMatches);
+        List<ClinicalAttributeMetadata> clinicalAttributes = new ArrayList<ClinicalAttributeMetadata>();
+        for (int i = offset; i < rankedMatches.length; i++) {
+            clinicalAttributes.add(searchIndex.getAttribute((int) rankedMatches[i]));
         }
         return clinicalAttributes;
     }
 
-    private void mapMinimumLevenshteinDistanceFromClinicalAttributeMetadataToSearchTerms(Map<ClinicalAttributeMetadata, Integer> clinicalAttributesToLevenshteinDistance, List<String> searchTerms, ClinicalAttributeMetadata clinicalAttributeMetadata) {
-        Integer levenshteinDistance;
-        // matching clinical attributes added to map with shortest levenshtein distance
+    @Override
+    public VersionedResult<List<ClinicalAttributeMetadata>> getMetadataByFuzzySearchTerms(List<String> searchTerms, String attributeType, boolean inclusiveSearch, int maxEditDistance, int offset, Integer limit)
+        throws ClinicalAttributeNotFoundException, ClinicalMetadataSourceUnresponsiveException {
+        if (offset < 0 || (limit != null && limit < 0)) {
+            throw new IllegalArgumentException("offset and limit must not be negative");
+        }
+        if (maxEditDistance < 0 || maxEditDistance > MAXIMUM_FUZZY_EDIT_DISTANCE) {
+            throw new IllegalArgumentException("maxEditDistance must be between 0 and " + MAXIMUM_FUZZY_EDIT_DISTANCE);
+        }
+        DictionarySnapshot snapshot = getValidSnapshot();
+        Optional<List<ClinicalAttributeMetadata>> clinicalAttributes = searchResultCache.getSearchResult(snapshot.getDefaultsHash(), searchTerms,
+            attributeType, inclusiveSearch, maxEditDistance, offset, limit,
+            () -> searchByFuzzySearchTerms(snapshot, searchTerms, attributeType, inclusiveSearch, maxEditDistance, offset, limit));
+        if (!clinicalAttributes.isPresent()) {
+            throw new ClinicalAttributeNotFoundException(String.join(", ", searchTerms));
+        }
+        // search results only depend on the default attributes, like the search result cache
+        return new VersionedResult<List<ClinicalAttributeMetadata>>(clinicalAttributes.get(), snapshot.getContentHash(), snapshot.getDefaultsHash());
+    }
+
+    /**
+    * Returns the ranked page of fuzzy matches, or null if no attribute matched at all.
+    */
+    private List<ClinicalAttributeMetadata> searchByFuzzySearchTerms(DictionarySnapshot snapshot, List<String> searchTerms, String attributeType,
+            boolean inclusiveSearch, int maxEditDistance, int offset, Integer limit) {
+        ClinicalAttributeFuzzyIndex fuzzyIndex = snapshot.getFuzzyIndex();
+
+        // attribute ordinal to the closest edit distance over all search terms
+        Map<Integer, Integer> ordinalDistances = null;
         for (String searchTerm : searchTerms) {
-            if (clinicalAttributeMetadata.containsSearchTerm(searchTerm)) {
-                // attempt to get levenshtein distance from cache - if not present, add to cache
-                if (!levenshteinDistanceCache.containsClinicalAttribute(clinicalAttributeMetadata)) {
-                    levenshteinDistanceCache.addClinicalAttribute(clinicalAttributeMetadata);
+            Map<Integer, Integer> searchTermDistances = fuzzyIndex.findOrdinalsWithin(searchTerm, maxEditDistance);
+            if (ordinalDistances == null) {
+                ordinalDistances = searchTermDistances;
+            } else if (inclusiveSearch) {
+                // inclusive search only keeps attributes close to every search term
+                ordinalDistances.keySet().retainAll(searchTermDistances.keySet());
+                for (Map.Entry<Integer, Integer> entry : ordinalDistances.entrySet()) {
+                    entry.setValue(Math.min(entry.getValue(), searchTermDistances.get(entry.getKey())));
                 }
-                if (!levenshteinDistanceCache.containsClinicalAttributeToSearchTermMapping(clinicalAttributeMetadata, searchTerm)) {
-                    levenshteinDistanceCache.addClinicalAttributeToSearchTermMapping(clinicalAttributeMetadata, searchTerm);
-                }
-                levenshteinDistance = levenshteinDistanceCache.getLevenshteinDistanceForMapping(clinicalAttributeMetadata, searchTerm);
-                if (!clinicalAttributesToLevenshteinDistance.containsKey(clinicalAttributeMetadata)) {
-                    clinicalAttributesToLevenshteinDistance.put(clinicalAttributeMetadata, levenshteinDistance);
-                } else {
-                    clinicalAttributesToLevenshteinDistance.put(clinicalAttributeMetadata, Math.min(clinicalAttributesToLevenshteinDistance.get(clinicalAttributeMetadata), levenshteinDistance));
+            } else {
+                for (Map.Entry<Integer, Integer> entry : searchTermDistances.entrySet()) {
+                    ordinalDistances.merge(entry.getKey(), entry.getValue(), Math::min);
                 }
             }
         }
-        if (clinicalAttributeMetadata.containsAllSearchTerms(searchTerms)) {
-            levenshteinDistance = clinicalAttributeMetadata.levenshteinDistanceFromSearchTerm(String.join(" ", searchTerms));
-            clinicalAttributesToLevenshteinDistance.put(clinicalAttributeMetadata, Math.min(clinicalAttributesToLevenshteinDistance.get(clinicalAttributeMetadata), levenshteinDistance));
+
+        List<Long> rankedMatches = new ArrayList<Long>();
+        for (Map.Entry<Integer, Integer> entry : ordinalDistances != null ? ordinalDistances.entrySet() : Collections.<Map.Entry<Integer, Integer>>emptySet()) {
+            if (snapshot.getSearchIndex().getAttribute(entry.getKey()).matchesAttributeType(attributeType)) {
+                rankedMatches.add(((long) entry.getValue() << 32) | entry.getKey());
+            }
         }
+        if (rankedMatches.isEmpty()) {
+            return null;
+        }
+        // closest first, ties in dictionary order
+        long[] sortedMatches = toSortedArray(rankedMatches);
+        int end = limit != null ? (int) Math.min(sortedMatches.length, (long) offset + limit) : sortedMatches.length;
+        List<ClinicalAttributeMetadata> clinicalAttributes = new ArrayList<ClinicalAttributeMetadata>();
+        for (int i = offset; i < end; i++) {
+            clinicalAttributes.add(snapshot.getSearchIndex().getAttribute((int) sortedMatches[i]));
+        }
+        return clinicalAttributes;
     }
 
     @Override
-    public ClinicalAttributeMetadata getMetadataByColumnHeader(String cancerStudy, String columnHeader)
-        throws ClinicalAttributeNotFoundException, ClinicalMetadataSourceUnresponsiveException, CancerStudyNotFoundException {
-        List<String> columnHeaders = Collections.singletonList(columnHeader);
-        List<ClinicalAttributeMetadata> clinicalAttributeMetadataList = getMetadataByColumnHeaders(cancerStudy, columnHeaders);
-        return clinicalAttributeMetadataList.get(0);
+    public VersionedResult<List<ClinicalAttributeMetadata>> getMetadataSuggestions(String prefix, int limit)
+        throws ClinicalMetadataSourceUnresponsiveException {
+        if (limit < 1 || limit > MAXIMUM_SUGGESTIONS) {
+            throw new IllegalArgumentException("limit must be between 1 and " + MAXIMUM_SUGGESTIONS);
+        }
+        DictionarySnapshot snapshot = getValidSnapshot();
+        return new VersionedResult<List<ClinicalAttributeMetadata>>(snapshot.getPrefixIndex().findAttributesStartingWith(prefix, limit),
+            snapshot.getContentHash(), snapshot.getDefaultsHash());
     }
 
-    private ClinicalAttributeMetadata getMetadataByColumnHeader(Map<String, ClinicalAttributeMetadata> clinicalAttributeCache, String columnHeader)
-        throws ClinicalAttributeNotFoundException {
-        if (clinicalAttributeCache.containsKey(columnHeader.toUpperCase())) {
-            return clinicalAttributeCache.get(columnHeader.toUpperCase());
+    @Override
+    public VersionedResult<Void> getMetadataVersion(String cancerStudy) throws ClinicalMetadataSourceUnresponsiveException {
+        return versionedResult(getValidSnapshot(), cancerStudy, null);
+    }
+
+    @Override
+    public VersionedResult<Void> getSearchVersion() throws ClinicalMetadataSourceUnresponsiveException {
+        DictionarySnapshot snapshot = getValidSnapshot();
+        return new VersionedResult<Void>(null, snapshot.getContentHash(), snapshot.getDefaultsHash());
+    }
+
+    @Override
+    public List<DictionaryChangeSet> getChangesSince(String dictionaryVersion) throws ClinicalMetadataSourceUnresponsiveException {
+        return dictionaryChangeLog.getChangesSince(dictionaryVersion, getValidSnapshot().getContentHash());
+    }
+
+    @Override
+    public List<CacheStatistics> getCacheStatistics() {
+        List<CacheStatistics> cacheStatistics = new ArrayList<CacheStatistics>(2);
+        cacheStatistics.add(toCacheStatistics("searchResultCache", searchResultCache.size(), searchResultCache.getStats()));
+        cacheStatistics.add(toCacheStatistics("levenshteinDistanceCache", levenshteinDistanceCache.size(), levenshteinDistanceCache.getStats()));
+        return cacheStatistics;
+    }
+
+    private static CacheStatistics toCacheStatistics(String cacheName, long size, CacheStats stats) {
+        return new CacheStatistics(cacheName, size, stats.hitCount(), stats.missCount(), stats.hitRate(), stats.evictionCount());
+    }
+
+    private static long[] toSortedArray(Collection<Long> rankedMatches) {
+        long[] sortedMatches = new long[rankedMatches.size()];
+        int i = 0;
+        for (Long rankedMatch : rankedMatches) {
+            sortedMatches[i++] = rankedMatch;
         }
-        throw new ClinicalAttributeNotFoundException(columnHeader);
+        Arrays.sort(sortedMatches);
+        return sortedMatches;
     }
 
-    private ClinicalAttributeMetadata getAlteredDefaultMetadataByColumnHeader(Map<String, ClinicalAttributeMetadata> clinicalAttributeCache, String columnHeader)
-        throws ClinicalAttributeNotFoundException {
-            ClinicalAttributeMetadata defaultClinicalAttribute = getMetadataByColumnHeader(clinicalAttributeCache, columnHeader);
-            ClinicalAttributeMetadata alteredClinicalAttribute = new ClinicalAttributeMetadata(defaultClinicalAttribute);
-            alteredClinicalAttribute.setPriority("0");
-            return alteredClinicalAttribute;
+    /**
+    * The length difference between a field and a search term is a lower bound on their levenshtein distance.
+    */
+    private int getLevenshteinDistanceLowerBound(ClinicalAttributeMetadata clinicalAttributeMetadata, String joinedSearchTerms,
+            List<String> containedSearchTerms, boolean containsAllSearchTerms) {
+        int lowerBound = Integer.MAX_VALUE;
+        for (String searchTerm : containedSearchTerms) {
+            lowerBound = Math.min(lowerBound, getLengthDifferenceLowerBound(clinicalAttributeMetadata, searchTerm.length()));
+        }
+        if (containsAllSearchTerms && containedSearchTerms.size() > 1) {
+            lowerBound = Math.min(lowerBound, getLengthDifferenceLowerBound(clinicalAttributeMetadata, joinedSearchTerms.length()));
+        }
+        return lowerBound;
+    }
+
+    private int getLengthDifferenceLowerBound(ClinicalAttributeMetadata clinicalAttributeMetadata, int searchTermLength) {
+        int lowerBound = Integer.MAX_VALUE;
+        for (String field : new String[] {clinicalAttributeMetadata.getColumnHeader(), clinicalAttributeMetadata.getDisplayName(), clinicalAttributeMetadata.getDescription()}) {
+            if (field != null) {
+                lowerBound = Math.min(lowerBound, Math.abs(field.length() - searchTermLength));
+            }
+        }
+        return lowerBound;
+    }
+
+    /**
+    * Returns the ranking distance of a matching attribute if it is at most maximumDistance, otherwise LevenshteinDistanceScorer.EXCEEDS_MAXIMUM.
+    */
+    private int getMinimumLevenshteinDistance(String dictionaryVersion, ClinicalAttributeMetadata clinicalAttributeMetadata, String joinedSearchTerms,
+            List<String> containedSearchTerms, boolean containsAllSearchTerms, int maximumDistance) {
+        int levenshteinDistance = LevenshteinDistanceScorer.EXCEEDS_MAXIMUM;
+        // matching clinical attributes get the shortest levenshtein distance over the search terms they contain
+        for (String searchTerm : containedSearchTerms) {
+            // levenshtein distance comes from the cache, calculated on first use
+            levenshteinDistance = Math.min(levenshteinDistance, levenshteinDistanceCache.getLevenshteinDistance(dictionaryVersion, clinicalAttributeMetadata, searchTerm));
+        }
+        if (containsAllSearchTerms && containedSearchTerms.size() > 1) {
+            // the joined phrase only matters if it is strictly closer than the best single term (and within maximumDistance)
+            levenshteinDistance = Math.min(levenshteinDistance,
+                LevenshteinDistanceScorer.minimumDistance(clinicalAttributeMetadata, joinedSearchTerms, Math.min(levenshteinDistance - 1, maximumDistance)));
+        }
+        return levenshteinDistance <= maximumDistance ? levenshteinDistance : LevenshteinDistanceScorer.EXCEEDS_MAXIMUM;
+    }
+
+    @Override
+    public VersionedResult<ClinicalAttributeMetadata> getMetadataByColumnHeader(String cancerStudy, String columnHeader)
+        throws ClinicalAttributeNotFoundException, ClinicalMetadataSourceUnresponsiveException, CancerStudyNotFoundException {
+        List<String> columnHeaders = Collections.singletonList(columnHeader);
+        VersionedResult<List<ClinicalAttributeMetadata>> clinicalAttributeMetadataList = getMetadataByColumnHeaders(cancerStudy, columnHeaders);
+        return new VersionedResult<ClinicalAttributeMetadata>(clinicalAttributeMetadataList.getResult().get(0),
+            clinicalAttributeMetadataList.getDictionaryVersion(), clinicalAttributeMetadataList.getResultVersion());
     }
 
     @Override
-    public List<CancerStudy> getCancerStudies() throws ClinicalMetadataSourceUnresponsiveException {
-        assertCacheIsValid();
+    public VersionedResult<List<CancerStudy>> getCancerStudies() throws ClinicalMetadataSourceUnresponsiveException {
+        DictionarySnapshot snapshot = getValidSnapshot();
         List<CancerStudy> cancerStudies = new ArrayList<CancerStudy>();
-        Map<String, Map<String, ClinicalAttributeMetadata>> overridesCache = clinicalAttributesCache.getClinicalAttributeMetadataOverrides();
-        for (String cancerStudyName : overridesCache.keySet()) {
+        for (String cancerStudyName : snapshot.getStudies()) {
             cancerStudies.add(new CancerStudy(cancerStudyName));
         }
-        return cancerStudies;
+        return versionedResult(snapshot, null, cancerStudies);
+    }
+
+    @Override
+    public CacheRefreshJob forceResetCache() {
+        // the refresh runs in the background, readers keep the current snapshot until it completes
+        return cacheRefreshCoordinator.submitRefresh("request");
     }
 
     @Override
-    public Map<String, String> forceResetCache() throws FailedCacheRefreshException {
-        clinicalAttributesCache.resetCache();
-        levenshteinDistanceCache.resetCache();
-        return Collections.singletonMap("response", "Success!");
+    public CacheRefreshJob getCacheRefreshJob(String jobId) {
+        return cacheRefreshCoordinator.getJob(jobId);
+    }
+
+    private static <T> VersionedResult<T> versionedResult(DictionarySnapshot snapshot, String cancerStudy, T result) {
+        // derived from content so that a refresh which changes nothing keeps cached responses and validators,
+        // and per study so that a refresh which only changes other studies keeps them too
+        String studyViewHash = cancerStudy == null ? null : snapshot.getStudyViewHash(cancerStudy);
+        return new VersionedResult<T>(result, snapshot.getContentHash(), studyViewHash != null ? studyViewHash : snapshot.getContentHash());
     }
 
-    private void assertCacheIsValid() throws ClinicalMetadataSourceUnresponsiveException {
-        if (clinicalAttributesCache.getClinicalAttributeMetadata() == null || clinicalAttributesCache.getClinicalAttributeMetadataOverrides() == null) {
-            logger.debug("assertCacheIsValid() -- cache is invalid");
+    private DictionarySnapshot getValidSnapshot() throws ClinicalMetadataSourceUnresponsiveException {
+        DictionarySnapshot snapshot = clinicalAttributesCache.getSnapshot();
+        if (snapshot == null) {
+            logger.debug("getValidSnapshot() -- cache is invalid");
             throw new ClinicalMetadataSourceUnresponsiveException("Attempted to access cache while ClinicalAttributeMetadata cache or ClinicalAttributeMetadataOverrides cache was invalid");
         }
-        logger.debug("assertCacheIsValid() -- cache is valid");
+        logger.debug("getValidSnapshot() -- cache is valid, using snapshot version " + snapshot.getVersionId());
+        return snapshot;
     }
 
-    private void assertCancerStudyIsValid(String cancerStudy) throws CancerStudyNotFoundException {
-        if (cancerStudy != null && !clinicalAttributesCache.getClinicalAttributeMetadataOverrides().containsKey(cancerStudy)) {
+    private void assertCancerStudyIsValid(DictionarySnapshot snapshot, String cancerStudy) throws CancerStudyNotFoundException {
+        if (cancerStudy != null && !snapshot.containsStudy(cancerStudy)) {
             logger.debug("assertCancerStudyIsValid() -- cancer study '" + cancerStudy + "' is invalid");
             throw new CancerStudyNotFoundException(cancerStudy);
         }
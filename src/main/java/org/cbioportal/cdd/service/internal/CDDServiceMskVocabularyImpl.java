@@ -16,9 +16,14 @@
 package org.cbioportal.cdd.service.internal;
 
 import java.util.*;
+import org.cbioportal.cdd.model.CacheRefreshJob;
+import org.cbioportal.cdd.model.CacheStatistics;
 import org.cbioportal.cdd.model.CancerStudy;
 import org.cbioportal.cdd.model.ClinicalAttributeMetadata;
+import org.cbioportal.cdd.model.ColumnHeaderResolution;
 import org.cbioportal.cdd.model.MskVocabularyField;
+import org.cbioportal.cdd.model.UnresolvedColumnHeader;
+import org.cbioportal.cdd.model.VersionedResult;
 import org.cbioportal.cdd.repository.topbraid.MskVocabularyRepository;
 import org.cbioportal.cdd.service.ClinicalDataDictionaryService;
 import org.cbioportal.cdd.service.exception.CancerStudyNotFoundException;
@@ -50,6 +55,9 @@ public class CDDServiceMskVocabularyImpl implements ClinicalDataDictionaryServic
 
     private Map<String, ClinicalAttributeMetadata> clinicalAttributeMetadataCache = new HashMap<String, ClinicalAttributeMetadata>();
 
+    // refreshes run synchronously, so the only job worth reporting on is the last one, which has always finished
+    private volatile CacheRefreshJob latestCacheRefreshJob;
+
     private void fillClinicalAttributeMetadataCache() {
         List<MskVocabularyField> mskVocabularyList = mskVocabularyRepository.getClinicalAttributeMetadata();
         if (mskVocabularyList.size() < clinicalAttributeMetadataCache.keySet().size() || mskVocabularyList == null) {
@@ -62,16 +70,17 @@ public class CDDServiceMskVocabularyImpl implements ClinicalDataDictionaryServic
     }
 
     @Override
-    public List<ClinicalAttributeMetadata> getClinicalAttributeMetadata(String cancerStudy)
+    public VersionedResult<List<ClinicalAttributeMetadata>> getClinicalAttributeMetadata(String cancerStudy)
         throws ClinicalMetadataSourceUnresponsiveException, CancerStudyNotFoundException {
         if (clinicalAttributeMetadataCache.isEmpty()) {
             fillClinicalAttributeMetadataCache();
         }
-        return new ArrayList<ClinicalAttributeMetadata>(clinicalAttributeMetadataCache.values());
+        // the MskVocabulary cache is filled in place and is not versioned, so responses built from it should not be reused
+        return VersionedResult.unversioned(new ArrayList<ClinicalAttributeMetadata>(clinicalAttributeMetadataCache.values()));
     }
 
     @Override
-    public List<ClinicalAttributeMetadata> getMetadataByColumnHeaders(String cancerStudy, List<String> columnHeaders)
+    public VersionedResult<List<ClinicalAttributeMetadata>> getMetadataByColumnHeaders(String cancerStudy, List<String> columnHeaders)
         throws ClinicalAttributeNotFoundException, ClinicalMetadataSourceUnresponsiveException, CancerStudyNotFoundException {
         ArrayList<ClinicalAttributeMetadata> clinicalAttributeMetadata = new ArrayList<ClinicalAttributeMetadata>();
         ArrayList<String> invalidColumnHeaders = new ArrayList<String>();
@@ -79,46 +88,93 @@ public class CDDServiceMskVocabularyImpl implements ClinicalDataDictionaryServic
             fillClinicalAttributeMetadataCache();
         }
         for (String columnHeader : columnHeaders) {
-            try {
-                clinicalAttributeMetadata.add(getMetadataByColumnHeader(columnHeader));
-            } catch (ClinicalAttributeNotFoundException e) {
+            ClinicalAttributeMetadata clinicalAttributeMetadataForColumnHeader = clinicalAttributeMetadataCache.get(columnHeader.toUpperCase());
+            if (clinicalAttributeMetadataForColumnHeader == null) {
                 invalidColumnHeaders.add(columnHeader);
+                continue;
             }
+            clinicalAttributeMetadata.add(clinicalAttributeMetadataForColumnHeader);
         }
         if (invalidColumnHeaders.size() > 0) {
             throw new ClinicalAttributeNotFoundException(invalidColumnHeaders);
         }
-        return clinicalAttributeMetadata;
+        return VersionedResult.unversioned(clinicalAttributeMetadata);
+    }
+
+    @Override
+    public VersionedResult<ColumnHeaderResolution> resolveColumnHeaders(String cancerStudy, List<String> columnHeaders)
+        throws ClinicalMetadataSourceUnresponsiveException, CancerStudyNotFoundException {
+        ArrayList<ClinicalAttributeMetadata> clinicalAttributeMetadata = new ArrayList<ClinicalAttributeMetadata>();
+        ArrayList<UnresolvedColumnHeader> unresolvedColumnHeaders = new ArrayList<UnresolvedColumnHeader>();
+        if (clinicalAttributeMetadataCache.isEmpty()) {
+            fillClinicalAttributeMetadataCache();
+        }
+        for (String columnHeader : columnHeaders) {
+            ClinicalAttributeMetadata clinicalAttributeMetadataForColumnHeader = clinicalAttributeMetadataCache.get(columnHeader.toUpperCase());
+            if (clinicalAttributeMetadataForColumnHeader == null) {
+                // the MskVocabulary cache has no fuzzy index to suggest from
+                unresolvedColumnHeaders.add(new UnresolvedColumnHeader(columnHeader, Collections.<String>emptyList()));
+                continue;
+            }
+            clinicalAttributeMetadata.add(clinicalAttributeMetadataForColumnHeader);
+        }
+        return VersionedResult.unversioned(new ColumnHeaderResolution(clinicalAttributeMetadata, unresolvedColumnHeaders));
     }
 
     @Override
-    public List<ClinicalAttributeMetadata> getMetadataBySearchTerms(List<String> searchTerms, String attributeType, boolean inclusiveSearch)
+    public VersionedResult<List<ClinicalAttributeMetadata>> getMetadataBySearchTerms(List<String> searchTerms, String attributeType, boolean inclusiveSearch, int offset, Integer limit)
         throws ClinicalAttributeNotFoundException, ClinicalMetadataSourceUnresponsiveException {
         throw new UnsupportedOperationException("search for similar terms within the MSK Standard Vocabulary is not yet implemented");
     }
 
     @Override
-    public ClinicalAttributeMetadata getMetadataByColumnHeader(String cancerStudy, String columnHeader)
+    public VersionedResult<ClinicalAttributeMetadata> getMetadataByColumnHeader(String cancerStudy, String columnHeader)
         throws ClinicalAttributeNotFoundException, ClinicalMetadataSourceUnresponsiveException, CancerStudyNotFoundException {
         if (clinicalAttributeMetadataCache.isEmpty()) {
             fillClinicalAttributeMetadataCache();
         }
-        return getMetadataByColumnHeader(columnHeader);
+        return VersionedResult.unversioned(getMetadataByColumnHeader(columnHeader));
+    }
+
+    @Override
+    public VersionedResult<List<CancerStudy>> getCancerStudies() throws ClinicalMetadataSourceUnresponsiveException {
+        return VersionedResult.unversioned(mskVocabStudyUtil.getMskVocabularyStudyList());
     }
 
     @Override
-    public List<CancerStudy> getCancerStudies() throws ClinicalMetadataSourceUnresponsiveException {
-        return mskVocabStudyUtil.getMskVocabularyStudyList();
+    public VersionedResult<Void> getMetadataVersion(String cancerStudy) {
+        // not versioned, so conditional requests always fall through to the lookup
+        return VersionedResult.unversioned(null);
     }
 
     @Override
-    public Map<String, String> forceResetCache() throws FailedCacheRefreshException {
+    public CacheRefreshJob forceResetCache() throws FailedCacheRefreshException {
+        CacheRefreshJob job = new CacheRefreshJob(UUID.randomUUID().toString(), "request");
+        latestCacheRefreshJob = job;
+        job.markRunning();
         try {
             fillClinicalAttributeMetadataCache();
         } catch (ClinicalMetadataSourceUnresponsiveException e) {
+            job.markFailed(e.getMessage());
             throw new FailedCacheRefreshException("failed to refresh cache", e);
         }
-        return Collections.singletonMap("response", "Success!");
+        job.markSucceeded("Success!");
+        return job;
+    }
+
+    @Override
+    public CacheRefreshJob getCacheRefreshJob(String jobId) {
+        CacheRefreshJob job = latestCacheRefreshJob;
+        if (job == null || (jobId != null && !jobId.equals(job.getJobId()))) {
+            return null;
+        }
+        return job;
+    }
+
+    @Override
+    public List<CacheStatistics> getCacheStatistics() {
+        // search is not supported, so there are no search caches to report on
+        return Collections.emptyList();
     }
 
     private ClinicalAttributeMetadata getMetadataByColumnHeader(String columnHeader)
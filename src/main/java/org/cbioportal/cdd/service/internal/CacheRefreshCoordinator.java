@@ -0,0 +1,221 @@
+/*
+ * Copyright (c) 2026 Memorial Sloan-Kettering Cancer Center.
+ *
+ * This library is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY, WITHOUT EVEN THE IMPLIED WARRANTY OF MERCHANTABILITY OR FITNESS
+ * FOR A PARTICULAR PURPOSE. The software and documentation provided hereunder
+ * is on an "as is" basis, and Memorial Sloan-Kettering Cancer Center has no
+ * obligations to provide maintenance, support, updates, enhancements or
+ * modifications. In no event shall Memorial Sloan-Kettering Cancer Center be
+ * liable to any party for direct, indirect, special, incidental or
+ * consequential damages, including lost profits, arising out of the use of this
+ * software and its documentation, even if Memorial Sloan-Kettering Cancer
+ * Center has been advised of the possibility of such damage.
+ */
+
+package org.cbioportal.cdd.service.internal;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+import javax.annotation.PreDestroy;
+import org.apache.http.*;
+import org.apache.http.client.*;
+import org.apache.http.client.methods.*;
+import org.apache.http.entity.*;
+import org.apache.http.impl.client.*;
+import org.cbioportal.cdd.model.CacheRefreshJob;
+import org.cbioportal.cdd.service.exception.FailedCacheRefreshException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.ContextRefreshedEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.EnableScheduling;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * Runs cache refreshes on a single background thread. Triggers which arrive while a refresh is
+ * in flight are collapsed into that refresh, and readers keep using the current snapshot until
+ * the refresh publishes a new one.
+ */
+@Component
+@EnableScheduling
+public class CacheRefreshCoordinator {
+
+    @Value("${slack.url}")
+    private String slackURL;
+
+    @Autowired
+    private ClinicalAttributeMetadataCache clinicalAttributesCache;
+
+    private static final Logger logger = LoggerFactory.getLogger(CacheRefreshCoordinator.class);
+
+    private static final int MAXIMUM_REMEMBERED_JOBS = 20;
+
+    private final ExecutorService refreshExecutor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "cdd-cache-refresh");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final AtomicLong jobIdSequence = new AtomicLong();
+    private final AtomicBoolean startupValidated = new AtomicBoolean();
+    // guarded by this
+    private CacheRefreshJob inFlightJob;
+    private CacheRefreshJob latestJob;
+    private final Map<String, CacheRefreshJob> recentJobs = new LinkedHashMap<String, CacheRefreshJob>() {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, CacheRefreshJob> eldest) {
+            return size() > MAXIMUM_REMEMBERED_JOBS;
+        }
+    };
+
+    /**
+    * The embedded server only starts accepting requests once the context refresh has finished, so a refresh
+    * waited for here has published its snapshot before the first request arrives.
+    */
+    @EventListener(ContextRefreshedEvent.class)
+    public void onContextRefreshed() {
+        if (startupValidated.compareAndSet(false, true)) {
+            validateCacheOnStartup();
+        }
+    }
+
+    /**
+    * The snapshot published from the snapshot file may be days old, so always refresh on startup, in the background
+    * while that snapshot is served. Without a snapshot there is nothing to serve, so wait for the first refresh.
+    */
+    public void validateCacheOnStartup() {
+        boolean snapshotPublished = clinicalAttributesCache.getSnapshot() != null;
+        CacheRefreshJob job = submitRefresh("startup", true, clinicalAttributesCache::probeGraphFingerprint);
+        if (snapshotPublished) {
+            return;
+        }
+        logger.info("validateCacheOnStartup(): no snapshot published yet, waiting for refresh job " + job.getJobId());
+        try {
+            job.awaitFinished();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @Scheduled(cron=ClinicalAttributeMetadataCache.CACHE_VALIDATION_CRON)
+    public void validateCacheOnSchedule() {
+        validateAndResetCache("scheduled");
+    }
+
+    /**
+    * Refreshes if there is no snapshot yet, the repository graph fingerprint changed since the last successful refresh,
+    * or the cache is stale. While the fingerprint is unchanged the expensive queries are skipped, but the date of the
+    * last refresh is left alone, so a stale cache is still refreshed in case the fingerprint missed a change.
+    * Without a fingerprint (the repository does not provide one or the probe failed) only stale caches are refreshed.
+    * The fingerprint probed here is handed to the refresh, so the repository is probed once per refresh.
+    */
+    private void validateAndResetCache(String trigger) {
+        if (clinicalAttributesCache.getSnapshot() == null) {
+            submitRefresh(trigger, true, clinicalAttributesCache::probeGraphFingerprint);
+            return;
+        }
+        String graphFingerprint = clinicalAttributesCache.probeGraphFingerprint();
+        if (graphFingerprint == null) {
+            if (clinicalAttributesCache.cacheIsStale()) {
+                submitRefresh(trigger, true, () -> null);
+            }
+        } else if (graphFingerprint.equals(clinicalAttributesCache.getGraphFingerprintOfLastRefresh())) {
+            if (clinicalAttributesCache.cacheIsStale()) {
+                logger.info("validateAndResetCache(): repository graph fingerprint is unchanged but the cache is stale, submitting '" + trigger + "' refresh");
+                submitRefresh(trigger, true, () -> graphFingerprint);
+            } else {
+                logger.info("validateAndResetCache(): repository graph fingerprint is unchanged, skipping '" + trigger + "' refresh");
+            }
+        } else {
+            logger.info("validateAndResetCache(): repository graph fingerprint changed, submitting '" + trigger + "' refresh");
+            submitRefresh(trigger, clinicalAttributesCache.cacheIsStale(), () -> graphFingerprint);
+        }
+    }
+
+    /**
+    * Starts a refresh unless one is already in flight, and returns the handle of the refresh which will serve this request.
+    */
+    public CacheRefreshJob submitRefresh(String trigger) {
+        return submitRefresh(trigger, false, clinicalAttributesCache::probeGraphFingerprint);
+    }
+
+    /**
+    * graphFingerprint is only asked for if the refresh actually runs, on the refresh thread just before the fetches.
+    */
+    private synchronized CacheRefreshJob submitRefresh(String trigger, boolean notifyOnFailure, Supplier<String> graphFingerprint) {
+        if (inFlightJob != null) {
+            logger.info("submitRefresh(): refresh job " + inFlightJob.getJobId() + " is already in flight, collapsing '" + trigger + "' trigger into it");
+            return inFlightJob;
+        }
+        CacheRefreshJob job = new CacheRefreshJob(String.valueOf(jobIdSequence.incrementAndGet()), trigger);
+        inFlightJob = job;
+        latestJob = job;
+        recentJobs.put(job.getJobId(), job);
+        logger.info("submitRefresh(): submitting refresh job " + job.getJobId() + " triggered by '" + trigger + "'");
+        refreshExecutor.execute(() -> runRefresh(job, notifyOnFailure, graphFingerprint));
+        return job;
+    }
+
+    private void runRefresh(CacheRefreshJob job, boolean notifyOnFailure, Supplier<String> graphFingerprint) {
+        job.markRunning();
+        try {
+            clinicalAttributesCache.resetCache(graphFingerprint.get());
+            job.markSucceeded("Success!");
+        } catch (FailedCacheRefreshException e) {
+            job.markFailed(e.getMessage());
+            if (notifyOnFailure) {
+                sendStaleCacheSlackNotification();
+            }
+        } catch (RuntimeException e) {
+            logger.error("runRefresh(): refresh job " + job.getJobId() + " failed unexpectedly", e);
+            job.markFailed(e.toString());
+            if (notifyOnFailure) {
+                sendStaleCacheSlackNotification();
+            }
+        } finally {
+            synchronized (this) {
+                inFlightJob = null;
+            }
+            logger.info("runRefresh(): refresh job " + job.getJobId() + " finished with status " + job.getStatus() + " after " + job.getDurationMs() + " ms");
+        }
+    }
+
+    /**
+    * Returns the job with the given id, or the most recently submitted job if jobId is null.
+    * Returns null if no such job is known.
+    */
+    public synchronized CacheRefreshJob getJob(String jobId) {
+        if (jobId == null) {
+            return latestJob;
+        }
+        return recentJobs.get(jobId);
+    }
+
+    private void sendStaleCacheSlackNotification() {
+        String payload = "payload={\"channel\": \"#msk-pipeline-logs\", \"username\": \"cbioportal_importer\", \"text\": \"*URGENT: CDD Error* - an attempt to refresh an outdated or null cache failed.\", \"icon_emoji\": \":rotating_light:\"}";
+        StringEntity entity = new StringEntity(payload, ContentType.APPLICATION_FORM_URLENCODED);
+        HttpClient httpClient = HttpClientBuilder.create().build();
+        HttpPost request = new HttpPost(slackURL);
+        request.setEntity(entity);
+        HttpResponse response = null;
+        try {
+            response = httpClient.execute(request);
+        } catch (Exception e) {
+            logger.error("failed to send slack notification -- cache is outdated and failed to refresh");
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        refreshExecutor.shutdownNow();
+    }
+
+}
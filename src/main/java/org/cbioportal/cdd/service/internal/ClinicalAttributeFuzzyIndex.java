@@ -0,0 +1,131 @@
+/*
+ * Copyright (c) 2026 Memorial Sloan-Kettering Cancer Center.
+ *
+ * This library is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY, WITHOUT EVEN THE IMPLIED WARRANTY OF MERCHANTABILITY OR FITNESS
+ * FOR A PARTICULAR PURPOSE. The software and documentation provided hereunder
+ * is on an "as is" basis, and Memorial Sloan-Kettering Cancer Center has no
+ * obligations to provide maintenance, support, updates, enhancements or
+ * modifications. In no event shall Memorial Sloan-Kettering Cancer Center be
+ * liable to any party for direct, indirect, special, incidental or
+ * consequential damages, including lost profits, arising out of the use of this
+ * software and its documentation, even if Memorial Sloan-Kettering Cancer
+ * Center has been advised of the possibility of such damage.
+ */
+
+package org.cbioportal.cdd.service.internal;
+
+import java.util.*;
+import org.cbioportal.cdd.model.ClinicalAttributeMetadata;
+
+/**
+ * BK-tree over the normalized column headers and display names of a fixed list of attributes, used for
+ * typo tolerant lookups. Keys are upper cased with whitespace replaced by '_', so "Diagnosis Age" and
+ * "DIAGNOSIS_AGE" are the same key. A query visits only the subtrees which can hold keys within the
+ * requested edit distance (by the triangle inequality) instead of comparing against every key.
+ */
+public final class ClinicalAttributeFuzzyIndex {
+
+    private final Node root;
+
+    public ClinicalAttributeFuzzyIndex(List<ClinicalAttributeMetadata> attributes) {
+        // keys in first seen order so the tree shape does not depend on hashing
+        LinkedHashMap<String, List<Integer>> keyOrdinals = new LinkedHashMap<String, List<Integer>>();
+        for (int ordinal = 0; ordinal < attributes.size(); ordinal++) {
+            ClinicalAttributeMetadata clinicalAttributeMetadata = attributes.get(ordinal);
+            for (String field : new String[] {clinicalAttributeMetadata.getColumnHeader(), clinicalAttributeMetadata.getDisplayName()}) {
+                if (field == null) {
+                    continue;
+                }
+                List<Integer> ordinals = keyOrdinals.computeIfAbsent(normalize(field), k -> new ArrayList<Integer>(1));
+                if (ordinals.isEmpty() || ordinals.get(ordinals.size() - 1) != ordinal) {
+                    ordinals.add(ordinal);
+                }
+            }
+        }
+        Node latestRoot = null;
+        for (Map.Entry<String, List<Integer>> entry : keyOrdinals.entrySet()) {
+            int[] ordinals = new int[entry.getValue().size()];
+            for (int i = 0; i < ordinals.length; i++) {
+                ordinals[i] = entry.getValue().get(i);
+            }
+            Node node = new Node(entry.getKey(), ordinals);
+            if (latestRoot == null) {
+                latestRoot = node;
+            } else {
+                latestRoot.add(node);
+            }
+        }
+        this.root = latestRoot;
+    }
+
+    /**
+    * Returns a map of ordinal to the smallest edit distance between searchTerm and a normalized key of that attribute,
+    * for every attribute with a key within maximumEditDistance of the normalized search term.
+    */
+    public Map<Integer, Integer> findOrdinalsWithin(String searchTerm, int maximumEditDistance) {
+        HashMap<Integer, Integer> ordinalDistances = new HashMap<Integer, Integer>();
+        if (root == null) {
+            return ordinalDistances;
+        }
+        String normalizedSearchTerm = normalize(searchTerm);
+        ArrayDeque<Node> nodesToVisit = new ArrayDeque<Node>();
+        nodesToVisit.push(root);
+        while (!nodesToVisit.isEmpty()) {
+            Node node = nodesToVisit.pop();
+            int distance = LevenshteinDistanceScorer.distance(normalizedSearchTerm, node.key, LevenshteinDistanceScorer.EXCEEDS_MAXIMUM);
+            if (distance <= maximumEditDistance) {
+                for (int ordinal : node.ordinals) {
+                    ordinalDistances.merge(ordinal, distance, Math::min);
+                }
+            }
+            if (node.children == null) {
+                continue;
+            }
+            // keys within maximumEditDistance of the term are within distance +/- maximumEditDistance of this key
+            for (int childDistance = Math.max(1, distance - maximumEditDistance); childDistance <= distance + maximumEditDistance; childDistance++) {
+                Node child = node.children.get(childDistance);
+                if (child != null) {
+                    nodesToVisit.push(child);
+                }
+            }
+        }
+        return ordinalDistances;
+    }
+
+    /**
+    * Upper cases value and replaces each run of whitespace with a single '_', matching the column header convention.
+    */
+    public static String normalize(String value) {
+        return value.trim().replaceAll("\\s+", "_").toUpperCase();
+    }
+
+    private static final class Node {
+        private final String key;
+        private final int[] ordinals;
+        // child nodes by their edit distance to this key
+        private Map<Integer, Node> children;
+
+        private Node(String key, int[] ordinals) {
+            this.key = key;
+            this.ordinals = ordinals;
+        }
+
+        private void add(Node node) {
+            Node parent = this;
+            while (true) {
+                int distance = LevenshteinDistanceScorer.distance(node.key, parent.key, LevenshteinDistanceScorer.EXCEEDS_MAXIMUM);
+                if (parent.children == null) {
+                    parent.children = new HashMap<Integer, Node>(4);
+                }
+                Node child = parent.children.get(distance);
+                if (child == null) {
+                    parent.children.put(distance, node);
+                    return;
+                }
+                parent = child;
+            }
+        }
+    }
+
+}
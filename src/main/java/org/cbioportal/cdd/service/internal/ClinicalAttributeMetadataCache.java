@@ -18,50 +18,126 @@ package org.cbioportal.cdd.service.internal;
 import com.google.common.base.Strings;
 import java.time.ZonedDateTime;
 import java.util.ArrayList;
-import java.util.Collections;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-import org.apache.http.*;
-import org.apache.http.client.*;
-import org.apache.http.client.methods.*;
-import org.apache.http.entity.*;
-import org.apache.http.impl.client.*;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
 import org.cbioportal.cdd.model.ClinicalAttributeMetadata;
+import org.cbioportal.cdd.repository.topbraid.KnowledgeSystemsRepository;
 import org.cbioportal.cdd.service.exception.FailedCacheRefreshException;
+import org.cbioportal.cdd.util.ClinicalAttributeMetadataCodec;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.boot.context.event.ApplicationReadyEvent;
-import org.springframework.context.event.EventListener;
-import org.springframework.scheduling.annotation.EnableScheduling;
-import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Component;
 
 /**
  * @author Robert Sheridan, Avery Wang, Manda Wilson
  */
 @Component
-@EnableScheduling
 public class ClinicalAttributeMetadataCache {
 
-    @Value("${slack.url}")
-    private String slackURL;
-
-    // if clinicalAttributeCache is null it means we could not populate it, there was an error
-    private static HashMap<String, ClinicalAttributeMetadata> clinicalAttributeCache;
-    // if overridesCache is null it means we could not populate it, there was an error
-    private static HashMap<String, Map<String, ClinicalAttributeMetadata>> overridesCache;
+    // if currentSnapshot holds null it means we could not populate it, there was an error
+    // defaults and overrides are published together through this single reference
+    private static final AtomicReference<DictionarySnapshot> currentSnapshot = new AtomicReference<DictionarySnapshot>();
+    private static final AtomicLong snapshotVersionSequence = new AtomicLong();
     private static Date dateOfLastCacheRefresh = new Date();
+    // fingerprint of the repository graph as of the last successful refresh, null if unknown
+    private static volatile String graphFingerprintOfLastRefresh;
+    // content hash of the dictionary in the snapshot file, null if unknown
+    private static volatile String contentHashOfSnapshotFile;
 
     public static final Integer MAXIMUM_CACHE_AGE_IN_DAYS = 3;
+    // CacheRefreshCoordinator checks the cache every 10 minutes
+    public static final String CACHE_VALIDATION_CRON = "0 */10 * * * *";
     private static final Logger logger = LoggerFactory.getLogger(ClinicalAttributeMetadataCache.class);
 
     @Autowired
     private ClinicalAttributeMetadataPersistentCache clinicalAttributeMetadataPersistentCache;
 
+    @Autowired
+    private DictionarySnapshotFile dictionarySnapshotFile;
+
+    @Autowired
+    private DictionaryChangeLog dictionaryChangeLog;
+
+    @Autowired
+    private KnowledgeSystemsRepository clinicalAttributeRepository;
+
+    @Value("${cdd.refresh.clinicalAttributeMetadataTimeoutSeconds:120}")
+    private long clinicalAttributeMetadataFetchTimeoutSeconds;
+
+    @Value("${cdd.refresh.overridesTimeoutSeconds:300}")
+    private long overridesFetchTimeoutSeconds;
+
+    // one thread per repository query; a query which outlives its timeout keeps its thread until it returns,
+    // so nothing is queued: a fetch is handed straight to an idle thread, and a refresh started while the threads are
+    // still stuck is rejected (and falls back to the persistent cache) instead of waiting out its timeouts behind them
+    private static final int REPOSITORY_FETCH_THREADS = 2;
+    private final ThreadPoolExecutor repositoryFetchExecutor = createRepositoryFetchExecutor();
+
+    private static ThreadPoolExecutor createRepositoryFetchExecutor() {
+        AtomicInteger threadCount = new AtomicInteger();
+        return new ThreadPoolExecutor(REPOSITORY_FETCH_THREADS, REPOSITORY_FETCH_THREADS, 0L, TimeUnit.MILLISECONDS,
+            new SynchronousQueue<Runnable>(), runnable -> {
+                Thread thread = new Thread(runnable, "cdd-repository-fetch-" + threadCount.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            });
+    }
+
+    /**
+    * Publishes the dictionary from the snapshot file, if there is one, so requests can be served as soon as the
+    * application is up. The startup refresh then replaces it with the current dictionary in the background.
+    * Without a snapshot file, startup waits for that refresh instead.
+    */
+    @PostConstruct
+    public void loadSnapshotFile() {
+        if (!dictionarySnapshotFile.isEnabled()) {
+            return;
+        }
+        long startTime = System.currentTimeMillis();
+        ClinicalAttributeMetadataCodec.Dictionary dictionary;
+        try {
+            dictionary = dictionarySnapshotFile.read();
+        } catch (Exception e) {
+            logger.error("loadSnapshotFile(): unable to read snapshot file, waiting for the startup refresh: " + e.getMessage());
+            return;
+        }
+        if (dictionary == null) {
+            logger.info("loadSnapshotFile(): no snapshot file yet, waiting for the startup refresh");
+            return;
+        }
+        DictionarySnapshot snapshot = buildSnapshot(dictionary.getDateOfRefresh(), dictionary.getClinicalAttributeMetadata(), dictionary.getOverrides());
+        // only publish if a refresh has not already beaten us to it
+        if (currentSnapshot.compareAndSet(null, snapshot)) {
+            // no refresh has published (and so written the file) yet, so the file still holds what was read
+            contentHashOfSnapshotFile = snapshot.getContentHash();
+            dateOfLastCacheRefresh = dictionary.getDateOfRefresh();
+            logger.info("loadSnapshotFile(): published snapshot version " + snapshot.getVersionId() + " from the dictionary refreshed on " +
+                dateOfLastCacheRefresh + " in " + (System.currentTimeMillis() - startTime) + " ms");
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        repositoryFetchExecutor.shutdownNow();
+    }
+
     public Date getDateOfLastCacheRefresh() {
         return dateOfLastCacheRefresh;
     }
@@ -70,51 +146,55 @@ public class ClinicalAttributeMetadataCache {
         this.dateOfLastCacheRefresh = date;
     }
 
+    /**
+    * Returns the most recently published snapshot, or null if the cache has never been populated.
+    * Callers should get the snapshot once and use it for the lifetime of their request.
+    */
+    public DictionarySnapshot getSnapshot() {
+        return currentSnapshot.get();
+    }
+
     public Map<String, ClinicalAttributeMetadata> getClinicalAttributeMetadata() {
-        if (clinicalAttributeCache != null) {
-            return Collections.unmodifiableMap(clinicalAttributeCache);
-        }
-        return null;
+        DictionarySnapshot snapshot = currentSnapshot.get();
+        return snapshot != null ? snapshot.getDefaults() : null;
     }
 
     public Map<String, Map<String, ClinicalAttributeMetadata>> getClinicalAttributeMetadataOverrides() {
-        if (overridesCache != null) {
-            return Collections.unmodifiableMap(overridesCache);
-        }
-        return null;
+        DictionarySnapshot snapshot = currentSnapshot.get();
+        return snapshot != null ? snapshot.getOverrides() : null;
     }
 
-    private void sendStaleCacheSlackNotification() {
-        String payload = "payload={\"channel\": \"#msk-pipeline-logs\", \"username\": \"cbioportal_importer\", \"text\": \"*URGENT: CDD Error* - an attempt to refresh an outdated or null cache failed.\", \"icon_emoji\": \":rotating_light:\"}";
-        StringEntity entity = new StringEntity(payload, ContentType.APPLICATION_FORM_URLENCODED);
-        HttpClient httpClient = HttpClientBuilder.create().build();
-        HttpPost request = new HttpPost(slackURL);
-        request.setEntity(entity);
-        HttpResponse response = null;
-        try {
-            response = httpClient.execute(request);
-        } catch (Exception e) {
-            logger.error("failed to send slack notification -- cache is outdated and failed to refresh");
-        }
+    public String getGraphFingerprintOfLastRefresh() {
+        return graphFingerprintOfLastRefresh;
     }
 
-    @EventListener(ApplicationReadyEvent.class)
-    @Scheduled(cron="0 */10 * * * *") // call every 10 minutes
-    private void validateAndResetCache() {
-        if (cacheIsStale() || clinicalAttributeCache == null || overridesCache == null) {
-            try {
-                resetCache();
-            } catch (FailedCacheRefreshException e) {
-                sendStaleCacheSlackNotification();
-            }
+    /**
+    * Probes the repository for the current graph fingerprint. Returns null if the repository does not provide one
+    * or the probe failed, in which case callers cannot tell whether the repository has changed.
+    */
+    public String probeGraphFingerprint() {
+        try {
+            return clinicalAttributeRepository.getGraphFingerprint();
+        } catch (Exception e) {
+            logger.error("probeGraphFingerprint(): unable to fetch graph fingerprint from repository: " + e.getMessage());
+            return null;
         }
     }
 
     /**
-    * This method does not need to be called, it will automatically be called by validateAndResetCache().
+    * This method does not need to be called directly, refreshes are run in the background by CacheRefreshCoordinator.
     * It is a public method so that it can be easily tested.
     */
     public void resetCache() {
+        // probed before the fetches, so a change made while they run shows up as a different fingerprint next time
+        resetCache(probeGraphFingerprint());
+    }
+
+    /**
+    * Refreshes the cache, recording graphFingerprint as the fingerprint of the refreshed data if the refresh succeeds.
+    * The fingerprint must have been probed before this call, so that a change made during the refresh is seen next time.
+    */
+    public void resetCache(String graphFingerprint) {
         logger.info("resetCache(): refilling clinical attribute cache");
 
         Date dateOfCurrentCacheRefresh = new Date();
@@ -122,85 +202,168 @@ public class ClinicalAttributeMetadataCache {
         // latestOverrides is a map of study-id to list of overridden ClinicalAttributeMetadata objects
         Map<String, ArrayList<ClinicalAttributeMetadata>> latestOverrides = null;
 
-        // attempt to refresh ehcache stores seperately and store success status
-        boolean failedClinicalAttributeMetadataCacheRefresh = false;
-        boolean failedOverridesCacheRefresh = false;
-        try {
-            clinicalAttributeMetadataPersistentCache.updateClinicalAttributeMetadataInPersistentCache();
-        } catch (RuntimeException e) {
-            logger.error("resetCache(): failed to pull clinical attributes from repository. Error message returned: " + e.getMessage());
-            failedClinicalAttributeMetadataCacheRefresh = true;
-        }
-
-        try {
-            clinicalAttributeMetadataPersistentCache.updateClinicalAttributeMetadataOverridesInPersistentCache();
-        } catch (RuntimeException e) {
-            logger.error("resetCache(): failed to pull overrides from repository. Error message returned: " + e.getMessage());
-            failedOverridesCacheRefresh = true;
-        }
+        // attempt to refresh ehcache stores concurrently (the two repository queries are independent) and store success status
+        Future<?> clinicalAttributeMetadataFetch = submitRepositoryFetch(clinicalAttributeMetadataPersistentCache::updateClinicalAttributeMetadataInPersistentCache);
+        Future<?> overridesFetch = submitRepositoryFetch(clinicalAttributeMetadataPersistentCache::updateClinicalAttributeMetadataOverridesInPersistentCache);
+        boolean failedClinicalAttributeMetadataCacheRefresh = !awaitRepositoryFetch(clinicalAttributeMetadataFetch, clinicalAttributeMetadataFetchTimeoutSeconds, "clinical attributes");
+        boolean failedOverridesCacheRefresh = !awaitRepositoryFetch(overridesFetch, overridesFetchTimeoutSeconds, "overrides");
 
         // regardless of whether ehcache was updated with new data - use that data to populate modeled object caches
         // ensures app starts up (between tomcat restarts) if TopBraid is down
+        // each store falls back to its backup independently of the other
         logger.info("Loading modeled object cache from EHCache");
         try {
             // this will throw an exception if we cannot connect to TopBraid AND cache is corrupt
             latestClinicalAttributeMetadata = clinicalAttributeMetadataPersistentCache.getClinicalAttributeMetadataFromPersistentCache();
+        } catch (Exception e) {
+            logger.error("Unable to load clinical attributes from default EHCache... attempting to read from backup");
+            latestClinicalAttributeMetadata = loadFromBackup(clinicalAttributeMetadataPersistentCache::getClinicalAttributeMetadataFromPersistentCacheBackup, "clinical attributes");
+        }
+        try {
             latestOverrides = clinicalAttributeMetadataPersistentCache.getClinicalAttributeMetadataOverridesFromPersistentCache();
         } catch (Exception e) {
-            try {
-                // this will throw an exception if backup is unavailable
-                logger.error("Unable to load modeled object cache from default EHCache... attempting to read from backup");
-                latestClinicalAttributeMetadata = clinicalAttributeMetadataPersistentCache.getClinicalAttributeMetadataFromPersistentCacheBackup();
-                latestOverrides = clinicalAttributeMetadataPersistentCache.getClinicalAttributeMetadataOverridesFromPersistentCacheBackup();
-                if (latestClinicalAttributeMetadata == null || latestOverrides == null) {
-                    throw new FailedCacheRefreshException("No data found in specified backup cache location...", new Exception());
-                }
-            } catch (Exception e2) {
-                logger.error("Unable to load modeled object cache from backup EHCache...");
-                throw new FailedCacheRefreshException("Unable to load data from all backup caches...", new Exception());
-            }
+            logger.error("Unable to load overrides from default EHCache... attempting to read from backup");
+            latestOverrides = loadFromBackup(clinicalAttributeMetadataPersistentCache::getClinicalAttributeMetadataOverridesFromPersistentCacheBackup, "overrides");
         }
 
-        // backup cache at this point (maybe backup after each successful update above?)
-        if (!failedClinicalAttributeMetadataCacheRefresh && !failedOverridesCacheRefresh) {
-            logger.info("resetCache(): cache update succeeded, backing up cache...");
-            try {
-                clinicalAttributeMetadataPersistentCache.backupClinicalAttributeMetadataPersistentCache(latestClinicalAttributeMetadata);
-                clinicalAttributeMetadataPersistentCache.backupClinicalAttributeMetadataOverridesPersistentCache(latestOverrides);
-                logger.info("resetCache(): succesfully backed up cache");
-            } catch (Exception e) {
-                logger.error("resetCache(): failed to backup cache: " + e.getMessage());
+        DictionarySnapshot latestSnapshot = buildSnapshot(dateOfCurrentCacheRefresh, latestClinicalAttributeMetadata, latestOverrides);
+        DictionarySnapshot previousSnapshot = currentSnapshot.getAndSet(latestSnapshot);
+        logger.info("resetCache(): published snapshot version " + latestSnapshot.getVersionId() + " with " + latestClinicalAttributeMetadata.size() +
+            " clinical attributes and " + latestOverrides.size() + " overrides");
+        if (previousSnapshot != null) {
+            dictionaryChangeLog.record(previousSnapshot, latestSnapshot);
+        }
+
+        if (failedClinicalAttributeMetadataCacheRefresh || failedOverridesCacheRefresh) {
+            logger.info("Unable to update cache with latest data from TopBraid... falling back on EHCache store.");
+            throw new FailedCacheRefreshException("Failed to refresh cache", new Exception());
+        } else {
+            dateOfLastCacheRefresh = dateOfCurrentCacheRefresh;
+            graphFingerprintOfLastRefresh = graphFingerprint;
+            logger.info("resetCache(): cache last refreshed on: " + dateOfLastCacheRefresh.toString());
+            // the backup is written in the background once the snapshot owns the lists, which are not modified after this point
+            logger.info("resetCache(): cache update succeeded, queueing backup of the cache...");
+            clinicalAttributeMetadataPersistentCache.scheduleBackup(latestSnapshot.getContentHash(), latestClinicalAttributeMetadata, latestOverrides);
+            if (dictionarySnapshotFile.isEnabled()) {
+                writeSnapshotFile(latestSnapshot);
             }
         }
+    }
 
-        HashMap<String, ClinicalAttributeMetadata> latestClinicalAttributeMetadataCache = new HashMap<String, ClinicalAttributeMetadata>();
-        for (ClinicalAttributeMetadata clinicalAttributeMetadata : latestClinicalAttributeMetadata) {
-            latestClinicalAttributeMetadataCache.put(clinicalAttributeMetadata.getColumnHeader(), clinicalAttributeMetadata);
+    private DictionarySnapshot buildSnapshot(Date dateOfRefresh, List<ClinicalAttributeMetadata> latestClinicalAttributeMetadata,
+            Map<String, ArrayList<ClinicalAttributeMetadata>> latestOverrides) {
+        // hash what was fetched first, so the maps of anything unchanged since the current snapshot are taken from it
+        // instead of being rebuilt (and its overrides filled in with default values again)
+        DictionarySnapshot previousSnapshot = currentSnapshot.get();
+        String defaultsHash = DictionarySnapshot.hashClinicalAttributeMetadata(latestClinicalAttributeMetadata, null);
+        boolean defaultsUnchanged = previousSnapshot != null && previousSnapshot.getDefaultsHash().equals(defaultsHash);
+        Map<String, ClinicalAttributeMetadata> latestClinicalAttributeMetadataCache;
+        if (defaultsUnchanged) {
+            latestClinicalAttributeMetadataCache = previousSnapshot.getDefaults();
+        } else {
+            // the maps below are handed to the snapshot as is, size them up front so they are built without rehashing
+            HashMap<String, ClinicalAttributeMetadata> clinicalAttributeMetadataMapping = new HashMap<String, ClinicalAttributeMetadata>(hashMapCapacity(latestClinicalAttributeMetadata.size()));
+            for (ClinicalAttributeMetadata clinicalAttributeMetadata : latestClinicalAttributeMetadata) {
+                clinicalAttributeMetadataMapping.put(clinicalAttributeMetadata.getColumnHeader(), clinicalAttributeMetadata);
+            }
+            latestClinicalAttributeMetadataCache = clinicalAttributeMetadataMapping;
         }
 
         // latestOverridesCache is a map of study-id to map of clinical attribute name to overridden ClinicalAttributeMetadata object
-        HashMap<String, Map<String,ClinicalAttributeMetadata>> latestOverridesCache = new HashMap<String, Map<String, ClinicalAttributeMetadata>>();
+        HashMap<String, Map<String,ClinicalAttributeMetadata>> latestOverridesCache = new HashMap<String, Map<String, ClinicalAttributeMetadata>>(hashMapCapacity(latestOverrides.size()));
+        HashMap<String, String> latestStudyOverridesHashes = new HashMap<String, String>(hashMapCapacity(latestOverrides.size()));
+        int rebuiltStudies = 0;
         for (Map.Entry<String, ArrayList<ClinicalAttributeMetadata>> entry : latestOverrides.entrySet()) {
-            HashMap<String, ClinicalAttributeMetadata> clinicalAttributesMetadataMapping = new HashMap<String, ClinicalAttributeMetadata>();
+            String studyOverridesHash = DictionarySnapshot.hashClinicalAttributeMetadata(entry.getValue(), latestClinicalAttributeMetadataCache);
+            latestStudyOverridesHashes.put(entry.getKey(), studyOverridesHash);
+            if (defaultsUnchanged && studyOverridesHash.equals(previousSnapshot.getStudyOverridesHash(entry.getKey()))) {
+                latestOverridesCache.put(entry.getKey(), previousSnapshot.getOverrides().get(entry.getKey()));
+                continue;
+            }
+            HashMap<String, ClinicalAttributeMetadata> clinicalAttributesMetadataMapping = new HashMap<String, ClinicalAttributeMetadata>(hashMapCapacity(entry.getValue().size()));
             for (ClinicalAttributeMetadata clinicalAttributeMetadata : entry.getValue()) {
                 fillOverrideAttributeWithDefaultValues(clinicalAttributeMetadata, latestClinicalAttributeMetadataCache.get(clinicalAttributeMetadata.getColumnHeader()));
                 clinicalAttributesMetadataMapping.put(clinicalAttributeMetadata.getColumnHeader(), clinicalAttributeMetadata);
             }
             latestOverridesCache.put(entry.getKey(), clinicalAttributesMetadataMapping);
+            rebuiltStudies++;
         }
+        logger.info("buildSnapshot(): " + (defaultsUnchanged ? "reused" : "rebuilt") + " defaults, rebuilt overrides of " + rebuiltStudies + " of " +
+            latestOverrides.size() + " studies");
 
-        clinicalAttributeCache = latestClinicalAttributeMetadataCache;
-        logger.info("resetCache(): refilled cache with " + latestClinicalAttributeMetadata.size() + " clinical attributes");
-        overridesCache = latestOverridesCache;
-        logger.info("resetCache(): refilled overrides cache with " + latestOverrides.size() + " overrides");
+        // unchanged studies and indexes are carried over from the current snapshot instead of being rebuilt
+        return new DictionarySnapshot(snapshotVersionSequence.incrementAndGet(), dateOfRefresh, defaultsHash,
+            latestClinicalAttributeMetadataCache, latestStudyOverridesHashes, latestOverridesCache, previousSnapshot);
+    }
 
-        if (failedClinicalAttributeMetadataCacheRefresh || failedOverridesCacheRefresh) {
-            logger.info("Unable to update cache with latest data from TopBraid... falling back on EHCache store.");
-            throw new FailedCacheRefreshException("Failed to refresh cache", new Exception());
-        } else {
-            dateOfLastCacheRefresh = dateOfCurrentCacheRefresh;
-            logger.info("resetCache(): cache last refreshed on: " + dateOfLastCacheRefresh.toString());
+    /**
+    * Writes snapshot to the snapshot file unless the file already holds the same content.
+    * Only called from the refresh thread.
+    */
+    private void writeSnapshotFile(DictionarySnapshot snapshot) {
+        if (snapshot.getContentHash().equals(contentHashOfSnapshotFile)) {
+            logger.info("resetCache(): snapshot file already holds content " + snapshot.getContentHash() + ", skipping write");
+            return;
         }
+        try {
+            dictionarySnapshotFile.write(snapshot);
+            contentHashOfSnapshotFile = snapshot.getContentHash();
+        } catch (Exception e) {
+            logger.error("resetCache(): failed to write snapshot file: " + e.getMessage());
+        }
+    }
+
+    private Future<?> submitRepositoryFetch(Runnable repositoryFetch) {
+        try {
+            return repositoryFetchExecutor.submit(repositoryFetch);
+        } catch (RejectedExecutionException e) {
+            logger.error("resetCache(): repository fetch threads are still busy with a previous refresh");
+            return null;
+        }
+    }
+
+    /**
+    * Waits for one repository fetch and returns true if it completed successfully within timeoutSeconds.
+    */
+    private boolean awaitRepositoryFetch(Future<?> repositoryFetch, long timeoutSeconds, String description) {
+        if (repositoryFetch == null) {
+            return false;
+        }
+        try {
+            repositoryFetch.get(timeoutSeconds, TimeUnit.SECONDS);
+            return true;
+        } catch (ExecutionException e) {
+            logger.error("resetCache(): failed to pull " + description + " from repository. Error message returned: " + e.getCause().getMessage());
+        } catch (TimeoutException e) {
+            logger.error("resetCache(): timed out after " + timeoutSeconds + " seconds pulling " + description + " from repository");
+            repositoryFetch.cancel(true);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            repositoryFetch.cancel(true);
+            logger.error("resetCache(): interrupted while pulling " + description + " from repository");
+        }
+        return false;
+    }
+
+    private <T> T loadFromBackup(Callable<T> backupLoader, String description) {
+        T backupValue;
+        try {
+            // this will throw an exception if backup is unavailable
+            backupValue = backupLoader.call();
+        } catch (Exception e) {
+            logger.error("Unable to load " + description + " from backup EHCache...");
+            throw new FailedCacheRefreshException("Unable to load data from all backup caches...", new Exception());
+        }
+        if (backupValue == null) {
+            logger.error("Unable to load " + description + " from backup EHCache...");
+            throw new FailedCacheRefreshException("No data found in specified backup cache location...", new Exception());
+        }
+        return backupValue;
+    }
+
+    private static int hashMapCapacity(int expectedSize) {
+        // default load factor is 0.75
+        return (int) (expectedSize / 0.75f) + 1;
     }
 
     public boolean cacheIsStale() {
@@ -17,10 +17,16 @@ package org.cbioportal.cdd.service.internal;
 
 import java.util.ArrayList;
 import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import javax.annotation.PreDestroy;
+import javax.cache.Cache;
 import javax.cache.CacheManager;
 import javax.cache.spi.CachingProvider;
 import org.cbioportal.cdd.model.ClinicalAttributeMetadata;
 import org.cbioportal.cdd.repository.topbraid.KnowledgeSystemsRepository;
+import org.ehcache.spi.serialization.SerializerException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -47,6 +53,23 @@ public class ClinicalAttributeMetadataPersistentCache {
     public static final String CLINICAL_ATTRIBUTES_METADATA_CACHE_KEY = "CLINICAL_ATTRIBUTES_METADATA_CACHE_KEY";
     public static final String OVERRIDES_CACHE_KEY = "OVERRIDES_CACHE_KEY";
 
+    private static final String BACKUP_EHCACHE_XML = "ehcache_backup.xml";
+    private static final long BACKUP_SHUTDOWN_TIMEOUT_SECONDS = 30;
+
+    // Ehcache only leaves a disk store readable after a clean close, so the backup store is opened for each read or
+    // write and closed right after it; a killed process then loses at most the write in progress. Guarded by this.
+    private CacheManager backupCacheManager;
+    // content hash of the snapshot last written to the backup store, only touched by the backup thread
+    private String lastBackedUpContentHash;
+    // backups are written by a single background thread; the queue holds at most one pending backup,
+    // so a newer backup replaces one which has not started yet
+    private final ThreadPoolExecutor backupExecutor = new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS,
+        new ArrayBlockingQueue<Runnable>(1), runnable -> {
+            Thread thread = new Thread(runnable, "cdd-cache-backup");
+            thread.setDaemon(true);
+            return thread;
+        }, new ThreadPoolExecutor.DiscardOldestPolicy());
+
     public CacheManager getCacheManager(String ehcacheXMLFilename) throws Exception {
         CacheManager cacheManager = cachingProvider.getCacheManager(getClass().getClassLoader().getResource(ehcacheXMLFilename).toURI(), getClass().getClassLoader());
         return cacheManager;
@@ -66,22 +89,34 @@ public class ClinicalAttributeMetadataPersistentCache {
     // retrieve cache TopBraid responses from backup EHCache location (and re-populate default EHCache locatin)
     @Cacheable(value = "clinicalAttributeMetadataEHCache", key = "#root.target.CLINICAL_ATTRIBUTES_METADATA_CACHE_KEY", unless = "#result==null")
     public ArrayList<ClinicalAttributeMetadata> getClinicalAttributeMetadataFromPersistentCacheBackup() throws Exception {
-        CacheManager backupCacheManager = getCacheManager("ehcache_backup.xml");
         @SuppressWarnings("unchecked")
-        ArrayList<ClinicalAttributeMetadata> clinicalAttributeMetadata = (ArrayList<ClinicalAttributeMetadata>)backupCacheManager.getCache(CLINICAL_ATTRIBUTE_METADATA_CACHE).get(CLINICAL_ATTRIBUTES_METADATA_CACHE_KEY);
-        backupCacheManager.close();
+        ArrayList<ClinicalAttributeMetadata> clinicalAttributeMetadata = (ArrayList<ClinicalAttributeMetadata>)getFromBackup(CLINICAL_ATTRIBUTE_METADATA_CACHE, CLINICAL_ATTRIBUTES_METADATA_CACHE_KEY);
         return clinicalAttributeMetadata;
     }
 
     @Cacheable(value = "clinicalAttributeMetadataOverridesEHCache", key = "#root.target.OVERRIDES_CACHE_KEY", unless = "#result==null")
     public Map<String, ArrayList<ClinicalAttributeMetadata>> getClinicalAttributeMetadataOverridesFromPersistentCacheBackup() throws Exception {
-        CacheManager backupCacheManager = getCacheManager("ehcache_backup.xml");
         @SuppressWarnings("unchecked")
-        Map<String, ArrayList<ClinicalAttributeMetadata>> clinicalAttributeMetadataOverrides = (Map<String, ArrayList<ClinicalAttributeMetadata>>)backupCacheManager.getCache(OVERRIDES_CACHE).get(OVERRIDES_CACHE_KEY);
-        backupCacheManager.close();
+        Map<String, ArrayList<ClinicalAttributeMetadata>> clinicalAttributeMetadataOverrides = (Map<String, ArrayList<ClinicalAttributeMetadata>>)getFromBackup(OVERRIDES_CACHE, OVERRIDES_CACHE_KEY);
         return clinicalAttributeMetadataOverrides;
     }
 
+    // an entry which cannot be deserialized is removed and treated as missing, the next backup replaces it
+    private synchronized Object getFromBackup(String cacheName, String key) throws Exception {
+        try {
+            Cache<Object, Object> backupCache = getBackupCacheManager().getCache(cacheName);
+            try {
+                return backupCache.get(key);
+            } catch (SerializerException e) {
+                logger.error("getFromBackup(): discarding unreadable entry '" + key + "' of backup cache " + cacheName + ": " + e.getMessage());
+                backupCache.remove(key);
+                return null;
+            }
+        } finally {
+            closeBackupCacheManager();
+        }
+    }
+
     // update default EHCache location with TopBraid data
     @CachePut(value = "clinicalAttributeMetadataEHCache", key = "#root.target.CLINICAL_ATTRIBUTES_METADATA_CACHE_KEY", unless = "#result==null")
     public ArrayList<ClinicalAttributeMetadata> updateClinicalAttributeMetadataInPersistentCache() {
@@ -95,18 +130,73 @@ public class ClinicalAttributeMetadataPersistentCache {
         return clinicalAttributeRepository.getClinicalAttributeMetadataOverrides();
     }
 
-    // update backup EHCache location with modeled-object cache values
-    public void backupClinicalAttributeMetadataPersistentCache(ArrayList<ClinicalAttributeMetadata> clinicalAttributeMetadata) throws Exception {
-        CacheManager cacheManager = getCacheManager("ehcache_backup.xml");
-        cacheManager.getCache(CLINICAL_ATTRIBUTE_METADATA_CACHE).put(CLINICAL_ATTRIBUTES_METADATA_CACHE_KEY, clinicalAttributeMetadata);
-        cacheManager.close();
+    /**
+    * Queues a write of both backup caches and returns without waiting for it. The write is skipped if contentHash
+    * is the content hash of the snapshot last written to the backup store. The lists and maps must not be modified
+    * after this call.
+    */
+    public void scheduleBackup(String contentHash, ArrayList<ClinicalAttributeMetadata> clinicalAttributeMetadata,
+            Map<String, ArrayList<ClinicalAttributeMetadata>> clinicalAttributeMetadataOverrides) {
+        backupExecutor.execute(() -> writeBackup(contentHash, clinicalAttributeMetadata, clinicalAttributeMetadataOverrides));
+    }
+
+    private void writeBackup(String contentHash, ArrayList<ClinicalAttributeMetadata> clinicalAttributeMetadata,
+            Map<String, ArrayList<ClinicalAttributeMetadata>> clinicalAttributeMetadataOverrides) {
+        if (contentHash.equals(lastBackedUpContentHash)) {
+            logger.info("writeBackup(): backup store already holds content " + contentHash + ", skipping backup");
+            return;
+        }
+        long startTime = System.currentTimeMillis();
+        try {
+            // both caches are written through one open of the backup store, which is closed (and so flushed) before
+            // the backup counts as done
+            synchronized (this) {
+                try {
+                    backupClinicalAttributeMetadataPersistentCache(clinicalAttributeMetadata);
+                    backupClinicalAttributeMetadataOverridesPersistentCache(clinicalAttributeMetadataOverrides);
+                } finally {
+                    closeBackupCacheManager();
+                }
+            }
+            lastBackedUpContentHash = contentHash;
+            logger.info("writeBackup(): succesfully backed up content " + contentHash + " in " + (System.currentTimeMillis() - startTime) + " ms");
+        } catch (Exception e) {
+            logger.error("writeBackup(): failed to backup cache: " + e.getMessage());
+        }
+    }
+
+    // update backup EHCache location with modeled-object cache values, the caller closes the backup store afterwards
+    private void backupClinicalAttributeMetadataPersistentCache(ArrayList<ClinicalAttributeMetadata> clinicalAttributeMetadata) throws Exception {
+        getBackupCacheManager().getCache(CLINICAL_ATTRIBUTE_METADATA_CACHE).put(CLINICAL_ATTRIBUTES_METADATA_CACHE_KEY, clinicalAttributeMetadata);
+    }
+
+    private void backupClinicalAttributeMetadataOverridesPersistentCache(Map<String, ArrayList<ClinicalAttributeMetadata>> clinicalAttributeMetadataOverrides) throws Exception {
+        getBackupCacheManager().getCache(OVERRIDES_CACHE).put(OVERRIDES_CACHE_KEY, clinicalAttributeMetadataOverrides);
     }
 
-    public void backupClinicalAttributeMetadataOverridesPersistentCache(Map<String, ArrayList<ClinicalAttributeMetadata>> clinicalAttributeMetadataOverrides) throws Exception {
-        CacheManager cacheManager = getCacheManager("ehcache_backup.xml");
-        cacheManager.getCache(OVERRIDES_CACHE).put(OVERRIDES_CACHE_KEY, clinicalAttributeMetadataOverrides);
-        cacheManager.close();
+    private synchronized CacheManager getBackupCacheManager() throws Exception {
+        if (backupCacheManager == null || backupCacheManager.isClosed()) {
+            backupCacheManager = getCacheManager(BACKUP_EHCACHE_XML);
+        }
+        return backupCacheManager;
     }
 
+    private synchronized void closeBackupCacheManager() {
+        if (backupCacheManager != null) {
+            backupCacheManager.close();
+            backupCacheManager = null;
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        // let a backup which is already queued finish, it closes the backup store when done
+        backupExecutor.shutdown();
+        if (!backupExecutor.awaitTermination(BACKUP_SHUTDOWN_TIMEOUT_SECONDS, TimeUnit.SECONDS)) {
+            logger.error("shutdown(): backup did not finish within " + BACKUP_SHUTDOWN_TIMEOUT_SECONDS + " seconds");
+            backupExecutor.shutdownNow();
+        }
+        closeBackupCacheManager();
+    }
 
 }
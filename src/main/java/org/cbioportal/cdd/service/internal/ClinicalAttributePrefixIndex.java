@@ -0,0 +1,153 @@
+/*
+ * Copyright (c) 2026 Memorial Sloan-Kettering Cancer Center.
+ *
+ * This library is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY, WITHOUT EVEN THE IMPLIED WARRANTY OF MERCHANTABILITY OR FITNESS
+ * FOR A PARTICULAR PURPOSE. The software and documentation provided hereunder
+ * is on an "as is" basis, and Memorial Sloan-Kettering Cancer Center has no
+ * obligations to provide maintenance, support, updates, enhancements or
+ * modifications. In no event shall Memorial Sloan-Kettering Cancer Center be
+ * liable to any party for direct, indirect, special, incidental or
+ * consequential damages, including lost profits, arising out of the use of this
+ * software and its documentation, even if Memorial Sloan-Kettering Cancer
+ * Center has been advised of the possibility of such damage.
+ */
+
+package org.cbioportal.cdd.service.internal;
+
+import java.util.*;
+import org.cbioportal.cdd.model.ClinicalAttributeMetadata;
+
+/**
+ * Prefix index over the column headers and display names of a fixed list of attributes, used for autocomplete.
+ * The case folded keys are kept in one sorted array with parallel arrays of ordinals and priorities, so all keys
+ * starting with a prefix form a contiguous range which is found by binary search and scanned in place.
+ */
+public final class ClinicalAttributePrefixIndex {
+
+    private final List<ClinicalAttributeMetadata> attributes;
+    // sorted case folded keys, with the ordinal and parsed priority of the attribute each key belongs to
+    private final String[] keys;
+    private final int[] ordinals;
+    private final int[] priorities;
+
+    public ClinicalAttributePrefixIndex(List<ClinicalAttributeMetadata> attributes) {
+        this.attributes = attributes;
+        ArrayList<Entry> entries = new ArrayList<Entry>(attributes.size() * 2);
+        for (int ordinal = 0; ordinal < attributes.size(); ordinal++) {
+            ClinicalAttributeMetadata clinicalAttributeMetadata = attributes.get(ordinal);
+            int priority = parsePriority(clinicalAttributeMetadata.getPriority());
+            String foldedColumnHeader = null;
+            if (clinicalAttributeMetadata.getColumnHeader() != null) {
+                foldedColumnHeader = ClinicalAttributeSearchIndex.fold(clinicalAttributeMetadata.getColumnHeader());
+                entries.add(new Entry(foldedColumnHeader, ordinal, priority));
+            }
+            if (clinicalAttributeMetadata.getDisplayName() != null) {
+                String foldedDisplayName = ClinicalAttributeSearchIndex.fold(clinicalAttributeMetadata.getDisplayName());
+                if (!foldedDisplayName.equals(foldedColumnHeader)) {
+                    entries.add(new Entry(foldedDisplayName, ordinal, priority));
+                }
+            }
+        }
+        entries.sort((a, b) -> a.key.compareTo(b.key));
+        this.keys = new String[entries.size()];
+        this.ordinals = new int[entries.size()];
+        this.priorities = new int[entries.size()];
+        for (int i = 0; i < keys.length; i++) {
+            Entry entry = entries.get(i);
+            keys[i] = entry.key;
+            ordinals[i] = entry.ordinal;
+            priorities[i] = entry.priority;
+        }
+    }
+
+    /**
+    * Returns up to limit attributes with a column header or display name starting with prefix (case insensitive),
+    * highest priority first and ties in dictionary order. Each attribute is returned at most once.
+    */
+    public List<ClinicalAttributeMetadata> findAttributesStartingWith(String prefix, int limit) {
+        String foldedPrefix = ClinicalAttributeSearchIndex.fold(prefix);
+        // best ordinals so far, ordered best first
+        int[] topOrdinals = new int[Math.min(limit, attributes.size())];
+        int[] topPriorities = new int[topOrdinals.length];
+        int size = 0;
+        for (int i = firstKeyNotBefore(foldedPrefix); i < keys.length && keys[i].startsWith(foldedPrefix); i++) {
+            int ordinal = ordinals[i];
+            int priority = priorities[i];
+            if (size == topOrdinals.length && !isBetter(priority, ordinal, topPriorities[size - 1], topOrdinals[size - 1])) {
+                continue;
+            }
+            if (contains(topOrdinals, size, ordinal)) {
+                // header and display name of the same attribute both matched
+                continue;
+            }
+            int position = size < topOrdinals.length ? size++ : size - 1;
+            while (position > 0 && isBetter(priority, ordinal, topPriorities[position - 1], topOrdinals[position - 1])) {
+                topOrdinals[position] = topOrdinals[position - 1];
+                topPriorities[position] = topPriorities[position - 1];
+                position--;
+            }
+            topOrdinals[position] = ordinal;
+            topPriorities[position] = priority;
+        }
+        ArrayList<ClinicalAttributeMetadata> suggestions = new ArrayList<ClinicalAttributeMetadata>(size);
+        for (int i = 0; i < size; i++) {
+            suggestions.add(attributes.get(topOrdinals[i]));
+        }
+        return suggestions;
+    }
+
+    private int firstKeyNotBefore(String foldedPrefix) {
+        int low = 0;
+        int high = keys.length;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (keys[middle].compareTo(foldedPrefix) < 0) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    private static boolean isBetter(int priority, int ordinal, int otherPriority, int otherOrdinal) {
+        return priority > otherPriority || (priority == otherPriority && ordinal < otherOrdinal);
+    }
+
+    private static boolean contains(int[] values, int size, int value) {
+        for (int i = 0; i < size; i++) {
+            if (values[i] == value) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+    * Priorities are numeric strings, anything else ranks as priority 0.
+    */
+    private static int parsePriority(String priority) {
+        if (priority == null) {
+            return 0;
+        }
+        try {
+            return Integer.parseInt(priority.trim());
+        } catch (NumberFormatException e) {
+            return 0;
+        }
+    }
+
+    private static final class Entry {
+        private final String key;
+        private final int ordinal;
+        private final int priority;
+
+        private Entry(String key, int ordinal, int priority) {
+            this.key = key;
+            this.ordinal = ordinal;
+            this.priority = priority;
+        }
+    }
+
+}
@@ -0,0 +1,218 @@
+/*
+ * Copyright (c) 2026 Memorial Sloan-Kettering Cancer Center.
+ *
+ * This library is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY, WITHOUT EVEN THE IMPLIED WARRANTY OF MERCHANTABILITY OR FITNESS
+ * FOR A PARTICULAR PURPOSE. The software and documentation provided hereunder
+ * is on an "as is" basis, and Memorial Sloan-Kettering Cancer Center has no
+ * obligations to provide maintenance, support, updates, enhancements or
+ * modifications. In no event shall Memorial Sloan-Kettering Cancer Center be
+ * liable to any party for direct, indirect, special, incidental or
+ * consequential damages, including lost profits, arising out of the use of this
+ * software and its documentation, even if Memorial Sloan-Kettering Cancer
+ * Center has been advised of the possibility of such damage.
+ */
+
+package org.cbioportal.cdd.service.internal;
+
+import java.util.*;
+import org.cbioportal.cdd.model.ClinicalAttributeMetadata;
+
+/**
+ * Substring index over the column header, display name and description of a fixed list of attributes.
+ * Every distinct character n-gram (length 1 to 3) of the case folded fields maps to the sorted ordinals of
+ * the attributes containing it. A term of up to three characters is answered by a single posting list,
+ * longer terms by intersecting the posting lists of their trigrams and verifying the remaining candidates.
+ *
+ * Matching is equivalent to StringUtils.containsIgnoreCase() on any of the three fields.
+ */
+public final class ClinicalAttributeSearchIndex {
+
+    private static final int MAXIMUM_GRAM_LENGTH = 3;
+    private static final int[] NO_ATTRIBUTES = new int[0];
+
+    private final List<ClinicalAttributeMetadata> attributes;
+    // case folded searchable fields for each ordinal, null fields are skipped
+    private final String[][] foldedFields;
+    private final Map<String, int[]> postings;
+    private final int[] allOrdinals;
+
+    public ClinicalAttributeSearchIndex(List<ClinicalAttributeMetadata> attributes) {
+        this.attributes = attributes;
+        this.foldedFields = new String[attributes.size()][];
+        HashMap<String, OrdinalList> postingLists = new HashMap<String, OrdinalList>();
+        HashSet<String> attributeGrams = new HashSet<String>();
+        for (int ordinal = 0; ordinal < attributes.size(); ordinal++) {
+            ClinicalAttributeMetadata clinicalAttributeMetadata = attributes.get(ordinal);
+            foldedFields[ordinal] = foldFields(clinicalAttributeMetadata.getColumnHeader(),
+                clinicalAttributeMetadata.getDisplayName(), clinicalAttributeMetadata.getDescription());
+            attributeGrams.clear();
+            for (String foldedField : foldedFields[ordinal]) {
+                addGrams(foldedField, attributeGrams);
+            }
+            // ordinals are visited in increasing order so every posting list comes out sorted
+            for (String gram : attributeGrams) {
+                postingLists.computeIfAbsent(gram, g -> new OrdinalList()).add(ordinal);
+            }
+        }
+        HashMap<String, int[]> latestPostings = new HashMap<String, int[]>((int) (postingLists.size() / 0.75f) + 1);
+        for (Map.Entry<String, OrdinalList> entry : postingLists.entrySet()) {
+            latestPostings.put(entry.getKey(), entry.getValue().toArray());
+        }
+        this.postings = latestPostings;
+        this.allOrdinals = new int[attributes.size()];
+        for (int ordinal = 0; ordinal < allOrdinals.length; ordinal++) {
+            allOrdinals[ordinal] = ordinal;
+        }
+    }
+
+    public int size() {
+        return attributes.size();
+    }
+
+    public ClinicalAttributeMetadata getAttribute(int ordinal) {
+        return attributes.get(ordinal);
+    }
+
+    /**
+    * Returns the sorted ordinals of all attributes with a field containing searchTerm (case insensitive).
+    * The returned array must not be modified.
+    */
+    public int[] findOrdinalsContaining(String searchTerm) {
+        String foldedSearchTerm = fold(searchTerm);
+        if (foldedSearchTerm.isEmpty()) {
+            return allOrdinals;
+        }
+        if (foldedSearchTerm.length() <= MAXIMUM_GRAM_LENGTH) {
+            // the term is itself a gram, so its posting list is exact
+            int[] posting = postings.get(foldedSearchTerm);
+            return posting != null ? posting : NO_ATTRIBUTES;
+        }
+        // intersect trigram postings, shortest first, then verify what is left
+        ArrayList<int[]> trigramPostings = new ArrayList<int[]>();
+        HashSet<String> trigrams = new HashSet<String>();
+        for (int start = 0; start + MAXIMUM_GRAM_LENGTH <= foldedSearchTerm.length(); start++) {
+            String trigram = foldedSearchTerm.substring(start, start + MAXIMUM_GRAM_LENGTH);
+            if (!trigrams.add(trigram)) {
+                continue;
+            }
+            int[] posting = postings.get(trigram);
+            if (posting == null) {
+                return NO_ATTRIBUTES;
+            }
+            trigramPostings.add(posting);
+        }
+        trigramPostings.sort((a, b) -> Integer.compare(a.length, b.length));
+        int[] candidates = trigramPostings.get(0);
+        for (int i = 1; i < trigramPostings.size() && candidates.length > 0; i++) {
+            candidates = intersect(candidates, trigramPostings.get(i));
+        }
+        OrdinalList matches = new OrdinalList();
+        for (int ordinal : candidates) {
+            if (containsFolded(ordinal, foldedSearchTerm)) {
+                matches.add(ordinal);
+            }
+        }
+        return matches.toArray();
+    }
+
+    private boolean containsFolded(int ordinal, String foldedSearchTerm) {
+        for (String foldedField : foldedFields[ordinal]) {
+            if (foldedField.contains(foldedSearchTerm)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+    * Intersection of two sorted ordinal arrays.
+    */
+    public static int[] intersect(int[] a, int[] b) {
+        int[] intersection = new int[Math.min(a.length, b.length)];
+        int size = 0;
+        int i = 0;
+        int j = 0;
+        while (i < a.length && j < b.length) {
+            if (a[i] < b[j]) {
+                i++;
+            } else if (a[i] > b[j]) {
+                j++;
+            } else {
+                intersection[size++] = a[i];
+                i++;
+                j++;
+            }
+        }
+        return Arrays.copyOf(intersection, size);
+    }
+
+    /**
+    * Union of two sorted ordinal arrays.
+    */
+    public static int[] union(int[] a, int[] b) {
+        int[] union = new int[a.length + b.length];
+        int size = 0;
+        int i = 0;
+        int j = 0;
+        while (i < a.length || j < b.length) {
+            if (j == b.length || (i < a.length && a[i] < b[j])) {
+                union[size++] = a[i++];
+            } else if (i == a.length || b[j] < a[i]) {
+                union[size++] = b[j++];
+            } else {
+                union[size++] = a[i];
+                i++;
+                j++;
+            }
+        }
+        return Arrays.copyOf(union, size);
+    }
+
+    private static String[] foldFields(String... fields) {
+        ArrayList<String> foldedFields = new ArrayList<String>(fields.length);
+        for (String field : fields) {
+            if (field != null) {
+                foldedFields.add(fold(field));
+            }
+        }
+        return foldedFields.toArray(new String[foldedFields.size()]);
+    }
+
+    private static void addGrams(String foldedField, Set<String> grams) {
+        for (int start = 0; start < foldedField.length(); start++) {
+            for (int length = 1; length <= MAXIMUM_GRAM_LENGTH && start + length <= foldedField.length(); length++) {
+                grams.add(foldedField.substring(start, start + length));
+            }
+        }
+    }
+
+    /**
+    * Char by char case folding with the same equivalence as String.regionMatches(true, ...),
+    * which is what StringUtils.containsIgnoreCase() uses.
+    */
+    static String fold(String value) {
+        char[] folded = new char[value.length()];
+        for (int i = 0; i < folded.length; i++) {
+            folded[i] = Character.toLowerCase(Character.toUpperCase(value.charAt(i)));
+        }
+        return new String(folded);
+    }
+
+    private static final class OrdinalList {
+        private int[] ordinals = new int[4];
+        private int size;
+
+        private void add(int ordinal) {
+            if (size == ordinals.length) {
+                ordinals = Arrays.copyOf(ordinals, size * 2);
+            }
+            ordinals[size++] = ordinal;
+        }
+
+        private int[] toArray() {
+            return Arrays.copyOf(ordinals, size);
+        }
+    }
+
+}
@@ -16,14 +16,20 @@
 package org.cbioportal.cdd.service.internal;
 
 import java.util.*;
+import org.cbioportal.cdd.model.CacheRefreshJob;
+import org.cbioportal.cdd.model.CacheStatistics;
 import org.cbioportal.cdd.model.CancerStudy;
 import org.cbioportal.cdd.model.ClinicalAttributeMetadata;
+import org.cbioportal.cdd.model.ColumnHeaderResolution;
+import org.cbioportal.cdd.model.DictionaryChangeSet;
+import org.cbioportal.cdd.model.MultiStudyMetadata;
+import org.cbioportal.cdd.model.VersionedResult;
 import org.cbioportal.cdd.service.ClinicalDataDictionaryService;
+import org.cbioportal.cdd.service.KnowledgeSystemsDictionaryService;
 import org.cbioportal.cdd.service.util.MSKVocabStudyUtil;
 import org.cbioportal.cdd.service.exception.CancerStudyNotFoundException;
 import org.cbioportal.cdd.service.exception.ClinicalAttributeNotFoundException;
 import org.cbioportal.cdd.service.exception.ClinicalMetadataSourceUnresponsiveException;
-import org.cbioportal.cdd.service.exception.FailedCacheRefreshException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -32,7 +38,7 @@ import org.springframework.stereotype.Service;
 
 @Service
 @Qualifier("servicerouter")
-public class ClinicalDataDictionaryServiceImpl implements ClinicalDataDictionaryService {
+public class ClinicalDataDictionaryServiceImpl implements KnowledgeSystemsDictionaryService {
 
     @Autowired
     private MSKVocabStudyUtil mskVocabStudyUtil;
@@ -43,12 +49,12 @@ public class ClinicalDataDictionaryServiceImpl implements ClinicalDataDictionary
 
     @Autowired
     @Qualifier("knowledgesystems")
-    private ClinicalDataDictionaryService cddServiceTopBraidImpl;
+    private KnowledgeSystemsDictionaryService cddServiceTopBraidImpl;
 
     private static final Logger logger = LoggerFactory.getLogger(ClinicalDataDictionaryServiceImpl.class);
 
     @Override
-    public List<ClinicalAttributeMetadata> getClinicalAttributeMetadata(String cancerStudy)
+    public VersionedResult<List<ClinicalAttributeMetadata>> getClinicalAttributeMetadata(String cancerStudy)
         throws ClinicalMetadataSourceUnresponsiveException, CancerStudyNotFoundException {
         if (mskVocabStudyUtil.useMskVocabularyForStudy(cancerStudy)) {
             return cddServiceMskVocabularyImpl.getClinicalAttributeMetadata(cancerStudy);
@@ -58,7 +64,13 @@ public class ClinicalDataDictionaryServiceImpl implements ClinicalDataDictionary
     }
 
     @Override
-    public List<ClinicalAttributeMetadata> getMetadataByColumnHeaders(String cancerStudy, List<String> columnHeaders)
+    public VersionedResult<Map<String, List<ClinicalAttributeMetadata>>> getClinicalAttributeMetadataForAllCancerStudies()
+        throws ClinicalMetadataSourceUnresponsiveException {
+        return cddServiceTopBraidImpl.getClinicalAttributeMetadataForAllCancerStudies();
+    }
+
+    @Override
+    public VersionedResult<List<ClinicalAttributeMetadata>> getMetadataByColumnHeaders(String cancerStudy, List<String> columnHeaders)
         throws ClinicalAttributeNotFoundException, ClinicalMetadataSourceUnresponsiveException, CancerStudyNotFoundException {
         if (mskVocabStudyUtil.useMskVocabularyForStudy(cancerStudy)) {
             return cddServiceMskVocabularyImpl.getMetadataByColumnHeaders(cancerStudy, columnHeaders);
@@ -68,13 +80,46 @@ public class ClinicalDataDictionaryServiceImpl implements ClinicalDataDictionary
     }
 
     @Override
-    public List<ClinicalAttributeMetadata> getMetadataBySearchTerms(List<String> searchTerms, String attributeType, boolean inclusiveSearch)
+    public VersionedResult<ColumnHeaderResolution> resolveColumnHeaders(String cancerStudy, List<String> columnHeaders)
+        throws ClinicalMetadataSourceUnresponsiveException, CancerStudyNotFoundException {
+        if (mskVocabStudyUtil.useMskVocabularyForStudy(cancerStudy)) {
+            return cddServiceMskVocabularyImpl.resolveColumnHeaders(cancerStudy, columnHeaders);
+        } else {
+            return cddServiceTopBraidImpl.resolveColumnHeaders(cancerStudy, columnHeaders);
+        }
+    }
+
+    @Override
+    public VersionedResult<MultiStudyMetadata> getMetadataForCancerStudies(List<String> cancerStudies, List<String> columnHeaders)
+        throws ClinicalMetadataSourceUnresponsiveException, CancerStudyNotFoundException {
+        for (String cancerStudy : cancerStudies) {
+            if (mskVocabStudyUtil.useMskVocabularyForStudy(cancerStudy)) {
+                throw new IllegalArgumentException("multi-study lookups are not supported for MskVocabulary study " + cancerStudy);
+            }
+        }
+        return cddServiceTopBraidImpl.getMetadataForCancerStudies(cancerStudies, columnHeaders);
+    }
+
+    @Override
+    public VersionedResult<List<ClinicalAttributeMetadata>> getMetadataBySearchTerms(List<String> searchTerms, String attributeType, boolean inclusiveSearch, int offset, Integer limit)
         throws ClinicalAttributeNotFoundException, ClinicalMetadataSourceUnresponsiveException {
-        return cddServiceTopBraidImpl.getMetadataBySearchTerms(searchTerms, attributeType, inclusiveSearch);
+        return cddServiceTopBraidImpl.getMetadataBySearchTerms(searchTerms, attributeType, inclusiveSearch, offset, limit);
+    }
+
+    @Override
+    public VersionedResult<List<ClinicalAttributeMetadata>> getMetadataByFuzzySearchTerms(List<String> searchTerms, String attributeType, boolean inclusiveSearch, int maxEditDistance, int offset, Integer limit)
+        throws ClinicalAttributeNotFoundException, ClinicalMetadataSourceUnresponsiveException {
+        return cddServiceTopBraidImpl.getMetadataByFuzzySearchTerms(searchTerms, attributeType, inclusiveSearch, maxEditDistance, offset, limit);
+    }
+
+    @Override
+    public VersionedResult<List<ClinicalAttributeMetadata>> getMetadataSuggestions(String prefix, int limit)
+        throws ClinicalMetadataSourceUnresponsiveException {
+        return cddServiceTopBraidImpl.getMetadataSuggestions(prefix, limit);
     }
 
     @Override
-    public ClinicalAttributeMetadata getMetadataByColumnHeader(String cancerStudy, String columnHeader)
+    public VersionedResult<ClinicalAttributeMetadata> getMetadataByColumnHeader(String cancerStudy, String columnHeader)
         throws ClinicalAttributeNotFoundException, ClinicalMetadataSourceUnresponsiveException, CancerStudyNotFoundException {
         if (mskVocabStudyUtil.useMskVocabularyForStudy(cancerStudy)) {
             return cddServiceMskVocabularyImpl.getMetadataByColumnHeader(cancerStudy, columnHeader);
@@ -84,16 +129,44 @@ public class ClinicalDataDictionaryServiceImpl implements ClinicalDataDictionary
     }
 
     @Override
-    public List<CancerStudy> getCancerStudies() throws ClinicalMetadataSourceUnresponsiveException {
+    public VersionedResult<List<CancerStudy>> getCancerStudies() throws ClinicalMetadataSourceUnresponsiveException {
         return cddServiceTopBraidImpl.getCancerStudies();
     }
 
     @Override
-    public Map<String, String> forceResetCache() throws FailedCacheRefreshException {
+    public VersionedResult<Void> getMetadataVersion(String cancerStudy) throws ClinicalMetadataSourceUnresponsiveException {
+        if (mskVocabStudyUtil.useMskVocabularyForStudy(cancerStudy)) {
+            return cddServiceMskVocabularyImpl.getMetadataVersion(cancerStudy);
+        } else {
+            return cddServiceTopBraidImpl.getMetadataVersion(cancerStudy);
+        }
+    }
+
+    @Override
+    public VersionedResult<Void> getSearchVersion() throws ClinicalMetadataSourceUnresponsiveException {
+        return cddServiceTopBraidImpl.getSearchVersion();
+    }
+
+    @Override
+    public CacheRefreshJob forceResetCache() {
         // No longer in use, MskVocabulary project has been deleted and is no longer supported
 	// cddServiceMskVocabularyImpl.forceResetCache();
-        cddServiceTopBraidImpl.forceResetCache();
-        return Collections.singletonMap("response", "Success!");
+        return cddServiceTopBraidImpl.forceResetCache();
+    }
+
+    @Override
+    public CacheRefreshJob getCacheRefreshJob(String jobId) {
+        return cddServiceTopBraidImpl.getCacheRefreshJob(jobId);
+    }
+
+    @Override
+    public List<CacheStatistics> getCacheStatistics() {
+        return cddServiceTopBraidImpl.getCacheStatistics();
+    }
+
+    @Override
+    public List<DictionaryChangeSet> getChangesSince(String dictionaryVersion) {
+        return cddServiceTopBraidImpl.getChangesSince(dictionaryVersion);
     }
 
 }
@@ -0,0 +1,150 @@
+/*
+ * Copyright (c) 2026 Memorial Sloan-Kettering Cancer Center.
+ *
+ * This library is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY, WITHOUT EVEN THE IMPLIED WARRANTY OF MERCHANTABILITY OR FITNESS
+ * FOR A PARTICULAR PURPOSE. The software and documentation provided hereunder
+ * is on an "as is" basis, and Memorial Sloan-Kettering Cancer Center has no
+ * obligations to provide maintenance, support, updates, enhancements or
+ * modifications. In no event shall Memorial Sloan-Kettering Cancer Center be
+ * liable to any party for direct, indirect, special, incidental or
+ * consequential damages, including lost profits, arising out of the use of this
+ * software and its documentation, even if Memorial Sloan-Kettering Cancer
+ * Center has been advised of the possibility of such damage.
+ */
+
+package org.cbioportal.cdd.service.internal;
+
+import java.util.*;
+import org.cbioportal.cdd.model.ClinicalAttributeMetadata;
+import org.cbioportal.cdd.model.DictionaryChangeSet;
+import org.cbioportal.cdd.service.exception.DictionaryVersionNotFoundException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Remembers the change sets of the most recent refreshes which changed the dictionary, so that clients holding
+ * an older version can apply the differences instead of fetching the whole dictionary again. Change sets are
+ * computed by comparing consecutive snapshots; the per-study content hashes let unchanged studies be skipped.
+ */
+@Component
+public class DictionaryChangeLog {
+
+    @Value("${cdd.changes.maximumChangeSets:20}")
+    private int maximumChangeSets;
+
+    private static final Logger logger = LoggerFactory.getLogger(DictionaryChangeLog.class);
+
+    // oldest first, guarded by this
+    private final ArrayDeque<DictionaryChangeSet> changeSets = new ArrayDeque<DictionaryChangeSet>();
+
+    /**
+    * Records the changes from previous to latest, unless they have the same content.
+    */
+    public void record(DictionarySnapshot previous, DictionarySnapshot latest) {
+        if (previous.getContentHash().equals(latest.getContentHash())) {
+            return;
+        }
+        DictionaryChangeSet changeSet = computeChangeSet(previous, latest);
+        logger.info("record(): dictionary version " + changeSet.getToVersion() + " added " + changeSet.getAddedAttributes().size() +
+            ", modified " + changeSet.getModifiedAttributes().size() + " and removed " + changeSet.getRemovedAttributes().size() +
+            " attributes and changed the overrides of " + (changeSet.getAddedStudies().size() + changeSet.getModifiedStudies().size() +
+            changeSet.getRemovedStudies().size()) + " studies");
+        synchronized (this) {
+            changeSets.addLast(changeSet);
+            while (changeSets.size() > maximumChangeSets) {
+                changeSets.removeFirst();
+            }
+        }
+    }
+
+    /**
+    * Returns the change sets leading from dictionaryVersion to currentVersion, oldest first (empty if they are the same).
+    * Throws DictionaryVersionNotFoundException if dictionaryVersion is unknown or older than the remembered change sets.
+    */
+    public synchronized List<DictionaryChangeSet> getChangesSince(String dictionaryVersion, String currentVersion) {
+        if (dictionaryVersion.equals(currentVersion)) {
+            return Collections.emptyList();
+        }
+        // the dictionary may return to an earlier version, so start from the most recent change away from it
+        ArrayList<DictionaryChangeSet> changesSince = new ArrayList<DictionaryChangeSet>();
+        Iterator<DictionaryChangeSet> newestFirst = changeSets.descendingIterator();
+        while (newestFirst.hasNext()) {
+            DictionaryChangeSet changeSet = newestFirst.next();
+            changesSince.add(changeSet);
+            if (changeSet.getFromVersion().equals(dictionaryVersion)) {
+                Collections.reverse(changesSince);
+                return changesSince;
+            }
+        }
+        throw new DictionaryVersionNotFoundException(dictionaryVersion);
+    }
+
+    private static DictionaryChangeSet computeChangeSet(DictionarySnapshot previous, DictionarySnapshot latest) {
+        ArrayList<ClinicalAttributeMetadata> addedAttributes = new ArrayList<ClinicalAttributeMetadata>();
+        ArrayList<ClinicalAttributeMetadata> modifiedAttributes = new ArrayList<ClinicalAttributeMetadata>();
+        ArrayList<String> removedAttributes = new ArrayList<String>();
+        if (!previous.getDefaultsHash().equals(latest.getDefaultsHash())) {
+            for (String columnHeader : new TreeSet<String>(latest.getDefaults().keySet())) {
+                ClinicalAttributeMetadata previousAttribute = previous.getDefaults().get(columnHeader);
+                ClinicalAttributeMetadata latestAttribute = latest.getDefaults().get(columnHeader);
+                if (previousAttribute == null) {
+                    addedAttributes.add(latestAttribute);
+                } else if (!hasSameContent(previousAttribute, latestAttribute)) {
+                    modifiedAttributes.add(latestAttribute);
+                }
+            }
+            for (String columnHeader : new TreeSet<String>(previous.getDefaults().keySet())) {
+                if (!latest.getDefaults().containsKey(columnHeader)) {
+                    removedAttributes.add(columnHeader);
+                }
+            }
+        }
+        ArrayList<String> addedStudies = new ArrayList<String>();
+        TreeMap<String, List<String>> modifiedStudies = new TreeMap<String, List<String>>();
+        ArrayList<String> removedStudies = new ArrayList<String>();
+        for (String cancerStudy : new TreeSet<String>(latest.getStudies())) {
+            String previousOverridesHash = previous.getStudyOverridesHash(cancerStudy);
+            if (previousOverridesHash == null) {
+                addedStudies.add(cancerStudy);
+            } else if (!previousOverridesHash.equals(latest.getStudyOverridesHash(cancerStudy))) {
+                modifiedStudies.put(cancerStudy, getChangedColumnHeaders(previous.getOverrides().get(cancerStudy), latest.getOverrides().get(cancerStudy)));
+            }
+        }
+        for (String cancerStudy : new TreeSet<String>(previous.getStudies())) {
+            if (!latest.containsStudy(cancerStudy)) {
+                removedStudies.add(cancerStudy);
+            }
+        }
+        return new DictionaryChangeSet(previous.getContentHash(), latest.getContentHash(), latest.getBuildTimestamp(), addedAttributes,
+            modifiedAttributes, removedAttributes, addedStudies, modifiedStudies, removedStudies);
+    }
+
+    private static List<String> getChangedColumnHeaders(Map<String, ClinicalAttributeMetadata> previousOverrides,
+            Map<String, ClinicalAttributeMetadata> latestOverrides) {
+        TreeSet<String> columnHeaders = new TreeSet<String>(previousOverrides.keySet());
+        columnHeaders.addAll(latestOverrides.keySet());
+        ArrayList<String> changedColumnHeaders = new ArrayList<String>();
+        for (String columnHeader : columnHeaders) {
+            ClinicalAttributeMetadata previousOverride = previousOverrides.get(columnHeader);
+            ClinicalAttributeMetadata latestOverride = latestOverrides.get(columnHeader);
+            if (previousOverride == null || latestOverride == null || !hasSameContent(previousOverride, latestOverride)) {
+                changedColumnHeaders.add(columnHeader);
+            }
+        }
+        return changedColumnHeaders;
+    }
+
+    private static boolean hasSameContent(ClinicalAttributeMetadata clinicalAttribute, ClinicalAttributeMetadata otherClinicalAttribute) {
+        return Objects.equals(clinicalAttribute.getColumnHeader(), otherClinicalAttribute.getColumnHeader()) &&
+            Objects.equals(clinicalAttribute.getDisplayName(), otherClinicalAttribute.getDisplayName()) &&
+            Objects.equals(clinicalAttribute.getDescription(), otherClinicalAttribute.getDescription()) &&
+            Objects.equals(clinicalAttribute.getDatatype(), otherClinicalAttribute.getDatatype()) &&
+            Objects.equals(clinicalAttribute.getAttributeType(), otherClinicalAttribute.getAttributeType()) &&
+            Objects.equals(clinicalAttribute.getPriority(), otherClinicalAttribute.getPriority()) &&
+            Objects.equals(clinicalAttribute.getAdditionalProperties(), otherClinicalAttribute.getAdditionalProperties());
+    }
+
+}
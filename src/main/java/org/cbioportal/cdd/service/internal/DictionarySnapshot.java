@@ -0,0 +1,357 @@
+/*
+ * Copyright (c) 2026 Memorial Sloan-Kettering Cancer Center.
+ *
+ * This library is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY, WITHOUT EVEN THE IMPLIED WARRANTY OF MERCHANTABILITY OR FITNESS
+ * FOR A PARTICULAR PURPOSE. The software and documentation provided hereunder
+ * is on an "as is" basis, and Memorial Sloan-Kettering Cancer Center has no
+ * obligations to provide maintenance, support, updates, enhancements or
+ * modifications. In no event shall Memorial Sloan-Kettering Cancer Center be
+ * liable to any party for direct, indirect, special, incidental or
+ * consequential damages, including lost profits, arising out of the use of this
+ * software and its documentation, even if Memorial Sloan-Kettering Cancer
+ * Center has been advised of the possibility of such damage.
+ */
+
+package org.cbioportal.cdd.service.internal;
+
+import com.google.common.base.Strings;
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
+import java.util.*;
+import java.util.function.Function;
+import org.cbioportal.cdd.model.ClinicalAttributeMetadata;
+
+/**
+ * An immutable view of the clinical data dictionary as it was at the end of one cache refresh.
+ * The default attributes, the study overrides and the study set are always published together,
+ * so a caller holding a snapshot never sees defaults and overrides from two different refreshes.
+ * All maps are wrapped once at construction time and can be handed out without further copying.
+ *
+ * The merged attribute list for every study (defaults, explicit overrides and the priority zero policy
+ * applied to certain studies) is also precomputed here, so full study requests are a single map lookup,
+ * as are the search indexes over the default attributes. When a snapshot is built from the previous one,
+ * the defaults, indexes and study views whose content hashes did not change are carried over instead.
+ */
+public final class DictionarySnapshot {
+
+    // studies for which every attribute without an explicit override is hidden (priority 0)
+    public static final Set<String> CANCER_STUDIES_WITH_ALTERED_DEFAULT_METADATA;
+    static {
+        Set<String> cancerStudySet = new HashSet<>();
+        cancerStudySet.add("mskimpact");
+        cancerStudySet.add("sclc_mskimpact_2017");
+        cancerStudySet.add("mskarcher");
+        cancerStudySet.add("mskraindance");
+        cancerStudySet.add("mskimpact_heme");
+        cancerStudySet.add("msk_solid_heme");
+        CANCER_STUDIES_WITH_ALTERED_DEFAULT_METADATA = Collections.unmodifiableSet(cancerStudySet);
+    }
+
+    private final long versionId;
+    private final Date buildTimestamp;
+    // hash over all defaults and overrides, equal for two snapshots with the same content
+    private final String contentHash;
+    // hash over the defaults alone, the default view and the search indexes only depend on these
+    private final String defaultsHash;
+    // map of study-id to a hash over that study's overrides
+    private final Map<String, String> studyOverridesHashes;
+    // map of study-id to a hash over everything that study's view depends on
+    private final Map<String, String> studyViewHashes;
+    // map of column header to default ClinicalAttributeMetadata object
+    private final Map<String, ClinicalAttributeMetadata> defaults;
+    // map of study-id to map of column header to overridden ClinicalAttributeMetadata object
+    private final Map<String, Map<String, ClinicalAttributeMetadata>> overrides;
+    private final Set<String> studies;
+    // map of column header to a priority 0 copy of the default, shared by all CANCER_STUDIES_WITH_ALTERED_DEFAULT_METADATA
+    private final Map<String, ClinicalAttributeMetadata> priorityZeroDefaults;
+    private final List<ClinicalAttributeMetadata> defaultView;
+    // substring index over the default attributes, ordinals are positions in defaultView
+    private final ClinicalAttributeSearchIndex searchIndex;
+    // edit distance index over normalized column headers and display names, same ordinals as searchIndex
+    private final ClinicalAttributeFuzzyIndex fuzzyIndex;
+    // sorted column headers and display names for autocomplete, same ordinals as searchIndex
+    private final ClinicalAttributePrefixIndex prefixIndex;
+    // map of study-id to the merged list of ClinicalAttributeMetadata objects for that study
+    private final Map<String, List<ClinicalAttributeMetadata>> studyViews;
+
+    /**
+    * The snapshot takes ownership of defaults and overrides rather than copying them,
+    * callers must not modify either map (or the per-study maps) after this call.
+    */
+    public DictionarySnapshot(long versionId, Date buildTimestamp, Map<String, ClinicalAttributeMetadata> defaults,
+            Map<String, Map<String, ClinicalAttributeMetadata>> overrides) {
+        this(versionId, buildTimestamp, hashClinicalAttributeMetadata(defaults.values(), null), defaults,
+            hashStudyOverrides(overrides, defaults), overrides, null);
+    }
+
+    /**
+    * Like the constructor above, but takes the hashes of the defaults and of every study's overrides as computed by
+    * hashClinicalAttributeMetadata, and anything with the same hash as in previous (which may be null) is taken from
+    * previous rather than rebuilt: the defaults, default view and search indexes if no default changed, and the
+    * override map and view of every study whose overrides did not change either.
+    */
+    public DictionarySnapshot(long versionId, Date buildTimestamp, String defaultsHash, Map<String, ClinicalAttributeMetadata> defaults,
+            Map<String, String> studyOverridesHashes, Map<String, Map<String, ClinicalAttributeMetadata>> overrides, DictionarySnapshot previous) {
+        this.versionId = versionId;
+        this.buildTimestamp = new Date(buildTimestamp.getTime());
+        this.defaultsHash = defaultsHash;
+        this.studyOverridesHashes = Collections.unmodifiableMap(new HashMap<String, String>(studyOverridesHashes));
+        boolean defaultsUnchanged = previous != null && previous.defaultsHash.equals(defaultsHash);
+        this.defaults = defaultsUnchanged ? previous.defaults : Collections.unmodifiableMap(defaults);
+        overrides.replaceAll((cancerStudy, studyOverrides) -> defaultsUnchanged && isStudyUnchanged(previous, cancerStudy) ?
+            previous.overrides.get(cancerStudy) : Collections.unmodifiableMap(studyOverrides));
+        this.overrides = Collections.unmodifiableMap(overrides);
+        this.studies = this.overrides.keySet();
+        this.priorityZeroDefaults = defaultsUnchanged && !previous.priorityZeroDefaults.isEmpty() ?
+            previous.priorityZeroDefaults : buildPriorityZeroDefaults();
+        if (defaultsUnchanged) {
+            this.defaultView = previous.defaultView;
+            this.searchIndex = previous.searchIndex;
+            this.fuzzyIndex = previous.fuzzyIndex;
+            this.prefixIndex = previous.prefixIndex;
+        } else {
+            this.defaultView = Collections.unmodifiableList(new ArrayList<ClinicalAttributeMetadata>(this.defaults.values()));
+            this.searchIndex = new ClinicalAttributeSearchIndex(defaultView);
+            this.fuzzyIndex = new ClinicalAttributeFuzzyIndex(defaultView);
+            this.prefixIndex = new ClinicalAttributePrefixIndex(defaultView);
+        }
+        HashMap<String, List<ClinicalAttributeMetadata>> latestStudyViews = new HashMap<String, List<ClinicalAttributeMetadata>>();
+        HashMap<String, String> latestStudyViewHashes = new HashMap<String, String>();
+        for (String cancerStudy : studies) {
+            boolean studyUnchanged = defaultsUnchanged && isStudyUnchanged(previous, cancerStudy);
+            latestStudyViews.put(cancerStudy, studyUnchanged ? previous.studyViews.get(cancerStudy) : buildStudyView(cancerStudy));
+            latestStudyViewHashes.put(cancerStudy, studyUnchanged ? previous.studyViewHashes.get(cancerStudy) : computeStudyViewHash(cancerStudy));
+        }
+        this.studyViews = Collections.unmodifiableMap(latestStudyViews);
+        this.studyViewHashes = Collections.unmodifiableMap(latestStudyViewHashes);
+        this.contentHash = computeContentHash();
+    }
+
+    private boolean isStudyUnchanged(DictionarySnapshot previous, String cancerStudy) {
+        return studyOverridesHashes.get(cancerStudy).equals(previous.studyOverridesHashes.get(cancerStudy));
+    }
+
+    private static Map<String, String> hashStudyOverrides(Map<String, Map<String, ClinicalAttributeMetadata>> overrides,
+            Map<String, ClinicalAttributeMetadata> defaults) {
+        HashMap<String, String> studyOverridesHashes = new HashMap<String, String>();
+        for (Map.Entry<String, Map<String, ClinicalAttributeMetadata>> entry : overrides.entrySet()) {
+            studyOverridesHashes.put(entry.getKey(), hashClinicalAttributeMetadata(entry.getValue().values(), defaults));
+        }
+        return studyOverridesHashes;
+    }
+
+    /**
+    * Hashes the attributes as a map keyed by column header would hold them (sorted, the last of several attributes
+    * with the same column header wins). If defaults is not null, the attributes are study overrides and are hashed
+    * as if every empty field had been filled in from the default attribute with the same column header, so the
+    * overrides as fetched and the same overrides once filled in have the same hash.
+    */
+    public static String hashClinicalAttributeMetadata(Collection<ClinicalAttributeMetadata> clinicalAttributeMetadata,
+            Map<String, ClinicalAttributeMetadata> defaults) {
+        ArrayList<ClinicalAttributeMetadata> sortedClinicalAttributeMetadata = new ArrayList<ClinicalAttributeMetadata>(clinicalAttributeMetadata);
+        // the sort is stable, so attributes with the same column header keep their order and the last one is hashed
+        sortedClinicalAttributeMetadata.sort(Comparator.comparing(ClinicalAttributeMetadata::getColumnHeader, Comparator.nullsFirst(Comparator.<String>naturalOrder())));
+        ArrayList<ClinicalAttributeMetadata> distinctClinicalAttributeMetadata = new ArrayList<ClinicalAttributeMetadata>(sortedClinicalAttributeMetadata.size());
+        for (int i = 0; i < sortedClinicalAttributeMetadata.size(); i++) {
+            if (i + 1 < sortedClinicalAttributeMetadata.size() && Objects.equals(sortedClinicalAttributeMetadata.get(i).getColumnHeader(),
+                    sortedClinicalAttributeMetadata.get(i + 1).getColumnHeader())) {
+                continue;
+            }
+            distinctClinicalAttributeMetadata.add(sortedClinicalAttributeMetadata.get(i));
+        }
+        Hasher hasher = Hashing.sha256().newHasher();
+        hasher.putInt(distinctClinicalAttributeMetadata.size());
+        for (ClinicalAttributeMetadata clinicalAttribute : distinctClinicalAttributeMetadata) {
+            putClinicalAttributeMetadata(hasher, clinicalAttribute, defaults != null ? defaults.get(clinicalAttribute.getColumnHeader()) : null);
+        }
+        return hasher.hash().toString();
+    }
+
+    private String computeStudyViewHash(String cancerStudy) {
+        Hasher hasher = Hashing.sha256().newHasher();
+        putString(hasher, defaultsHash);
+        putString(hasher, cancerStudy);
+        putString(hasher, studyOverridesHashes.get(cancerStudy));
+        return hasher.hash().toString();
+    }
+
+    private String computeContentHash() {
+        Hasher hasher = Hashing.sha256().newHasher();
+        putString(hasher, defaultsHash);
+        for (String cancerStudy : new TreeSet<String>(studies)) {
+            putString(hasher, cancerStudy);
+            putString(hasher, studyOverridesHashes.get(cancerStudy));
+        }
+        return hasher.hash().toString();
+    }
+
+    private static void putClinicalAttributeMetadata(Hasher hasher, ClinicalAttributeMetadata clinicalAttributeMetadata,
+            ClinicalAttributeMetadata defaultClinicalAttribute) {
+        putString(hasher, clinicalAttributeMetadata.getColumnHeader());
+        putString(hasher, filledIn(clinicalAttributeMetadata.getDisplayName(), defaultClinicalAttribute, ClinicalAttributeMetadata::getDisplayName));
+        putString(hasher, filledIn(clinicalAttributeMetadata.getDescription(), defaultClinicalAttribute, ClinicalAttributeMetadata::getDescription));
+        putString(hasher, filledIn(clinicalAttributeMetadata.getDatatype(), defaultClinicalAttribute, ClinicalAttributeMetadata::getDatatype));
+        putString(hasher, filledIn(clinicalAttributeMetadata.getAttributeType(), defaultClinicalAttribute, ClinicalAttributeMetadata::getAttributeType));
+        putString(hasher, filledIn(clinicalAttributeMetadata.getPriority(), defaultClinicalAttribute, ClinicalAttributeMetadata::getPriority));
+        Map<String, Object> additionalProperties = clinicalAttributeMetadata.getAdditionalProperties();
+        hasher.putInt(additionalProperties.size());
+        for (Map.Entry<String, Object> entry : new TreeMap<String, Object>(additionalProperties).entrySet()) {
+            putString(hasher, entry.getKey());
+            putString(hasher, String.valueOf(entry.getValue()));
+        }
+    }
+
+    private static String filledIn(String value, ClinicalAttributeMetadata defaultClinicalAttribute, Function<ClinicalAttributeMetadata, String> field) {
+        // same rule as ClinicalAttributeMetadataCache fills overrides with
+        return defaultClinicalAttribute != null && Strings.isNullOrEmpty(value) ? field.apply(defaultClinicalAttribute) : value;
+    }
+
+    private static void putString(Hasher hasher, String value) {
+        // length prefix keeps adjacent fields from running together, -1 marks null
+        if (value == null) {
+            hasher.putInt(-1);
+            return;
+        }
+        hasher.putInt(value.length());
+        hasher.putUnencodedChars(value);
+    }
+
+    private Map<String, ClinicalAttributeMetadata> buildPriorityZeroDefaults() {
+        if (Collections.disjoint(studies, CANCER_STUDIES_WITH_ALTERED_DEFAULT_METADATA)) {
+            return Collections.emptyMap();
+        }
+        HashMap<String, ClinicalAttributeMetadata> alteredDefaults = new HashMap<String, ClinicalAttributeMetadata>();
+        for (ClinicalAttributeMetadata defaultClinicalAttribute : defaults.values()) {
+            ClinicalAttributeMetadata alteredClinicalAttribute = new ClinicalAttributeMetadata(defaultClinicalAttribute);
+            alteredClinicalAttribute.setPriority("0");
+            alteredDefaults.put(alteredClinicalAttribute.getColumnHeader(), alteredClinicalAttribute);
+        }
+        return Collections.unmodifiableMap(alteredDefaults);
+    }
+
+    private List<ClinicalAttributeMetadata> buildStudyView(String cancerStudy) {
+        // keep the same attribute order as the default view
+        ArrayList<ClinicalAttributeMetadata> studyView = new ArrayList<ClinicalAttributeMetadata>(defaults.size());
+        for (String columnHeader : defaults.keySet()) {
+            studyView.add(getMetadata(cancerStudy, columnHeader));
+        }
+        return Collections.unmodifiableList(studyView);
+    }
+
+    public long getVersionId() {
+        return versionId;
+    }
+
+    public Date getBuildTimestamp() {
+        return new Date(buildTimestamp.getTime());
+    }
+
+    public String getContentHash() {
+        return contentHash;
+    }
+
+    public String getDefaultsHash() {
+        return defaultsHash;
+    }
+
+    /**
+    * Returns the hash of the study's overrides, or null if the study is not part of this snapshot.
+    */
+    public String getStudyOverridesHash(String cancerStudy) {
+        return studyOverridesHashes.get(cancerStudy);
+    }
+
+    /**
+    * Returns a hash over everything getClinicalAttributeMetadata(cancerStudy) depends on, which only changes when
+    * the defaults or that study's overrides change. Returns null if the study is not part of this snapshot.
+    */
+    public String getStudyViewHash(String cancerStudy) {
+        return studyViewHashes.get(cancerStudy);
+    }
+
+    public Map<String, ClinicalAttributeMetadata> getDefaults() {
+        return defaults;
+    }
+
+    public Map<String, Map<String, ClinicalAttributeMetadata>> getOverrides() {
+        return overrides;
+    }
+
+    public Set<String> getStudies() {
+        return studies;
+    }
+
+    public ClinicalAttributeSearchIndex getSearchIndex() {
+        return searchIndex;
+    }
+
+    public ClinicalAttributeFuzzyIndex getFuzzyIndex() {
+        return fuzzyIndex;
+    }
+
+    public ClinicalAttributePrefixIndex getPrefixIndex() {
+        return prefixIndex;
+    }
+
+    public boolean containsStudy(String cancerStudy) {
+        return studies.contains(cancerStudy);
+    }
+
+    /**
+    * Returns the shared, merged list of attributes for the given study (or the defaults if cancerStudy is null).
+    * Returns null if the study is not part of this snapshot.
+    */
+    public List<ClinicalAttributeMetadata> getClinicalAttributeMetadata(String cancerStudy) {
+        if (cancerStudy == null) {
+            return defaultView;
+        }
+        return studyViews.get(cancerStudy);
+    }
+
+    /**
+    * Resolves the metadata a study sees for one column header (case insensitive).
+    * Returns null if there is no default attribute with that column header.
+    */
+    public ClinicalAttributeMetadata getMetadata(String cancerStudy, String columnHeader) {
+        String normalizedColumnHeader = columnHeader.toUpperCase();
+        ClinicalAttributeMetadata defaultClinicalAttribute = defaults.get(normalizedColumnHeader);
+        if (defaultClinicalAttribute == null || cancerStudy == null) {
+            return defaultClinicalAttribute;
+        }
+        // if there is an explicit override for a columnHeader in this study, use the explicit override
+        Map<String, ClinicalAttributeMetadata> studyOverrides = overrides.get(cancerStudy);
+        if (studyOverrides != null && studyOverrides.containsKey(normalizedColumnHeader)) {
+            return studyOverrides.get(normalizedColumnHeader);
+        }
+        // without an explicit override for the study, use the default metadata or a modified version for certain special studies
+        if (CANCER_STUDIES_WITH_ALTERED_DEFAULT_METADATA.contains(cancerStudy)) {
+            return priorityZeroDefaults.get(normalizedColumnHeader);
+        }
+        return defaultClinicalAttribute;
+    }
+
+    /**
+    * Names the shared object getMetadata(cancerStudy, columnHeader) returns: "default/HEADER" for the default attribute,
+    * "priority_zero/HEADER" for the priority 0 copy of the default, or "study/HEADER" for an explicit study override.
+    * Two study/column header pairs have the same reference exactly when they resolve to the same object.
+    * Returns null if there is no default attribute with that column header.
+    */
+    public String getMetadataReference(String cancerStudy, String columnHeader) {
+        String normalizedColumnHeader = columnHeader.toUpperCase();
+        if (!defaults.containsKey(normalizedColumnHeader)) {
+            return null;
+        }
+        if (cancerStudy != null) {
+            Map<String, ClinicalAttributeMetadata> studyOverrides = overrides.get(cancerStudy);
+            if (studyOverrides != null && studyOverrides.containsKey(normalizedColumnHeader)) {
+                return cancerStudy + "/" + normalizedColumnHeader;
+            }
+            if (CANCER_STUDIES_WITH_ALTERED_DEFAULT_METADATA.contains(cancerStudy)) {
+                return "priority_zero/" + normalizedColumnHeader;
+            }
+        }
+        return "default/" + normalizedColumnHeader;
+    }
+
+}
@@ -0,0 +1,94 @@
+/*
+ * Copyright (c) 2026 Memorial Sloan-Kettering Cancer Center.
+ *
+ * This library is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY, WITHOUT EVEN THE IMPLIED WARRANTY OF MERCHANTABILITY OR FITNESS
+ * FOR A PARTICULAR PURPOSE. The software and documentation provided hereunder
+ * is on an "as is" basis, and Memorial Sloan-Kettering Cancer Center has no
+ * obligations to provide maintenance, support, updates, enhancements or
+ * modifications. In no event shall Memorial Sloan-Kettering Cancer Center be
+ * liable to any party for direct, indirect, special, incidental or
+ * consequential damages, including lost profits, arising out of the use of this
+ * software and its documentation, even if Memorial Sloan-Kettering Cancer
+ * Center has been advised of the possibility of such damage.
+ */
+
+package org.cbioportal.cdd.service.internal;
+
+import com.google.common.base.Strings;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.*;
+import java.util.*;
+import org.cbioportal.cdd.model.ClinicalAttributeMetadata;
+import org.cbioportal.cdd.util.ClinicalAttributeMetadataCodec;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * The dictionary as of the last successful refresh, kept in one file in ClinicalAttributeMetadataCodec format so
+ * that a restarted node can publish a snapshot before TopBraid or the Ehcache stores are consulted.
+ * The file is replaced atomically, so readers only ever see a complete previous or complete new file,
+ * and it is memory-mapped for reading. Disabled when cdd.snapshot.file is empty.
+ */
+@Component
+public class DictionarySnapshotFile {
+
+    @Value("${cdd.snapshot.file:}")
+    private String snapshotFilePath;
+
+    private static final Logger logger = LoggerFactory.getLogger(DictionarySnapshotFile.class);
+
+    public boolean isEnabled() {
+        return !Strings.isNullOrEmpty(snapshotFilePath);
+    }
+
+    /**
+    * Writes the defaults and overrides of snapshot to a temporary file next to the snapshot file, forces it to disk
+    * and then moves it over the snapshot file.
+    */
+    public void write(DictionarySnapshot snapshot) throws IOException {
+        Path snapshotFile = Paths.get(snapshotFilePath).toAbsolutePath();
+        LinkedHashMap<String, Collection<ClinicalAttributeMetadata>> overrides = new LinkedHashMap<String, Collection<ClinicalAttributeMetadata>>();
+        for (Map.Entry<String, Map<String, ClinicalAttributeMetadata>> entry : snapshot.getOverrides().entrySet()) {
+            overrides.put(entry.getKey(), entry.getValue().values());
+        }
+        byte[] encodedDictionary = ClinicalAttributeMetadataCodec.encodeDictionary(snapshot.getBuildTimestamp(),
+            snapshot.getDefaults().values(), overrides);
+        Files.createDirectories(snapshotFile.getParent());
+        Path temporaryFile = Files.createTempFile(snapshotFile.getParent(), snapshotFile.getFileName().toString(), ".tmp");
+        try {
+            try (FileChannel channel = FileChannel.open(temporaryFile, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+                ByteBuffer buffer = ByteBuffer.wrap(encodedDictionary);
+                while (buffer.hasRemaining()) {
+                    channel.write(buffer);
+                }
+                channel.force(true);
+            }
+            Files.move(temporaryFile, snapshotFile, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } finally {
+            Files.deleteIfExists(temporaryFile);
+        }
+        logger.info("write(): wrote snapshot version " + snapshot.getVersionId() + " (" + encodedDictionary.length + " bytes) to " + snapshotFile);
+    }
+
+    /**
+    * Returns the dictionary stored in the snapshot file, or null if the file does not exist.
+    * Throws IllegalArgumentException if the file is corrupt or was written in another format version.
+    */
+    public ClinicalAttributeMetadataCodec.Dictionary read() throws IOException {
+        Path snapshotFile = Paths.get(snapshotFilePath);
+        if (!Files.exists(snapshotFile)) {
+            return null;
+        }
+        try (FileChannel channel = FileChannel.open(snapshotFile, StandardOpenOption.READ)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            return ClinicalAttributeMetadataCodec.decodeDictionary(buffer);
+        }
+    }
+
+}
@@ -15,91 +15,107 @@
 
 package org.cbioportal.cdd.service.internal;
 
-import java.util.ArrayList;
-import java.util.HashMap;
-import java.util.List;
-import java.util.Map;
-import org.apache.http.*;
-import org.apache.http.client.*;
-import org.apache.http.client.methods.*;
-import org.apache.http.entity.*;
-import org.apache.http.impl.client.*;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheStats;
+import java.util.Objects;
+import java.util.concurrent.ExecutionException;
+import javax.annotation.PostConstruct;
 import org.cbioportal.cdd.model.ClinicalAttributeMetadata;
-import org.cbioportal.cdd.service.exception.FailedCacheRefreshException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
 /**
+ * Caches the Levenshtein distance between an attribute and a search term.
+ *
+ * Entries are keyed on (column header, search term, hash of the default attributes), so nothing has to be
+ * invalidated on refresh: entries for changed defaults are simply never looked up again and age out,
+ * while a refresh which leaves the defaults alone keeps all its entries. The cache is bounded by an estimate of
+ * its size in bytes and evicts least recently used entries first.
+ *
  * @author Avery Wang
  */
 @Component
 public class LevenshteinDistanceCache {
 
-    @Autowired
-    private ClinicalAttributeMetadataCache clinicalAttributesCache;
+    @Value("${cdd.search.levenshteinDistanceCache.maximumBytes:16777216}")
+    private long maximumBytes;
 
-    private Map<ClinicalAttributeMetadata, Map<String, Integer>> levenshteinDistanceCache = new HashMap<ClinicalAttributeMetadata, Map<String, Integer>>();
+    private Cache<SearchTermMapping, Integer> levenshteinDistanceCache;
 
     private static final Logger logger = LoggerFactory.getLogger(LevenshteinDistanceCache.class);
 
-    public boolean containsClinicalAttribute(ClinicalAttributeMetadata clinicalAttributeMetadata) {
-        return levenshteinDistanceCache.containsKey(clinicalAttributeMetadata);
+    @PostConstruct
+    public void initializeCache() {
+        levenshteinDistanceCache = CacheBuilder.newBuilder()
+            .maximumWeight(maximumBytes)
+            .weigher((SearchTermMapping key, Integer value) -> key.estimateBytes())
+            .recordStats()
+            .build();
     }
 
-    public void addClinicalAttribute(ClinicalAttributeMetadata clinicalAttributeMetadata) {
-        this.levenshteinDistanceCache.put(clinicalAttributeMetadata, new HashMap<String, Integer>());
+    /**
+    * Returns clinicalAttributeMetadata.levenshteinDistanceFromSearchTerm(searchTerm) for the attribute as it is in the dictionary with dictionaryVersion.
+    */
+    public int getLevenshteinDistance(String dictionaryVersion, ClinicalAttributeMetadata clinicalAttributeMetadata, String searchTerm) {
+        // the distance is case sensitive, so the search term is part of the key as is
+        SearchTermMapping key = new SearchTermMapping(clinicalAttributeMetadata.getColumnHeader(), searchTerm, dictionaryVersion);
+        try {
+            return levenshteinDistanceCache.get(key,
+                () -> LevenshteinDistanceScorer.minimumDistance(clinicalAttributeMetadata, searchTerm, LevenshteinDistanceScorer.EXCEEDS_MAXIMUM));
+        } catch (ExecutionException e) {
+            // the scorer does not throw checked exceptions
+            throw new IllegalStateException(e.getCause());
+        }
     }
 
-    public boolean containsClinicalAttributeToSearchTermMapping(ClinicalAttributeMetadata clinicalAttributeMetadata, String searchTerm) {
-        return levenshteinDistanceCache.get(clinicalAttributeMetadata).containsKey(searchTerm);
+    public CacheStats getStats() {
+        return levenshteinDistanceCache.stats();
     }
 
-    public void addClinicalAttributeToSearchTermMapping(ClinicalAttributeMetadata clinicalAttributeMetadata, String searchTerm) {
-        this.levenshteinDistanceCache.get(clinicalAttributeMetadata).put(searchTerm, clinicalAttributeMetadata.levenshteinDistanceFromSearchTerm(searchTerm));
+    public long size() {
+        return levenshteinDistanceCache.size();
     }
 
-    public Integer getLevenshteinDistanceForMapping(ClinicalAttributeMetadata clinicalAttributeMetadata, String searchTerm) {
-        return levenshteinDistanceCache.get(clinicalAttributeMetadata).get(searchTerm);
-    }
+    private static final class SearchTermMapping {
+        private final String columnHeader;
+        private final String searchTerm;
+        // the snapshot defaults hash, shared by every key for the same defaults
+        private final String dictionaryVersion;
+        private final int hashCode;
+
+        private SearchTermMapping(String columnHeader, String searchTerm, String dictionaryVersion) {
+            this.columnHeader = columnHeader;
+            this.searchTerm = searchTerm;
+            this.dictionaryVersion = dictionaryVersion;
+            this.hashCode = Objects.hash(columnHeader, searchTerm, dictionaryVersion);
+        }
 
-    public void resetCache() {
-        logger.info("resetCache(): recalculating Levenshtein Distances with refreshed CDD attributes");
-        Map<String, ClinicalAttributeMetadata> defaultClinicalAttributeCache = clinicalAttributesCache.getClinicalAttributeMetadata();
-        Map<ClinicalAttributeMetadata, List<String>> searchTermMappingsToRemove = new HashMap<ClinicalAttributeMetadata, List<String>>();
-        List<ClinicalAttributeMetadata> clinicalAttributeMetadataToRemove = new ArrayList<ClinicalAttributeMetadata>();
+        private int estimateBytes() {
+            // key, boxed value and cache entry overhead plus the characters the key holds on to
+            return 96 + 2 * (columnHeader.length() + searchTerm.length());
+        }
 
-        for (ClinicalAttributeMetadata cachedClinicalAttributeMetadata : levenshteinDistanceCache.keySet()) {
-            ClinicalAttributeMetadata currentClinicalAttributeMetadata;
-            // during cache refresh - remove levenshtein distance mappings if the clinical attribute has been removed from CDD
-            if (!defaultClinicalAttributeCache.containsKey(cachedClinicalAttributeMetadata.getColumnHeader())) {
-                clinicalAttributeMetadataToRemove.add(cachedClinicalAttributeMetadata);
-                continue;
-            } else {
-                currentClinicalAttributeMetadata = defaultClinicalAttributeCache.get(cachedClinicalAttributeMetadata.getColumnHeader());
+        @Override
+        public boolean equals(Object other) {
+            if (this == other) {
+                return true;
             }
-            // recalculate and set levenshtein distances to new values (calculated from updated displays, descriptions, etc...)
-            // remove search term mappings which are no longer contained in the display, description, etc...
-            for (String searchTerm : levenshteinDistanceCache.get(cachedClinicalAttributeMetadata).keySet()) {
-                if (!currentClinicalAttributeMetadata.containsSearchTerm(searchTerm)) {
-                    if(!searchTermMappingsToRemove.containsKey(cachedClinicalAttributeMetadata)) {
-                        searchTermMappingsToRemove.put(cachedClinicalAttributeMetadata, new ArrayList<String>());
-                    }
-                    searchTermMappingsToRemove.get(cachedClinicalAttributeMetadata).add(searchTerm);
-                    continue;
-                }
-                Integer levenshteinDistance = currentClinicalAttributeMetadata.levenshteinDistanceFromSearchTerm(searchTerm);
-                levenshteinDistanceCache.get(cachedClinicalAttributeMetadata).put(searchTerm, levenshteinDistance);
+            if (!(other instanceof SearchTermMapping)) {
+                return false;
             }
+            SearchTermMapping otherMapping = (SearchTermMapping) other;
+            return hashCode == otherMapping.hashCode &&
+                columnHeader.equals(otherMapping.columnHeader) &&
+                searchTerm.equals(otherMapping.searchTerm) &&
+                dictionaryVersion.equals(otherMapping.dictionaryVersion);
         }
-        for (ClinicalAttributeMetadata clinicalAttributeMetadata : clinicalAttributeMetadataToRemove) {
-            levenshteinDistanceCache.remove(clinicalAttributeMetadata);
-        }
-        for (ClinicalAttributeMetadata clinicalAttributeMetadata : searchTermMappingsToRemove.keySet()) {
-            for (String searchTerm : searchTermMappingsToRemove.get(clinicalAttributeMetadata)) {
-                levenshteinDistanceCache.get(clinicalAttributeMetadata).remove(searchTerm);
-            }
+
+        @Override
+        public int hashCode() {
+            return hashCode;
         }
     }
 }
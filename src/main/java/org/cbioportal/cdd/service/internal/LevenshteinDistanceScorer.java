@@ -0,0 +1,155 @@
+/*
+ * Copyright (c) 2026 Memorial Sloan-Kettering Cancer Center.
+ *
+ * This library is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY, WITHOUT EVEN THE IMPLIED WARRANTY OF MERCHANTABILITY OR FITNESS
+ * FOR A PARTICULAR PURPOSE. The software and documentation provided hereunder
+ * is on an "as is" basis, and Memorial Sloan-Kettering Cancer Center has no
+ * obligations to provide maintenance, support, updates, enhancements or
+ * modifications. In no event shall Memorial Sloan-Kettering Cancer Center be
+ * liable to any party for direct, indirect, special, incidental or
+ * consequential damages, including lost profits, arising out of the use of this
+ * software and its documentation, even if Memorial Sloan-Kettering Cancer
+ * Center has been advised of the possibility of such damage.
+ */
+
+package org.cbioportal.cdd.service.internal;
+
+import java.util.Arrays;
+import org.apache.commons.lang3.StringUtils;
+import org.cbioportal.cdd.model.ClinicalAttributeMetadata;
+
+/**
+ * Levenshtein distance for search ranking. Distances are only computed exactly up to a caller supplied maximum,
+ * which keeps the dynamic programming to a diagonal band and lets it stop as soon as a whole row is over the maximum.
+ * The two rows of the table are kept per thread and reused, so scoring does not allocate.
+ *
+ * Below the maximum the results are identical to StringUtils.getLevenshteinDistance() and
+ * ClinicalAttributeMetadata.levenshteinDistanceFromSearchTerm().
+ */
+public final class LevenshteinDistanceScorer {
+
+    // returned when the distance is greater than the requested maximum
+    public static final int EXCEEDS_MAXIMUM = Integer.MAX_VALUE;
+
+    private static final ThreadLocal<int[][]> rowBuffers = ThreadLocal.withInitial(() -> new int[2][64]);
+
+    private LevenshteinDistanceScorer() {}
+
+    /**
+    * Equivalent to clinicalAttributeMetadata.levenshteinDistanceFromSearchTerm(searchTerm) when that is at most maximumDistance,
+    * otherwise returns EXCEEDS_MAXIMUM. Fields are tried in order of their length difference to the search term,
+    * which is a lower bound on their distance, and a field is skipped once it cannot improve on the best field so far.
+    */
+    public static int minimumDistance(ClinicalAttributeMetadata clinicalAttributeMetadata, String searchTerm, int maximumDistance) {
+        String[] fields = {clinicalAttributeMetadata.getColumnHeader(), clinicalAttributeMetadata.getDisplayName(), clinicalAttributeMetadata.getDescription()};
+        int[] lowerBounds = new int[fields.length];
+        for (int i = 0; i < fields.length; i++) {
+            lowerBounds[i] = fields[i] != null ? Math.abs(fields[i].length() - searchTerm.length()) : EXCEEDS_MAXIMUM;
+        }
+        int bestDistance = EXCEEDS_MAXIMUM;
+        int limit = maximumDistance;
+        for (int visited = 0; visited < fields.length && limit >= 0; visited++) {
+            int next = 0;
+            for (int i = 1; i < fields.length; i++) {
+                if (lowerBounds[i] < lowerBounds[next]) {
+                    next = i;
+                }
+            }
+            if (lowerBounds[next] > limit) {
+                // every remaining field is at least this far away
+                break;
+            }
+            lowerBounds[next] = EXCEEDS_MAXIMUM;
+            if (!StringUtils.containsIgnoreCase(fields[next], searchTerm)) {
+                continue;
+            }
+            int distance = distance(searchTerm, fields[next], limit);
+            if (distance != EXCEEDS_MAXIMUM) {
+                bestDistance = distance;
+                // only a strictly closer field can change the result
+                limit = distance - 1;
+            }
+        }
+        return bestDistance;
+    }
+
+    /**
+    * Levenshtein distance between s and t if it is at most maximumDistance, otherwise EXCEEDS_MAXIMUM.
+    */
+    public static int distance(CharSequence s, CharSequence t, int maximumDistance) {
+        if (maximumDistance < 0) {
+            return EXCEEDS_MAXIMUM;
+        }
+        int n = s.length();
+        int m = t.length();
+        if (Math.abs(n - m) > maximumDistance) {
+            return EXCEEDS_MAXIMUM;
+        }
+        if (n == 0 || m == 0) {
+            return Math.max(n, m);
+        }
+        // keep the row over the shorter string
+        if (n > m) {
+            CharSequence swap = s;
+            s = t;
+            t = swap;
+            n = m;
+            m = t.length();
+        }
+        int[][] rows = getRowBuffers(n + 1);
+        int[] previous = rows[0];
+        int[] current = rows[1];
+        int boundary = Math.min(n, maximumDistance) + 1;
+        for (int i = 0; i < boundary; i++) {
+            previous[i] = i;
+        }
+        Arrays.fill(previous, boundary, n + 1, Integer.MAX_VALUE);
+        Arrays.fill(current, 0, n + 1, Integer.MAX_VALUE);
+
+        for (int j = 1; j <= m; j++) {
+            char tj = t.charAt(j - 1);
+            current[0] = j;
+            // only cells within maximumDistance of the diagonal can be at most maximumDistance
+            int min = Math.max(1, j - maximumDistance);
+            int max = j > Integer.MAX_VALUE - maximumDistance ? n : Math.min(n, j + maximumDistance);
+            if (min > max) {
+                return EXCEEDS_MAXIMUM;
+            }
+            if (min > 1) {
+                current[min - 1] = Integer.MAX_VALUE;
+            }
+            int rowMinimum = min == 1 ? current[0] : Integer.MAX_VALUE;
+            for (int i = min; i <= max; i++) {
+                int cell;
+                if (s.charAt(i - 1) == tj) {
+                    cell = previous[i - 1];
+                } else {
+                    cell = Math.min(Math.min(current[i - 1], previous[i]), previous[i - 1]);
+                    cell = cell == Integer.MAX_VALUE ? cell : cell + 1;
+                }
+                current[i] = cell;
+                rowMinimum = Math.min(rowMinimum, cell);
+            }
+            // every path to the last cell passes through this row, and distances never decrease along a path
+            if (rowMinimum > maximumDistance) {
+                return EXCEEDS_MAXIMUM;
+            }
+            int[] swap = previous;
+            previous = current;
+            current = swap;
+        }
+        return previous[n] <= maximumDistance ? previous[n] : EXCEEDS_MAXIMUM;
+    }
+
+    private static int[][] getRowBuffers(int length) {
+        int[][] rows = rowBuffers.get();
+        if (rows[0].length < length) {
+            int size = Math.max(length, rows[0].length * 2);
+            rows[0] = new int[size];
+            rows[1] = new int[size];
+        }
+        return rows;
+    }
+
+}
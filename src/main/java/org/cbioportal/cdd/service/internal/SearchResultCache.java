@@ -0,0 +1,161 @@
+/*
+ * Copyright (c) 2026 Memorial Sloan-Kettering Cancer Center.
+ *
+ * This library is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY, WITHOUT EVEN THE IMPLIED WARRANTY OF MERCHANTABILITY OR FITNESS
+ * FOR A PARTICULAR PURPOSE. The software and documentation provided hereunder
+ * is on an "as is" basis, and Memorial Sloan-Kettering Cancer Center has no
+ * obligations to provide maintenance, support, updates, enhancements or
+ * modifications. In no event shall Memorial Sloan-Kettering Cancer Center be
+ * liable to any party for direct, indirect, special, incidental or
+ * consequential damages, including lost profits, arising out of the use of this
+ * software and its documentation, even if Memorial Sloan-Kettering Cancer
+ * Center has been advised of the possibility of such damage.
+ */
+
+package org.cbioportal.cdd.service.internal;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheStats;
+import java.util.*;
+import java.util.concurrent.ExecutionException;
+import java.util.function.Supplier;
+import javax.annotation.PostConstruct;
+import org.cbioportal.cdd.model.ClinicalAttributeMetadata;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Caches ranked search results by query and dictionary version, so a repeated query is a single lookup.
+ * Queries which matched nothing are cached too. The first lookup for a new dictionary version drops
+ * every result computed for older versions; the version is also part of the key, so a lookup racing
+ * with a refresh can never see results from another version. The cache is bounded by an estimate of its
+ * size in bytes, so a few unpaged searches returning most of the dictionary cannot crowd out the heap.
+ */
+@Component
+public class SearchResultCache {
+
+    @Value("${cdd.search.resultCache.maximumBytes:33554432}")
+    private long maximumBytes;
+
+    private Cache<SearchQuery, Optional<List<ClinicalAttributeMetadata>>> searchResultCache;
+    private volatile String currentDictionaryVersion;
+
+    private static final Logger logger = LoggerFactory.getLogger(SearchResultCache.class);
+
+    @PostConstruct
+    public void initializeCache() {
+        searchResultCache = CacheBuilder.newBuilder()
+            .maximumWeight(maximumBytes)
+            .weigher((SearchQuery key, Optional<List<ClinicalAttributeMetadata>> value) -> key.estimateBytes() + estimateBytes(value))
+            .recordStats()
+            .build();
+    }
+
+    /**
+    * Returns the cached result for the query, or computes it with searcher. An empty result means no attribute matched.
+    * Returned lists are shared and unmodifiable.
+    */
+    public Optional<List<ClinicalAttributeMetadata>> getSearchResult(String dictionaryVersion, List<String> searchTerms, String attributeType,
+            boolean inclusiveSearch, int maxEditDistance, int offset, Integer limit, Supplier<List<ClinicalAttributeMetadata>> searcher) {
+        invalidateOlderVersions(dictionaryVersion);
+        SearchQuery key = new SearchQuery(dictionaryVersion, searchTerms, attributeType, inclusiveSearch, maxEditDistance, offset, limit);
+        try {
+            return searchResultCache.get(key, () -> {
+                List<ClinicalAttributeMetadata> clinicalAttributes = searcher.get();
+                return clinicalAttributes == null ? Optional.empty() : Optional.of(Collections.unmodifiableList(clinicalAttributes));
+            });
+        } catch (ExecutionException e) {
+            // searches do not throw checked exceptions
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    private static int estimateBytes(Optional<List<ClinicalAttributeMetadata>> searchResult) {
+        // the list and its wrappers plus one reference per attribute, the attributes themselves belong to the snapshot
+        return 64 + 8 * searchResult.map(List::size).orElse(0);
+    }
+
+    private void invalidateOlderVersions(String dictionaryVersion) {
+        if (dictionaryVersion.equals(currentDictionaryVersion)) {
+            return;
+        }
+        synchronized (this) {
+            if (!dictionaryVersion.equals(currentDictionaryVersion)) {
+                logger.info("invalidateOlderVersions() -- dropping search results for dictionary version " + currentDictionaryVersion);
+                searchResultCache.invalidateAll();
+                currentDictionaryVersion = dictionaryVersion;
+            }
+        }
+    }
+
+    public CacheStats getStats() {
+        return searchResultCache.stats();
+    }
+
+    public long size() {
+        return searchResultCache.size();
+    }
+
+    private static final class SearchQuery {
+        private final String dictionaryVersion;
+        // ranking depends on the order and case of the terms, so they are part of the key as given
+        private final List<String> searchTerms;
+        private final String attributeType;
+        private final boolean inclusiveSearch;
+        // -1 for substring search
+        private final int maxEditDistance;
+        private final int offset;
+        private final Integer limit;
+        private final int hashCode;
+
+        private SearchQuery(String dictionaryVersion, List<String> searchTerms, String attributeType, boolean inclusiveSearch,
+                int maxEditDistance, int offset, Integer limit) {
+            this.dictionaryVersion = dictionaryVersion;
+            this.searchTerms = new ArrayList<String>(searchTerms);
+            // attribute type matching is case insensitive
+            this.attributeType = attributeType == null ? null : attributeType.toUpperCase();
+            this.inclusiveSearch = inclusiveSearch;
+            this.maxEditDistance = maxEditDistance;
+            this.offset = offset;
+            this.limit = limit;
+            this.hashCode = Objects.hash(dictionaryVersion, this.searchTerms, this.attributeType, inclusiveSearch, maxEditDistance, offset, limit);
+        }
+
+        private int estimateBytes() {
+            // key, list and cache entry overhead plus the characters the search terms hold on to
+            int searchTermsBytes = 0;
+            for (String searchTerm : searchTerms) {
+                searchTermsBytes += 48 + 2 * searchTerm.length();
+            }
+            return 128 + searchTermsBytes;
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            if (this == other) {
+                return true;
+            }
+            if (!(other instanceof SearchQuery)) {
+                return false;
+            }
+            SearchQuery otherQuery = (SearchQuery) other;
+            return hashCode == otherQuery.hashCode &&
+                inclusiveSearch == otherQuery.inclusiveSearch &&
+                maxEditDistance == otherQuery.maxEditDistance &&
+                offset == otherQuery.offset &&
+                Objects.equals(limit, otherQuery.limit) &&
+                Objects.equals(attributeType, otherQuery.attributeType) &&
+                searchTerms.equals(otherQuery.searchTerms) &&
+                dictionaryVersion.equals(otherQuery.dictionaryVersion);
+        }
+
+        @Override
+        public int hashCode() {
+            return hashCode;
+        }
+    }
+}
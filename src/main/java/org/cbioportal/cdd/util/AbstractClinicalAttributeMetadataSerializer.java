@@ -0,0 +1,170 @@
+/*
+ * Copyright (c) 2026 Memorial Sloan-Kettering Cancer Center.
+ *
+ * This library is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY, WITHOUT EVEN THE IMPLIED WARRANTY OF MERCHANTABILITY OR FITNESS
+ * FOR A PARTICULAR PURPOSE. The software and documentation provided hereunder
+ * is on an "as is" basis, and Memorial Sloan-Kettering Cancer Center has no
+ * obligations to provide maintenance, support, updates, enhancements or
+ * modifications. In no event shall Memorial Sloan-Kettering Cancer Center be
+ * liable to any party for direct, indirect, special, incidental or
+ * consequential damages, including lost profits, arising out of the use of this
+ * software and its documentation, even if Memorial Sloan-Kettering Cancer
+ * Center has been advised of the possibility of such damage.
+ */
+
+package org.cbioportal.cdd.util;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+import org.ehcache.spi.serialization.Serializer;
+import org.ehcache.spi.serialization.SerializerException;
+
+/**
+ * Base class for the Ehcache serializers of the persistent clinical attribute metadata stores. Values are written
+ * in ClinicalAttributeMetadataCodec format behind a one byte frame marker, deflated when they are large enough
+ * for compression to pay off.
+ *
+ * Before these serializers were registered the stores used the serializer the JSR-107 caching provider registers
+ * for every type, Ehcache's PlainJavaSerializer, which writes standard Java serialization streams. Those entries
+ * are still read, so existing disk stores and backups stay usable until they are next rewritten. Entries written by
+ * any other serializer (such as CompactJavaSerializer, which needs its own class descriptor table) cannot be read;
+ * they fail with a SerializerException, which the persistent cache treats as a miss.
+ */
+public abstract class AbstractClinicalAttributeMetadataSerializer<T> implements Serializer<T> {
+
+    private static final byte FRAME_ENCODED = 0;
+    private static final byte FRAME_DEFLATED = 1;
+    // first byte of the java serialization stream magic 0xACED, as written by PlainJavaSerializer
+    private static final byte JAVA_SERIALIZATION_MAGIC = (byte) 0xAC;
+    // smaller values are written uncompressed
+    private static final int MINIMUM_DEFLATE_LENGTH = 1024;
+
+    private final ClassLoader classLoader;
+
+    protected AbstractClinicalAttributeMetadataSerializer(ClassLoader classLoader) {
+        this.classLoader = classLoader;
+    }
+
+    protected abstract byte[] encode(T value);
+
+    protected abstract T decode(ByteBuffer buffer);
+
+    @Override
+    public ByteBuffer serialize(T value) throws SerializerException {
+        byte[] encodedValue;
+        try {
+            encodedValue = encode(value);
+        } catch (RuntimeException e) {
+            throw new SerializerException("Unable to encode clinical attribute metadata", e);
+        }
+        if (encodedValue.length >= MINIMUM_DEFLATE_LENGTH) {
+            byte[] deflatedValue = deflate(encodedValue);
+            if (deflatedValue.length < encodedValue.length) {
+                return frame(FRAME_DEFLATED, deflatedValue, encodedValue.length);
+            }
+        }
+        return frame(FRAME_ENCODED, encodedValue, -1);
+    }
+
+    private static ByteBuffer frame(byte frameMarker, byte[] body, int inflatedLength) {
+        ByteBuffer framed = ByteBuffer.allocate(1 + (inflatedLength < 0 ? 0 : 4) + body.length);
+        framed.put(frameMarker);
+        if (inflatedLength >= 0) {
+            framed.putInt(inflatedLength);
+        }
+        framed.put(body);
+        framed.flip();
+        return framed;
+    }
+
+    @Override
+    public T read(ByteBuffer binary) throws ClassNotFoundException, SerializerException {
+        ByteBuffer buffer = binary.duplicate();
+        if (!buffer.hasRemaining()) {
+            throw new SerializerException("Empty clinical attribute metadata entry");
+        }
+        byte frameMarker = buffer.get(buffer.position());
+        try {
+            switch (frameMarker) {
+                case FRAME_ENCODED:
+                    buffer.get();
+                    return decode(buffer);
+                case FRAME_DEFLATED:
+                    buffer.get();
+                    int inflatedLength = buffer.getInt();
+                    return decode(ByteBuffer.wrap(inflate(buffer, inflatedLength)));
+                case JAVA_SERIALIZATION_MAGIC:
+                    return readJavaSerialized(buffer);
+                default:
+                    throw new SerializerException("Unknown clinical attribute metadata frame marker " + frameMarker);
+            }
+        } catch (IllegalArgumentException e) {
+            throw new SerializerException("Unable to decode clinical attribute metadata", e);
+        }
+    }
+
+    /**
+    * ClinicalAttributeMetadata has identity equality, so values are compared by their encoded content.
+    */
+    @Override
+    public boolean equals(T object, ByteBuffer binary) throws ClassNotFoundException, SerializerException {
+        return Arrays.equals(encode(object), encode(read(binary)));
+    }
+
+    private static byte[] deflate(byte[] value) {
+        Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+        try {
+            deflater.setInput(value);
+            deflater.finish();
+            ByteArrayOutputStream deflated = new ByteArrayOutputStream(value.length / 2);
+            byte[] block = new byte[8192];
+            while (!deflater.finished()) {
+                deflated.write(block, 0, deflater.deflate(block));
+            }
+            return deflated.toByteArray();
+        } finally {
+            deflater.end();
+        }
+    }
+
+    private static byte[] inflate(ByteBuffer buffer, int inflatedLength) {
+        byte[] deflated = new byte[buffer.remaining()];
+        buffer.get(deflated);
+        byte[] inflated = new byte[inflatedLength];
+        Inflater inflater = new Inflater();
+        try {
+            inflater.setInput(deflated);
+            int length = inflater.inflate(inflated);
+            if (length != inflatedLength || !inflater.finished()) {
+                throw new SerializerException("Deflated clinical attribute metadata is truncated");
+            }
+            return inflated;
+        } catch (DataFormatException e) {
+            throw new SerializerException("Deflated clinical attribute metadata is corrupt", e);
+        } finally {
+            inflater.end();
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private T readJavaSerialized(ByteBuffer buffer) throws ClassNotFoundException {
+        byte[] serialized = new byte[buffer.remaining()];
+        buffer.get(serialized);
+        try (ObjectInputStream objectInputStream = new ObjectInputStream(new ByteArrayInputStream(serialized)) {
+            @Override
+            protected Class<?> resolveClass(ObjectStreamClass description) throws IOException, ClassNotFoundException {
+                return Class.forName(description.getName(), false, classLoader);
+            }
+        }) {
+            return (T) objectInputStream.readObject();
+        } catch (IOException e) {
+            throw new SerializerException("Unable to read java serialized clinical attribute metadata", e);
+        }
+    }
+
+}
@@ -0,0 +1,408 @@
+/*
+ * Copyright (c) 2026 Memorial Sloan-Kettering Cancer Center.
+ *
+ * This library is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY, WITHOUT EVEN THE IMPLIED WARRANTY OF MERCHANTABILITY OR FITNESS
+ * FOR A PARTICULAR PURPOSE. The software and documentation provided hereunder
+ * is on an "as is" basis, and Memorial Sloan-Kettering Cancer Center has no
+ * obligations to provide maintenance, support, updates, enhancements or
+ * modifications. In no event shall Memorial Sloan-Kettering Cancer Center be
+ * liable to any party for direct, indirect, special, incidental or
+ * consequential damages, including lost profits, arising out of the use of this
+ * software and its documentation, even if Memorial Sloan-Kettering Cancer
+ * Center has been advised of the possibility of such damage.
+ */
+
+package org.cbioportal.cdd.util;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.zip.CRC32;
+import org.cbioportal.cdd.model.ClinicalAttributeMetadata;
+
+/**
+ * Compact, versioned binary encoding of clinical attribute metadata, used instead of Java serialization.
+ *
+ * An encoded value is a 16 byte header (magic "CDD", format version, payload kind, 3 reserved bytes,
+ * payload length and CRC32 of the payload) followed by the payload. The payload starts with a table of every
+ * distinct string, after which strings are written as varint references into the table; since most attributes
+ * share their datatype, attribute type, priority and (for overrides) display name and description, each of
+ * those is stored once. Decoding reads straight from a ByteBuffer, so it works on memory-mapped files.
+ */
+public final class ClinicalAttributeMetadataCodec {
+
+    public static final int FORMAT_VERSION = 1;
+    public static final int HEADER_LENGTH = 16;
+
+    private static final byte[] MAGIC = {'C', 'D', 'D'};
+    private static final byte KIND_CLINICAL_ATTRIBUTE_METADATA = 1;
+    private static final byte KIND_OVERRIDES = 2;
+    private static final byte KIND_DICTIONARY = 3;
+
+    // additional property value tags
+    private static final int TAG_NULL = 0;
+    private static final int TAG_STRING = 1;
+    private static final int TAG_TRUE = 2;
+    private static final int TAG_FALSE = 3;
+    private static final int TAG_INTEGER = 4;
+    private static final int TAG_LONG = 5;
+    private static final int TAG_DOUBLE = 6;
+    private static final int TAG_LIST = 7;
+    private static final int TAG_MAP = 8;
+
+    private ClinicalAttributeMetadataCodec() {}
+
+    /**
+    * Default attributes and study overrides as of one cache refresh.
+    */
+    public static final class Dictionary {
+        private final Date dateOfRefresh;
+        private final ArrayList<ClinicalAttributeMetadata> clinicalAttributeMetadata;
+        private final HashMap<String, ArrayList<ClinicalAttributeMetadata>> overrides;
+
+        public Dictionary(Date dateOfRefresh, ArrayList<ClinicalAttributeMetadata> clinicalAttributeMetadata,
+                HashMap<String, ArrayList<ClinicalAttributeMetadata>> overrides) {
+            this.dateOfRefresh = dateOfRefresh;
+            this.clinicalAttributeMetadata = clinicalAttributeMetadata;
+            this.overrides = overrides;
+        }
+
+        public Date getDateOfRefresh() {
+            return dateOfRefresh;
+        }
+
+        public ArrayList<ClinicalAttributeMetadata> getClinicalAttributeMetadata() {
+            return clinicalAttributeMetadata;
+        }
+
+        public HashMap<String, ArrayList<ClinicalAttributeMetadata>> getOverrides() {
+            return overrides;
+        }
+    }
+
+    public static byte[] encodeClinicalAttributeMetadata(Collection<ClinicalAttributeMetadata> clinicalAttributeMetadata) {
+        Encoder encoder = new Encoder();
+        encoder.writeClinicalAttributeMetadataList(clinicalAttributeMetadata);
+        return encoder.toByteArray(KIND_CLINICAL_ATTRIBUTE_METADATA);
+    }
+
+    public static ArrayList<ClinicalAttributeMetadata> decodeClinicalAttributeMetadata(ByteBuffer buffer) {
+        Decoder decoder = new Decoder(buffer, KIND_CLINICAL_ATTRIBUTE_METADATA);
+        try {
+            return decoder.finish(decoder.readClinicalAttributeMetadataList());
+        } catch (BufferUnderflowException | IndexOutOfBoundsException e) {
+            throw new IllegalArgumentException("Truncated clinical attribute metadata", e);
+        }
+    }
+
+    public static byte[] encodeOverrides(Map<String, ? extends Collection<ClinicalAttributeMetadata>> overrides) {
+        Encoder encoder = new Encoder();
+        encoder.writeOverrides(overrides);
+        return encoder.toByteArray(KIND_OVERRIDES);
+    }
+
+    public static HashMap<String, ArrayList<ClinicalAttributeMetadata>> decodeOverrides(ByteBuffer buffer) {
+        Decoder decoder = new Decoder(buffer, KIND_OVERRIDES);
+        try {
+            return decoder.finish(decoder.readOverrides());
+        } catch (BufferUnderflowException | IndexOutOfBoundsException e) {
+            throw new IllegalArgumentException("Truncated clinical attribute metadata overrides", e);
+        }
+    }
+
+    public static byte[] encodeDictionary(Date dateOfRefresh, Collection<ClinicalAttributeMetadata> clinicalAttributeMetadata,
+            Map<String, ? extends Collection<ClinicalAttributeMetadata>> overrides) {
+        Encoder encoder = new Encoder();
+        encoder.writeLong(dateOfRefresh.getTime());
+        encoder.writeClinicalAttributeMetadataList(clinicalAttributeMetadata);
+        encoder.writeOverrides(overrides);
+        return encoder.toByteArray(KIND_DICTIONARY);
+    }
+
+    public static Dictionary decodeDictionary(ByteBuffer buffer) {
+        Decoder decoder = new Decoder(buffer, KIND_DICTIONARY);
+        try {
+            Date dateOfRefresh = new Date(decoder.readLong());
+            ArrayList<ClinicalAttributeMetadata> clinicalAttributeMetadata = decoder.readClinicalAttributeMetadataList();
+            HashMap<String, ArrayList<ClinicalAttributeMetadata>> overrides = decoder.readOverrides();
+            return decoder.finish(new Dictionary(dateOfRefresh, clinicalAttributeMetadata, overrides));
+        } catch (BufferUnderflowException | IndexOutOfBoundsException e) {
+            throw new IllegalArgumentException("Truncated clinical data dictionary", e);
+        }
+    }
+
+    private static final class Encoder {
+        // string to its reference, references start at 1 so that 0 can stand for null
+        private final LinkedHashMap<String, Integer> stringTable = new LinkedHashMap<String, Integer>();
+        private final ByteArrayOutputStream body = new ByteArrayOutputStream(4096);
+
+        private void writeClinicalAttributeMetadataList(Collection<ClinicalAttributeMetadata> clinicalAttributeMetadata) {
+            writeVarint(body, clinicalAttributeMetadata.size());
+            for (ClinicalAttributeMetadata clinicalAttribute : clinicalAttributeMetadata) {
+                writeClinicalAttributeMetadata(clinicalAttribute);
+            }
+        }
+
+        private void writeOverrides(Map<String, ? extends Collection<ClinicalAttributeMetadata>> overrides) {
+            writeVarint(body, overrides.size());
+            for (Map.Entry<String, ? extends Collection<ClinicalAttributeMetadata>> entry : overrides.entrySet()) {
+                writeString(entry.getKey());
+                writeClinicalAttributeMetadataList(entry.getValue());
+            }
+        }
+
+        private void writeClinicalAttributeMetadata(ClinicalAttributeMetadata clinicalAttribute) {
+            writeString(clinicalAttribute.getStudyId());
+            writeString(clinicalAttribute.getColumnHeader());
+            writeString(clinicalAttribute.getDisplayName());
+            writeString(clinicalAttribute.getDescription());
+            writeString(clinicalAttribute.getDatatype());
+            writeString(clinicalAttribute.getAttributeType());
+            writeString(clinicalAttribute.getPriority());
+            Map<String, Object> additionalProperties = clinicalAttribute.getAdditionalProperties();
+            writeVarint(body, additionalProperties.size());
+            for (Map.Entry<String, Object> entry : additionalProperties.entrySet()) {
+                writeString(entry.getKey());
+                writeValue(entry.getValue());
+            }
+        }
+
+        private void writeValue(Object value) {
+            if (value == null) {
+                body.write(TAG_NULL);
+            } else if (value instanceof String) {
+                body.write(TAG_STRING);
+                writeString((String) value);
+            } else if (value instanceof Boolean) {
+                body.write((Boolean) value ? TAG_TRUE : TAG_FALSE);
+            } else if (value instanceof Integer) {
+                body.write(TAG_INTEGER);
+                int integer = (Integer) value;
+                writeVarint(body, (integer << 1) ^ (integer >> 31));
+            } else if (value instanceof Long) {
+                body.write(TAG_LONG);
+                writeLong((Long) value);
+            } else if (value instanceof Double) {
+                body.write(TAG_DOUBLE);
+                writeLong(Double.doubleToLongBits((Double) value));
+            } else if (value instanceof List) {
+                List<?> list = (List<?>) value;
+                body.write(TAG_LIST);
+                writeVarint(body, list.size());
+                for (Object element : list) {
+                    writeValue(element);
+                }
+            } else if (value instanceof Map) {
+                Map<?, ?> map = (Map<?, ?>) value;
+                body.write(TAG_MAP);
+                writeVarint(body, map.size());
+                for (Map.Entry<?, ?> entry : map.entrySet()) {
+                    writeString(String.valueOf(entry.getKey()));
+                    writeValue(entry.getValue());
+                }
+            } else {
+                // anything else parsed out of the repository json is written by its string form
+                body.write(TAG_STRING);
+                writeString(value.toString());
+            }
+        }
+
+        private void writeString(String value) {
+            if (value == null) {
+                writeVarint(body, 0);
+                return;
+            }
+            Integer reference = stringTable.get(value);
+            if (reference == null) {
+                reference = stringTable.size() + 1;
+                stringTable.put(value, reference);
+            }
+            writeVarint(body, reference);
+        }
+
+        private void writeLong(long value) {
+            for (int shift = 56; shift >= 0; shift -= 8) {
+                body.write((int) (value >>> shift));
+            }
+        }
+
+        private byte[] toByteArray(byte kind) {
+            ByteArrayOutputStream payload = new ByteArrayOutputStream(body.size() + stringTable.size() * 16);
+            writeVarint(payload, stringTable.size());
+            for (String value : stringTable.keySet()) {
+                byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+                writeVarint(payload, bytes.length);
+                payload.write(bytes, 0, bytes.length);
+            }
+            byte[] bodyBytes = body.toByteArray();
+            payload.write(bodyBytes, 0, bodyBytes.length);
+            byte[] payloadBytes = payload.toByteArray();
+            CRC32 crc = new CRC32();
+            crc.update(payloadBytes, 0, payloadBytes.length);
+            ByteBuffer encoded = ByteBuffer.allocate(HEADER_LENGTH + payloadBytes.length);
+            encoded.put(MAGIC).put((byte) FORMAT_VERSION).put(kind).put(new byte[3])
+                .putInt(payloadBytes.length).putInt((int) crc.getValue()).put(payloadBytes);
+            return encoded.array();
+        }
+    }
+
+    private static void writeVarint(ByteArrayOutputStream out, int value) {
+        while ((value & ~0x7F) != 0) {
+            out.write((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        out.write(value);
+    }
+
+    private static final class Decoder {
+        private final ByteBuffer payload;
+        private final String[] stringTable;
+
+        /**
+        * Checks the header and checksum and reads the string table. The buffer position is left after the encoded value.
+        */
+        private Decoder(ByteBuffer buffer, byte expectedKind) {
+            if (buffer.remaining() < HEADER_LENGTH) {
+                throw new IllegalArgumentException("Encoded value is shorter than its header");
+            }
+            for (byte magicByte : MAGIC) {
+                if (buffer.get() != magicByte) {
+                    throw new IllegalArgumentException("Not an encoded clinical attribute metadata value");
+                }
+            }
+            int formatVersion = buffer.get();
+            if (formatVersion != FORMAT_VERSION) {
+                throw new IllegalArgumentException("Unsupported format version " + formatVersion + ", expected " + FORMAT_VERSION);
+            }
+            byte kind = buffer.get();
+            if (kind != expectedKind) {
+                throw new IllegalArgumentException("Encoded value is of kind " + kind + ", expected " + expectedKind);
+            }
+            buffer.position(buffer.position() + 3);
+            int payloadLength = buffer.getInt();
+            int expectedCrc = buffer.getInt();
+            if (payloadLength < 0 || payloadLength > buffer.remaining()) {
+                throw new IllegalArgumentException("Encoded value is truncated, expected " + payloadLength + " bytes of payload");
+            }
+            payload = buffer.slice();
+            payload.limit(payloadLength);
+            buffer.position(buffer.position() + payloadLength);
+            CRC32 crc = new CRC32();
+            crc.update(payload.duplicate());
+            if ((int) crc.getValue() != expectedCrc) {
+                throw new IllegalArgumentException("Checksum mismatch, encoded value is corrupt");
+            }
+            try {
+                stringTable = new String[readVarint() + 1];
+                for (int reference = 1; reference < stringTable.length; reference++) {
+                    byte[] bytes = new byte[readVarint()];
+                    payload.get(bytes);
+                    stringTable[reference] = new String(bytes, StandardCharsets.UTF_8);
+                }
+            } catch (BufferUnderflowException | NegativeArraySizeException e) {
+                throw new IllegalArgumentException("Truncated string table", e);
+            }
+        }
+
+        private <T> T finish(T value) {
+            if (payload.hasRemaining()) {
+                throw new IllegalArgumentException(payload.remaining() + " unexpected bytes after the encoded value");
+            }
+            return value;
+        }
+
+        private ArrayList<ClinicalAttributeMetadata> readClinicalAttributeMetadataList() {
+            int size = readVarint();
+            ArrayList<ClinicalAttributeMetadata> clinicalAttributeMetadata = new ArrayList<ClinicalAttributeMetadata>(size);
+            for (int i = 0; i < size; i++) {
+                clinicalAttributeMetadata.add(readClinicalAttributeMetadata());
+            }
+            return clinicalAttributeMetadata;
+        }
+
+        private HashMap<String, ArrayList<ClinicalAttributeMetadata>> readOverrides() {
+            int size = readVarint();
+            HashMap<String, ArrayList<ClinicalAttributeMetadata>> overrides = new HashMap<String, ArrayList<ClinicalAttributeMetadata>>((int) (size / 0.75f) + 1);
+            for (int i = 0; i < size; i++) {
+                String cancerStudy = readString();
+                overrides.put(cancerStudy, readClinicalAttributeMetadataList());
+            }
+            return overrides;
+        }
+
+        private ClinicalAttributeMetadata readClinicalAttributeMetadata() {
+            String studyId = readString();
+            ClinicalAttributeMetadata clinicalAttribute = new ClinicalAttributeMetadata(readString(), readString(), readString(), readString(), readString(), readString());
+            clinicalAttribute.setStudyId(studyId);
+            int additionalPropertyCount = readVarint();
+            for (int i = 0; i < additionalPropertyCount; i++) {
+                String name = readString();
+                clinicalAttribute.setAdditionalProperty(name, readValue());
+            }
+            return clinicalAttribute;
+        }
+
+        private Object readValue() {
+            int tag = payload.get();
+            switch (tag) {
+                case TAG_NULL:
+                    return null;
+                case TAG_STRING:
+                    return readString();
+                case TAG_TRUE:
+                    return Boolean.TRUE;
+                case TAG_FALSE:
+                    return Boolean.FALSE;
+                case TAG_INTEGER:
+                    int zigZag = readVarint();
+                    return (zigZag >>> 1) ^ -(zigZag & 1);
+                case TAG_LONG:
+                    return readLong();
+                case TAG_DOUBLE:
+                    return Double.longBitsToDouble(readLong());
+                case TAG_LIST:
+                    int listSize = readVarint();
+                    ArrayList<Object> list = new ArrayList<Object>(listSize);
+                    for (int i = 0; i < listSize; i++) {
+                        list.add(readValue());
+                    }
+                    return list;
+                case TAG_MAP:
+                    int mapSize = readVarint();
+                    LinkedHashMap<String, Object> map = new LinkedHashMap<String, Object>();
+                    for (int i = 0; i < mapSize; i++) {
+                        String key = readString();
+                        map.put(key, readValue());
+                    }
+                    return map;
+                default:
+                    throw new IllegalArgumentException("Unknown value tag " + tag);
+            }
+        }
+
+        private String readString() {
+            // an out of range reference throws IndexOutOfBoundsException
+            return stringTable[readVarint()];
+        }
+
+        private long readLong() {
+            return payload.getLong();
+        }
+
+        private int readVarint() {
+            int value = 0;
+            for (int shift = 0; shift < 35; shift += 7) {
+                byte b = payload.get();
+                value |= (b & 0x7F) << shift;
+                if (b >= 0) {
+                    return value;
+                }
+            }
+            throw new IllegalArgumentException("Malformed varint");
+        }
+    }
+
+}
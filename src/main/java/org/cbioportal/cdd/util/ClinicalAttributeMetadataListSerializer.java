@@ -0,0 +1,41 @@
+/*
+ * Copyright (c) 2026 Memorial Sloan-Kettering Cancer Center.
+ *
+ * This library is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY, WITHOUT EVEN THE IMPLIED WARRANTY OF MERCHANTABILITY OR FITNESS
+ * FOR A PARTICULAR PURPOSE. The software and documentation provided hereunder
+ * is on an "as is" basis, and Memorial Sloan-Kettering Cancer Center has no
+ * obligations to provide maintenance, support, updates, enhancements or
+ * modifications. In no event shall Memorial Sloan-Kettering Cancer Center be
+ * liable to any party for direct, indirect, special, incidental or
+ * consequential damages, including lost profits, arising out of the use of this
+ * software and its documentation, even if Memorial Sloan-Kettering Cancer
+ * Center has been advised of the possibility of such damage.
+ */
+
+package org.cbioportal.cdd.util;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import org.cbioportal.cdd.model.ClinicalAttributeMetadata;
+
+/**
+ * Ehcache serializer for the list of default clinical attribute metadata (clinicalAttributeMetadataEHCache).
+ */
+public class ClinicalAttributeMetadataListSerializer extends AbstractClinicalAttributeMetadataSerializer<ArrayList<ClinicalAttributeMetadata>> {
+
+    public ClinicalAttributeMetadataListSerializer(ClassLoader classLoader) {
+        super(classLoader);
+    }
+
+    @Override
+    protected byte[] encode(ArrayList<ClinicalAttributeMetadata> clinicalAttributeMetadata) {
+        return ClinicalAttributeMetadataCodec.encodeClinicalAttributeMetadata(clinicalAttributeMetadata);
+    }
+
+    @Override
+    protected ArrayList<ClinicalAttributeMetadata> decode(ByteBuffer buffer) {
+        return ClinicalAttributeMetadataCodec.decodeClinicalAttributeMetadata(buffer);
+    }
+
+}
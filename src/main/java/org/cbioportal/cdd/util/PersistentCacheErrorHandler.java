@@ -0,0 +1,42 @@
+/*
+ * Copyright (c) 2026 Memorial Sloan-Kettering Cancer Center.
+ *
+ * This library is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY, WITHOUT EVEN THE IMPLIED WARRANTY OF MERCHANTABILITY OR FITNESS
+ * FOR A PARTICULAR PURPOSE. The software and documentation provided hereunder
+ * is on an "as is" basis, and Memorial Sloan-Kettering Cancer Center has no
+ * obligations to provide maintenance, support, updates, enhancements or
+ * modifications. In no event shall Memorial Sloan-Kettering Cancer Center be
+ * liable to any party for direct, indirect, special, incidental or
+ * consequential damages, including lost profits, arising out of the use of this
+ * software and its documentation, even if Memorial Sloan-Kettering Cancer
+ * Center has been advised of the possibility of such damage.
+ */
+
+package org.cbioportal.cdd.util;
+
+import org.ehcache.spi.serialization.SerializerException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.cache.Cache;
+import org.springframework.cache.interceptor.SimpleCacheErrorHandler;
+
+/**
+ * Treats a persistent store entry which cannot be deserialized as a cache miss: the entry is evicted and the
+ * cached method runs as if nothing had been stored. Other cache errors are rethrown as before.
+ */
+public class PersistentCacheErrorHandler extends SimpleCacheErrorHandler {
+
+    private final static Logger logger = LoggerFactory.getLogger(PersistentCacheErrorHandler.class);
+
+    @Override
+    public void handleCacheGetError(RuntimeException exception, Cache cache, Object key) {
+        if (!(exception instanceof SerializerException)) {
+            super.handleCacheGetError(exception, cache, key);
+            return;
+        }
+        logger.error("handleCacheGetError(): discarding unreadable entry '" + key + "' of cache " + cache.getName() + ": " + exception.getMessage());
+        cache.evict(key);
+    }
+
+}
@@ -0,0 +1,117 @@
+/*
+ * Copyright (c) 2026 Memorial Sloan-Kettering Cancer Center.
+ *
+ * This library is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY, WITHOUT EVEN THE IMPLIED WARRANTY OF MERCHANTABILITY OR FITNESS
+ * FOR A PARTICULAR PURPOSE. The software and documentation provided hereunder
+ * is on an "as is" basis, and Memorial Sloan-Kettering Cancer Center has no
+ * obligations to provide maintenance, support, updates, enhancements or
+ * modifications. In no event shall Memorial Sloan-Kettering Cancer Center be
+ * liable to any party for direct, indirect, special, incidental or
+ * consequential damages, including lost profits, arising out of the use of this
+ * software and its documentation, even if Memorial Sloan-Kettering Cancer
+ * Center has been advised of the possibility of such damage.
+ */
+
+package org.cbioportal.cdd.web;
+
+import com.fasterxml.jackson.annotation.JsonFilter;
+import com.fasterxml.jackson.annotation.JsonPropertyOrder;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.ser.impl.SimpleBeanPropertyFilter;
+import com.fasterxml.jackson.databind.ser.impl.SimpleFilterProvider;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import javax.annotation.PostConstruct;
+import org.cbioportal.cdd.model.ClinicalAttributeMetadata;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.cbor.MappingJackson2CborHttpMessageConverter;
+import org.springframework.http.converter.smile.MappingJackson2SmileHttpMessageConverter;
+import org.springframework.stereotype.Component;
+
+/**
+ * Writers which serialize only a requested subset of the ClinicalAttributeMetadata properties (the fields= parameter),
+ * wherever metadata appears in a response body. Projection uses copies of the JSON, Smile and CBOR mappers with
+ * a property filter mixed in to ClinicalAttributeMetadata, so the shared mappers are left untouched, and one
+ * writer is built per media type and field set and then reused.
+ */
+@Component
+public class ClinicalAttributeMetadataProjection {
+
+    private static final String FILTER_ID = "clinicalAttributeMetadataFields";
+
+    // the serialized property names, kept in step with the model by reading its property order
+    public static final Set<String> PROJECTABLE_FIELDS = Collections.unmodifiableSet(new LinkedHashSet<String>(
+        Arrays.asList(ClinicalAttributeMetadata.class.getAnnotation(JsonPropertyOrder.class).value())));
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private MappingJackson2SmileHttpMessageConverter smileHttpMessageConverter;
+
+    @Autowired
+    private MappingJackson2CborHttpMessageConverter cborHttpMessageConverter;
+
+    private Map<MediaType, ObjectMapper> projectingMappers;
+    private final Map<String, ObjectWriter> writers = new ConcurrentHashMap<String, ObjectWriter>();
+
+    @JsonFilter(FILTER_ID)
+    private abstract static class ProjectionMixin {}
+
+    @PostConstruct
+    public void initializeMappers() {
+        Map<MediaType, ObjectMapper> latestProjectingMappers = new HashMap<MediaType, ObjectMapper>();
+        latestProjectingMappers.put(MediaType.APPLICATION_JSON, withProjection(objectMapper));
+        for (MediaType mediaType : smileHttpMessageConverter.getSupportedMediaTypes()) {
+            latestProjectingMappers.put(mediaType, withProjection(smileHttpMessageConverter.getObjectMapper()));
+        }
+        for (MediaType mediaType : cborHttpMessageConverter.getSupportedMediaTypes()) {
+            latestProjectingMappers.put(mediaType, withProjection(cborHttpMessageConverter.getObjectMapper()));
+        }
+        projectingMappers = latestProjectingMappers;
+    }
+
+    private static ObjectMapper withProjection(ObjectMapper mapper) {
+        return mapper.copy().addMixIn(ClinicalAttributeMetadata.class, ProjectionMixin.class);
+    }
+
+    /**
+    * Parses the fields= parameter (names may also be comma separated within one value) into a sorted set.
+    * Returns null, meaning no projection, if fields is null or empty.
+    */
+    public SortedSet<String> parseFields(List<String> fields) {
+        if (fields == null || fields.isEmpty()) {
+            return null;
+        }
+        TreeSet<String> parsedFields = new TreeSet<String>();
+        for (String field : fields) {
+            for (String fieldName : field.split(",")) {
+                fieldName = fieldName.trim();
+                if (fieldName.isEmpty()) {
+                    continue;
+                }
+                if (!PROJECTABLE_FIELDS.contains(fieldName)) {
+                    throw new IllegalArgumentException("Unknown field '" + fieldName + "', fields must be among " + PROJECTABLE_FIELDS);
+                }
+                parsedFields.add(fieldName);
+            }
+        }
+        return parsedFields.isEmpty() ? null : parsedFields;
+    }
+
+    /**
+    * Returns the writer for mediaType (JSON, Smile or CBOR) which only writes the given ClinicalAttributeMetadata properties.
+    */
+    public ObjectWriter getWriter(MediaType mediaType, SortedSet<String> fields) {
+        ObjectMapper projectingMapper = projectingMappers.get(new MediaType(mediaType.getType(), mediaType.getSubtype()));
+        if (projectingMapper == null) {
+            throw new IllegalArgumentException("Field projection is not supported for " + mediaType);
+        }
+        return writers.computeIfAbsent(mediaType.getType() + "/" + mediaType.getSubtype() + ":" + fields, k -> projectingMapper.writer(
+            new SimpleFilterProvider().addFilter(FILTER_ID, SimpleBeanPropertyFilter.filterOutAllExcept(new HashSet<String>(fields)))));
+    }
+
+}
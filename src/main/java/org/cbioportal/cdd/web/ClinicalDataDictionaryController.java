@@ -15,6 +15,13 @@
 
 package org.cbioportal.cdd.web;
 
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
 import io.swagger.annotations.Api;
 import io.swagger.annotations.ApiOperation;
 import io.swagger.annotations.ApiParam;
@@ -22,24 +29,45 @@ import io.swagger.annotations.ApiResponse;
 import io.swagger.annotations.ApiResponses;
 import springfox.documentation.annotations.ApiIgnore;
 
+import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 
 import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
 import java.util.List;
 import java.util.Map;
+import java.util.SortedSet;
+import java.util.concurrent.TimeUnit;
 
+import org.cbioportal.cdd.model.CacheRefreshJob;
+import org.cbioportal.cdd.model.CacheStatistics;
 import org.cbioportal.cdd.model.ClinicalAttributeMetadata;
 import org.cbioportal.cdd.model.CancerStudy;
-import org.cbioportal.cdd.service.ClinicalDataDictionaryService;
+import org.cbioportal.cdd.model.ColumnHeaderResolution;
+import org.cbioportal.cdd.model.DictionaryChangeSet;
+import org.cbioportal.cdd.model.MultiStudyMetadata;
+import org.cbioportal.cdd.model.MultiStudyMetadataRequest;
+import org.cbioportal.cdd.model.StudyClinicalAttributeMetadata;
+import org.cbioportal.cdd.model.VersionedResult;
+import org.cbioportal.cdd.service.KnowledgeSystemsDictionaryService;
 import org.cbioportal.cdd.service.exception.ClinicalAttributeNotFoundException;
 import org.cbioportal.cdd.service.exception.ClinicalMetadataSourceUnresponsiveException;
 import org.cbioportal.cdd.service.exception.CancerStudyNotFoundException;
+import org.cbioportal.cdd.service.exception.DictionaryVersionNotFoundException;
 import org.cbioportal.cdd.service.exception.FailedCacheRefreshException;
+import org.cbioportal.cdd.service.internal.ClinicalAttributeMetadataCache;
 
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.scheduling.support.CronSequenceGenerator;
 import org.springframework.web.bind.annotation.*;
 
 /**
@@ -53,7 +81,31 @@ public class ClinicalDataDictionaryController {
 
     @Autowired
     @Qualifier("servicerouter")
-    private ClinicalDataDictionaryService clinicalAttributesService;
+    private KnowledgeSystemsDictionaryService clinicalAttributesService;
+
+    @Autowired
+    private RenderedResponseCache renderedResponseCache;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private ClinicalAttributeMetadataProjection clinicalAttributeMetadataProjection;
+
+    public static final String NDJSON_MEDIA_TYPE = "application/x-ndjson";
+    public static final String SMILE_MEDIA_TYPE_VALUE = "application/x-jackson-smile";
+    public static final String CBOR_MEDIA_TYPE_VALUE = "application/cbor";
+    // the dictionary version a response was built from, to be passed as since= to /changes
+    public static final String DICTIONARY_VERSION_HEADER = "CDD-Dictionary-Version";
+    // rendered responses are negotiated on media type and content coding
+    private static final String RENDERED_RESPONSE_VARY = HttpHeaders.ACCEPT + ", " + HttpHeaders.ACCEPT_ENCODING;
+    // representations of the list endpoints, in order of preference when the client accepts several equally
+    public static final List<MediaType> RENDERED_MEDIA_TYPES = Collections.unmodifiableList(Arrays.asList(
+        MediaType.APPLICATION_JSON, MediaType.parseMediaType(SMILE_MEDIA_TYPE_VALUE), MediaType.parseMediaType(CBOR_MEDIA_TYPE_VALUE)));
+    private static final int NDJSON_LINES_PER_FLUSH = 256;
+
+    // cached responses stay fresh until the next scheduled cache validation
+    private static final CronSequenceGenerator cacheValidationSchedule = new CronSequenceGenerator(ClinicalAttributeMetadataCache.CACHE_VALIDATION_CRON);
 
     @ApiOperation(value = "Get metadata for all clinical attributes", response = ClinicalAttributeMetadata.class, responseContainer = "List")
     @ApiResponses(value = {
@@ -62,11 +114,105 @@ public class ClinicalDataDictionaryController {
         @ApiResponse(code = 503, message = "Clinical attribute metadata source unavailable")
         }
     )
-    @RequestMapping(method = RequestMethod.GET, value="/", produces = MediaType.APPLICATION_JSON_VALUE)
-    public Iterable<ClinicalAttributeMetadata> getClinicalAttributeMetadata(
+    @RequestMapping(method = RequestMethod.GET, value="/", produces = {MediaType.APPLICATION_JSON_VALUE, SMILE_MEDIA_TYPE_VALUE, CBOR_MEDIA_TYPE_VALUE})
+    public ResponseEntity<byte[]> getClinicalAttributeMetadata(
+        @ApiParam(value = "Cancer study name e.g. mskimpact")
+        @RequestParam(value = "cancerStudy", required = false) String cancerStudyName,
+        @ApiParam(value = "Only include these clinical attribute properties, e.g. column_header,datatype")
+        @RequestParam(value = "fields", required = false) List<String> fields,
+        @ApiIgnore HttpServletRequest request) {
+        boolean gzip = acceptsGzip(request);
+        MediaType mediaType = selectRenderedMediaType(request);
+        SortedSet<String> projectedFields = clinicalAttributeMetadataProjection.parseFields(fields);
+        // each media type, field set and content encoding is a different representation, so they get different strong validators
+        String[] representation = {"getClinicalAttributeMetadata", cancerStudyName, mediaType.toString(), String.valueOf(projectedFields), gzip ? "gzip" : "identity"};
+        VersionedResult<Void> currentVersion = clinicalAttributesService.getMetadataVersion(cancerStudyName);
+        String currentEntityTag = entityTag(currentVersion.getResultVersion(), representation);
+        if (isNotModified(request, currentEntityTag)) {
+            return notModifiedResponseEntity(currentEntityTag, currentVersion, RENDERED_RESPONSE_VARY);
+        }
+        // the validator, the cached rendering and the body all come from this one lookup, so they describe the same snapshot
+        // even if a refresh was published since the version check
+        VersionedResult<List<ClinicalAttributeMetadata>> clinicalAttributes = clinicalAttributesService.getClinicalAttributeMetadata(cancerStudyName);
+        String entityTag = entityTag(clinicalAttributes.getResultVersion(), representation);
+        // the full dictionary is serialized once per dictionary version, media type and field set and written out as is
+        String renderedResponseKey = "getClinicalAttributeMetadata:" + (cancerStudyName == null ? "" : cancerStudyName);
+        RenderedResponseCache.RenderedResponse renderedResponse = renderedResponseCache.getRenderedResponse(clinicalAttributes.getResultVersion(),
+            renderedResponseKey, mediaType, projectedFields, clinicalAttributes::getResult);
+        ResponseEntity.BodyBuilder responseBuilder = okResponseBuilder(entityTag, clinicalAttributes)
+            .contentType(responseContentType(mediaType))
+            .header(HttpHeaders.VARY, RENDERED_RESPONSE_VARY);
+        if (gzip) {
+            return responseBuilder.header(HttpHeaders.CONTENT_ENCODING, "gzip").body(renderedResponse.getGzip());
+        }
+        return responseBuilder.body(renderedResponse.getIdentity());
+    }
+
+    @ApiOperation(value = "Stream metadata for all clinical attributes as newline delimited JSON, one attribute per line", response = ClinicalAttributeMetadata.class, responseContainer = "List")
+    @ApiResponses(value = {
+        @ApiResponse(code = 200, message = "Successfully streamed clinical attributes"),
+        @ApiResponse(code = 404, message = "Could not find cancer study"),
+        @ApiResponse(code = 503, message = "Clinical attribute metadata source unavailable")
+        }
+    )
+    @RequestMapping(method = RequestMethod.GET, value="/", params = "format=ndjson", produces = NDJSON_MEDIA_TYPE)
+    public void streamClinicalAttributeMetadata(
         @ApiParam(value = "Cancer study name e.g. mskimpact")
-        @RequestParam(value = "cancerStudy", required = false) String cancerStudyName) {
-        return clinicalAttributesService.getClinicalAttributeMetadata(cancerStudyName);
+        @RequestParam(value = "cancerStudy", required = false) String cancerStudyName,
+        @ApiParam(value = "Stream the metadata of every cancer study, each line with a study_id (cancerStudy is ignored)")
+        @RequestParam(value = "allStudies", defaultValue = "false") boolean allStudies,
+        @ApiParam(value = "Only include these clinical attribute properties, e.g. column_header,datatype")
+        @RequestParam(value = "fields", required = false) List<String> fields,
+        @ApiIgnore HttpServletRequest request,
+        @ApiIgnore HttpServletResponse response) throws IOException {
+        SortedSet<String> projectedFields = clinicalAttributeMetadataProjection.parseFields(fields);
+        String[] representation = {"streamClinicalAttributeMetadata", allStudies ? null : cancerStudyName, String.valueOf(allStudies), String.valueOf(projectedFields)};
+        VersionedResult<Void> currentVersion = clinicalAttributesService.getMetadataVersion(allStudies ? null : cancerStudyName);
+        String currentEntityTag = entityTag(currentVersion.getResultVersion(), representation);
+        if (isNotModified(request, currentEntityTag)) {
+            setValidatorHeaders(response, currentEntityTag, currentVersion);
+            response.setStatus(HttpStatus.NOT_MODIFIED.value());
+            return;
+        }
+        // look everything up before the first byte is written, so lookup errors still get an error status
+        VersionedResult<Map<String, List<ClinicalAttributeMetadata>>> studyViews = null;
+        VersionedResult<List<ClinicalAttributeMetadata>> clinicalAttributes = null;
+        if (allStudies) {
+            studyViews = clinicalAttributesService.getClinicalAttributeMetadataForAllCancerStudies();
+        } else {
+            clinicalAttributes = clinicalAttributesService.getClinicalAttributeMetadata(cancerStudyName);
+        }
+        VersionedResult<?> streamedResult = allStudies ? studyViews : clinicalAttributes;
+        setValidatorHeaders(response, entityTag(streamedResult.getResultVersion(), representation), streamedResult);
+        response.setContentType(NDJSON_MEDIA_TYPE);
+        response.setCharacterEncoding("UTF-8");
+        // the writer must not flush after every value, lines are flushed in batches below
+        ObjectWriter writer = (projectedFields == null ? objectMapper.writer() : clinicalAttributeMetadataProjection.getWriter(MediaType.APPLICATION_JSON, projectedFields))
+            .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+        try (JsonGenerator generator = objectMapper.getFactory().createGenerator(response.getOutputStream())) {
+            generator.setRootValueSeparator(null);
+            int lineCount = 0;
+            if (allStudies) {
+                for (Map.Entry<String, List<ClinicalAttributeMetadata>> studyView : studyViews.getResult().entrySet()) {
+                    for (ClinicalAttributeMetadata clinicalAttributeMetadata : studyView.getValue()) {
+                        writer.writeValue(generator, new StudyClinicalAttributeMetadata(studyView.getKey(), clinicalAttributeMetadata));
+                        writeLineEnd(generator, ++lineCount);
+                    }
+                }
+            } else {
+                for (ClinicalAttributeMetadata clinicalAttributeMetadata : clinicalAttributes.getResult()) {
+                    writer.writeValue(generator, clinicalAttributeMetadata);
+                    writeLineEnd(generator, ++lineCount);
+                }
+            }
+        }
+    }
+
+    private void writeLineEnd(JsonGenerator generator, int lineCount) throws IOException {
+        generator.writeRaw('\n');
+        if (lineCount % NDJSON_LINES_PER_FLUSH == 0) {
+            generator.flush();
+        }
     }
 
     @ApiOperation(value = "Get metadata for a list of clinical attributes", response = ClinicalAttributeMetadata.class, responseContainer = "List")
@@ -77,13 +223,63 @@ public class ClinicalDataDictionaryController {
         @ApiResponse(code = 503, message = "Clinical attribute metadata source unavailable")
         }
     )
-    @RequestMapping(method = RequestMethod.POST, value="/", consumes = MediaType.APPLICATION_JSON_VALUE, produces = MediaType.APPLICATION_JSON_VALUE)
-    public Iterable<ClinicalAttributeMetadata> getClinicalAttributeMetadata(
+    @RequestMapping(method = RequestMethod.POST, value="/", consumes = MediaType.APPLICATION_JSON_VALUE, produces = {MediaType.APPLICATION_JSON_VALUE, SMILE_MEDIA_TYPE_VALUE, CBOR_MEDIA_TYPE_VALUE})
+    public ResponseEntity<?> getClinicalAttributeMetadata(
+        @ApiParam(value = "Cancer study name e.g. mskimpact")
+        @RequestParam(value = "cancerStudy", required = false) String cancerStudyName,
+        @ApiParam(value = "Only include these clinical attribute properties, e.g. column_header,datatype")
+        @RequestParam(value = "fields", required = false) List<String> fields,
+        @ApiParam(value = "List of column headers to retrieve clinical attribute metadata for. For example: [\"PATIENT_ID\", \"SAMPLE_ID\", \"CANCER_TYPE\"]")
+        @RequestBody(required = true) List<String> columnHeaders,
+        @ApiIgnore HttpServletRequest request) {
+        SortedSet<String> projectedFields = clinicalAttributeMetadataProjection.parseFields(fields);
+        VersionedResult<List<ClinicalAttributeMetadata>> clinicalAttributes = clinicalAttributesService.getMetadataByColumnHeaders(cancerStudyName, columnHeaders);
+        return projectedResponse(okResponseBuilder(null, clinicalAttributes), clinicalAttributes.getResult(), projectedFields, request);
+    }
+
+    @ApiOperation(value = "Get metadata for the clinical attributes in a list which exist, and suggestions for the column headers which do not", response = ColumnHeaderResolution.class)
+    @ApiResponses(value = {
+        @ApiResponse(code = 200, message = "Successfully resolved list of column headers, some of which may be unresolved"),
+        @ApiResponse(code = 400, message = "Bad request"),
+        @ApiResponse(code = 404, message = "Could not find cancer study"),
+        @ApiResponse(code = 503, message = "Clinical attribute metadata source unavailable")
+        }
+    )
+    @RequestMapping(method = RequestMethod.POST, value="/", params = "partial=true", consumes = MediaType.APPLICATION_JSON_VALUE, produces = {MediaType.APPLICATION_JSON_VALUE, SMILE_MEDIA_TYPE_VALUE, CBOR_MEDIA_TYPE_VALUE})
+    public ResponseEntity<?> resolveColumnHeaders(
         @ApiParam(value = "Cancer study name e.g. mskimpact")
         @RequestParam(value = "cancerStudy", required = false) String cancerStudyName,
+        @ApiParam(value = "Return found attributes and unresolved column headers instead of 404 when any column header is not found", allowableValues = "true")
+        @RequestParam(value = "partial") boolean partial,
+        @ApiParam(value = "Only include these clinical attribute properties, e.g. column_header,datatype")
+        @RequestParam(value = "fields", required = false) List<String> fields,
         @ApiParam(value = "List of column headers to retrieve clinical attribute metadata for. For example: [\"PATIENT_ID\", \"SAMPLE_ID\", \"CANCER_TYPE\"]")
-        @RequestBody(required = true) List<String> columnHeaders) {
-        return clinicalAttributesService.getMetadataByColumnHeaders(cancerStudyName, columnHeaders);
+        @RequestBody(required = true) List<String> columnHeaders,
+        @ApiIgnore HttpServletRequest request) {
+        SortedSet<String> projectedFields = clinicalAttributeMetadataProjection.parseFields(fields);
+        VersionedResult<ColumnHeaderResolution> columnHeaderResolution = clinicalAttributesService.resolveColumnHeaders(cancerStudyName, columnHeaders);
+        return projectedResponse(okResponseBuilder(null, columnHeaderResolution), columnHeaderResolution.getResult(), projectedFields, request);
+    }
+
+    @ApiOperation(value = "Get metadata for a list of clinical attributes in several cancer studies at once", response = MultiStudyMetadata.class)
+    @ApiResponses(value = {
+        @ApiResponse(code = 200, message = "Successfully retrieved clinical attributes for every cancer study, some column headers may be unresolved"),
+        @ApiResponse(code = 400, message = "Bad request"),
+        @ApiResponse(code = 404, message = "Could not find cancer study"),
+        @ApiResponse(code = 503, message = "Clinical attribute metadata source unavailable")
+        }
+    )
+    @RequestMapping(method = RequestMethod.POST, value="/studies", consumes = MediaType.APPLICATION_JSON_VALUE, produces = {MediaType.APPLICATION_JSON_VALUE, SMILE_MEDIA_TYPE_VALUE, CBOR_MEDIA_TYPE_VALUE})
+    public ResponseEntity<?> getClinicalAttributeMetadataForCancerStudies(
+        @ApiParam(value = "Only include these clinical attribute properties, e.g. column_header,datatype")
+        @RequestParam(value = "fields", required = false) List<String> fields,
+        @ApiParam(value = "Cancer studies and column headers. For example: {\"cancer_studies\": [\"mskimpact\", \"msk_solid_heme\"], \"column_headers\": [\"PATIENT_ID\", \"SAMPLE_ID\"]}")
+        @RequestBody(required = true) MultiStudyMetadataRequest multiStudyMetadataRequest,
+        @ApiIgnore HttpServletRequest request) {
+        SortedSet<String> projectedFields = clinicalAttributeMetadataProjection.parseFields(fields);
+        VersionedResult<MultiStudyMetadata> multiStudyMetadata = clinicalAttributesService.getMetadataForCancerStudies(multiStudyMetadataRequest.getCancerStudies(),
+            multiStudyMetadataRequest.getColumnHeaders());
+        return projectedResponse(okResponseBuilder(null, multiStudyMetadata), multiStudyMetadata.getResult(), projectedFields, request);
     }
 
     @ApiOperation(value = "Get metadata for a search term", response = ClinicalAttributeMetadata.class, responseContainer = "List")
@@ -94,15 +290,63 @@ public class ClinicalDataDictionaryController {
         @ApiResponse(code = 503, message = "Clinical attribute metadata source unavailable")
         }
     )
-    @RequestMapping(method = RequestMethod.POST, value="/search", consumes = MediaType.APPLICATION_JSON_VALUE, produces = MediaType.APPLICATION_JSON_VALUE)
-    public Iterable<ClinicalAttributeMetadata> getClinicalAttributeMetadataBySearchTerms(
+    @RequestMapping(method = RequestMethod.POST, value="/search", consumes = MediaType.APPLICATION_JSON_VALUE, produces = {MediaType.APPLICATION_JSON_VALUE, SMILE_MEDIA_TYPE_VALUE, CBOR_MEDIA_TYPE_VALUE})
+    public ResponseEntity<?> getClinicalAttributeMetadataBySearchTerms(
         @ApiParam(value = "Attribute type e.g. PATIENT or SAMPLE")
         @RequestParam(value = "attributeType", required = false) String attributeType,
         @ApiParam(value = "Inclusive search - all search terms must be present when searching")
         @RequestParam(value = "inclusiveSearch", defaultValue = "false", required = true) boolean inclusiveSearch,
+        @ApiParam(value = "Number of best matches to skip (for paging)")
+        @RequestParam(value = "offset", defaultValue = "0") int offset,
+        @ApiParam(value = "Maximum number of matches to return, all matches are returned if not set")
+        @RequestParam(value = "limit", required = false) Integer limit,
+        @ApiParam(value = "Fuzzy search - match column headers and display names within maxEditDistance of a search term instead of substrings")
+        @RequestParam(value = "fuzzy", defaultValue = "false") boolean fuzzy,
+        @ApiParam(value = "Maximum edit distance for fuzzy search (0 to 3)")
+        @RequestParam(value = "maxEditDistance", defaultValue = "2") int maxEditDistance,
+        @ApiParam(value = "Only include these clinical attribute properties, e.g. column_header,datatype")
+        @RequestParam(value = "fields", required = false) List<String> fields,
         @ApiParam(value = "List of search terms that may be present in the description, display name, or column header. For example: [\"TMB\", \"mutation burden\"]")
-        @RequestBody(required = true) List<String> searchTerms) {
-        return clinicalAttributesService.getMetadataBySearchTerms(searchTerms, attributeType, inclusiveSearch);
+        @RequestBody(required = true) List<String> searchTerms,
+        @ApiIgnore HttpServletRequest request) {
+        SortedSet<String> projectedFields = clinicalAttributeMetadataProjection.parseFields(fields);
+        VersionedResult<List<ClinicalAttributeMetadata>> clinicalAttributes;
+        if (fuzzy) {
+            clinicalAttributes = clinicalAttributesService.getMetadataByFuzzySearchTerms(searchTerms, attributeType, inclusiveSearch, maxEditDistance, offset, limit);
+        } else {
+            clinicalAttributes = clinicalAttributesService.getMetadataBySearchTerms(searchTerms, attributeType, inclusiveSearch, offset, limit);
+        }
+        return projectedResponse(okResponseBuilder(null, clinicalAttributes), clinicalAttributes.getResult(), projectedFields, request);
+    }
+
+    @ApiOperation(value = "Get the highest priority clinical attributes with a column header or display name starting with a prefix", response = ClinicalAttributeMetadata.class, responseContainer = "List")
+    @ApiResponses(value = {
+        @ApiResponse(code = 200, message = "Successfully retrieved list of suggested clinical attributes, which may be empty"),
+        @ApiResponse(code = 400, message = "Bad request"),
+        @ApiResponse(code = 503, message = "Clinical attribute metadata source unavailable")
+        }
+    )
+    @RequestMapping(method = RequestMethod.GET, value = "/suggest", produces = {MediaType.APPLICATION_JSON_VALUE, SMILE_MEDIA_TYPE_VALUE, CBOR_MEDIA_TYPE_VALUE})
+    public ResponseEntity<?> getClinicalAttributeMetadataSuggestions(
+        @ApiParam(value = "Case insensitive prefix of a column header or display name e.g. diag")
+        @RequestParam(value = "prefix", required = true) String prefix,
+        @ApiParam(value = "Maximum number of suggestions to return (1 to 100)")
+        @RequestParam(value = "limit", defaultValue = "10") int limit,
+        @ApiParam(value = "Only include these clinical attribute properties, e.g. column_header,datatype")
+        @RequestParam(value = "fields", required = false) List<String> fields,
+        @ApiIgnore HttpServletRequest request) {
+        SortedSet<String> projectedFields = clinicalAttributeMetadataProjection.parseFields(fields);
+        // autocomplete asks again on every keystroke, so repeated prefixes are answered from the client cache or with a 304
+        String[] representation = {"getClinicalAttributeMetadataSuggestions", prefix, String.valueOf(limit), String.valueOf(projectedFields),
+            selectRenderedMediaType(request).toString()};
+        VersionedResult<Void> currentVersion = clinicalAttributesService.getSearchVersion();
+        String currentEntityTag = entityTag(currentVersion.getResultVersion(), representation);
+        if (isNotModified(request, currentEntityTag)) {
+            return notModifiedResponseEntity(currentEntityTag, currentVersion, HttpHeaders.ACCEPT);
+        }
+        VersionedResult<List<ClinicalAttributeMetadata>> suggestions = clinicalAttributesService.getMetadataSuggestions(prefix, limit);
+        String entityTag = entityTag(suggestions.getResultVersion(), representation);
+        return projectedResponse(okResponseBuilder(entityTag, suggestions).header(HttpHeaders.VARY, HttpHeaders.ACCEPT), suggestions.getResult(), projectedFields, request);
     }
 
     @ApiOperation(value = "Get metadata for one clinical attribute", response = ClinicalAttributeMetadata.class)
@@ -113,12 +357,24 @@ public class ClinicalDataDictionaryController {
         }
     )
     @RequestMapping(value = "/{columnHeader}", method = RequestMethod.GET, produces = MediaType.APPLICATION_JSON_VALUE)
-    public ClinicalAttributeMetadata getClinicalAttribute(
+    public ResponseEntity<?> getClinicalAttribute(
         @ApiParam(value = "Cancer study name e.g. mskimpact")
         @RequestParam(value = "cancerStudy", required = false) String cancerStudyName,
         @ApiParam(value = "Column header to retrieve clinical attribute metadata for")
-        @PathVariable(required = true) String columnHeader) {
-        return clinicalAttributesService.getMetadataByColumnHeader(cancerStudyName, columnHeader);
+        @PathVariable(required = true) String columnHeader,
+        @ApiParam(value = "Only include these clinical attribute properties, e.g. column_header,datatype")
+        @RequestParam(value = "fields", required = false) List<String> fields,
+        @ApiIgnore HttpServletRequest request) {
+        SortedSet<String> projectedFields = clinicalAttributeMetadataProjection.parseFields(fields);
+        String[] representation = {"getClinicalAttribute", cancerStudyName, columnHeader.toUpperCase(), String.valueOf(projectedFields)};
+        VersionedResult<Void> currentVersion = clinicalAttributesService.getMetadataVersion(cancerStudyName);
+        String currentEntityTag = entityTag(currentVersion.getResultVersion(), representation);
+        if (isNotModified(request, currentEntityTag)) {
+            return notModifiedResponseEntity(currentEntityTag, currentVersion, null);
+        }
+        VersionedResult<ClinicalAttributeMetadata> clinicalAttribute = clinicalAttributesService.getMetadataByColumnHeader(cancerStudyName, columnHeader);
+        String entityTag = entityTag(clinicalAttribute.getResultVersion(), representation);
+        return projectedResponse(okResponseBuilder(entityTag, clinicalAttribute), clinicalAttribute.getResult(), projectedFields, request);
     }
 
     @ApiOperation(value = "Get all cancer studies", response = CancerStudy.class, responseContainer = "List")
@@ -127,21 +383,234 @@ public class ClinicalDataDictionaryController {
         @ApiResponse(code = 503, message = "Clinical attribute metadata source unavailable")
         }
     )
-    @RequestMapping(method = RequestMethod.GET, value = "/cancerStudies", produces = MediaType.APPLICATION_JSON_VALUE)
-    public Iterable<CancerStudy> getCancerStudies() {
-        return clinicalAttributesService.getCancerStudies();
+    @RequestMapping(method = RequestMethod.GET, value = "/cancerStudies", produces = {MediaType.APPLICATION_JSON_VALUE, SMILE_MEDIA_TYPE_VALUE, CBOR_MEDIA_TYPE_VALUE})
+    public ResponseEntity<Iterable<CancerStudy>> getCancerStudies(@ApiIgnore HttpServletRequest request) {
+        String[] representation = {"getCancerStudies", selectRenderedMediaType(request).toString()};
+        VersionedResult<Void> currentVersion = clinicalAttributesService.getMetadataVersion(null);
+        String currentEntityTag = entityTag(currentVersion.getResultVersion(), representation);
+        if (isNotModified(request, currentEntityTag)) {
+            return notModifiedResponseEntity(currentEntityTag, currentVersion, HttpHeaders.ACCEPT);
+        }
+        VersionedResult<List<CancerStudy>> cancerStudies = clinicalAttributesService.getCancerStudies();
+        String entityTag = entityTag(cancerStudies.getResultVersion(), representation);
+        return okResponseBuilder(entityTag, cancerStudies).header(HttpHeaders.VARY, HttpHeaders.ACCEPT).body(cancerStudies.getResult());
     }
 
     @ApiOperation(value = "Refresh clinical attribute cache")
     @ApiResponses(value = {
-        @ApiResponse(code = 200, message = "Successfully refreshed cache"),
+        @ApiResponse(code = 202, message = "Cache refresh submitted, poll /refreshCache/status for the result"),
         @ApiResponse(code = 503, message = "Clinical attribute metadata source unavailable")
         }
     )
     @ApiIgnore
     @RequestMapping(method = RequestMethod.GET, value = "/refreshCache", produces = MediaType.APPLICATION_JSON_VALUE)
-    public Map<String, String> forceResetCache() {
-        return clinicalAttributesService.forceResetCache();
+    public ResponseEntity<CacheRefreshJob> forceResetCache() {
+        return ResponseEntity.status(HttpStatus.ACCEPTED).body(clinicalAttributesService.forceResetCache());
+    }
+
+    @ApiOperation(value = "Get the status of a clinical attribute cache refresh")
+    @ApiResponses(value = {
+        @ApiResponse(code = 200, message = "Successfully retrieved cache refresh status"),
+        @ApiResponse(code = 404, message = "Could not find cache refresh job")
+        }
+    )
+    @ApiIgnore
+    @RequestMapping(method = RequestMethod.GET, value = "/refreshCache/status", produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<CacheRefreshJob> getCacheRefreshStatus(@ApiParam(value = "Cache refresh job id, defaults to the most recent job")
+        @RequestParam(value = "jobId", required = false) String jobId) {
+        CacheRefreshJob cacheRefreshJob = clinicalAttributesService.getCacheRefreshJob(jobId);
+        if (cacheRefreshJob == null) {
+            return ResponseEntity.notFound().build();
+        }
+        return ResponseEntity.ok(cacheRefreshJob);
+    }
+
+    @ApiOperation(value = "Get search cache statistics", response = CacheStatistics.class, responseContainer = "List")
+    @ApiIgnore
+    @RequestMapping(method = RequestMethod.GET, value = "/cacheStatistics", produces = MediaType.APPLICATION_JSON_VALUE)
+    public Iterable<CacheStatistics> getCacheStatistics() {
+        return clinicalAttributesService.getCacheStatistics();
+    }
+
+    @ApiOperation(value = "Get the changes made to the dictionary since a version, oldest first", response = DictionaryChangeSet.class, responseContainer = "List")
+    @ApiResponses(value = {
+        @ApiResponse(code = 200, message = "Successfully retrieved list of changes, which is empty if the version is current"),
+        @ApiResponse(code = 410, message = "Changes since the version are no longer known, fetch the full dictionary instead"),
+        @ApiResponse(code = 503, message = "Clinical attribute metadata source unavailable")
+        }
+    )
+    @RequestMapping(method = RequestMethod.GET, value = "/changes", produces = MediaType.APPLICATION_JSON_VALUE)
+    public Iterable<DictionaryChangeSet> getDictionaryChanges(@ApiParam(value = "Dictionary version the client holds, as returned in the " + DICTIONARY_VERSION_HEADER + " header of every metadata response")
+        @RequestParam(value = "since", required = true) String since) {
+        return clinicalAttributesService.getChangesSince(since);
+    }
+
+    /**
+    * Builds a strong entity tag from the dictionary version and the request parameters which select the response.
+    * Returns null (no validator) when the service cannot report a dictionary version.
+    * Endpoints check If-None-Match against the tag for the current version before looking anything up, and then
+    * send the tag for the version the lookup was actually answered from.
+    */
+    private String entityTag(String dictionaryVersion, String... requestParameters) {
+        if (dictionaryVersion == null) {
+            return null;
+        }
+        Hasher hasher = Hashing.murmur3_128().newHasher();
+        hasher.putUnencodedChars(dictionaryVersion);
+        for (String requestParameter : requestParameters) {
+            hasher.putChar('\u0000');
+            if (requestParameter != null) {
+                hasher.putUnencodedChars(requestParameter);
+            }
+        }
+        return "\"" + hasher.hash().toString() + "\"";
+    }
+
+    private boolean isNotModified(HttpServletRequest request, String entityTag) {
+        String ifNoneMatch = request.getHeader(HttpHeaders.IF_NONE_MATCH);
+        if (entityTag == null || ifNoneMatch == null) {
+            return false;
+        }
+        for (String requestEntityTag : ifNoneMatch.split(",")) {
+            requestEntityTag = requestEntityTag.trim();
+            // If-None-Match uses weak comparison
+            if (requestEntityTag.startsWith("W/")) {
+                requestEntityTag = requestEntityTag.substring(2);
+            }
+            if (requestEntityTag.equals("*") || requestEntityTag.equals(entityTag)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private CacheControl cacheControl() {
+        long secondsUntilNextCacheValidation = TimeUnit.MILLISECONDS.toSeconds(cacheValidationSchedule.next(new Date()).getTime() - System.currentTimeMillis());
+        return CacheControl.maxAge(Math.max(0, secondsUntilNextCacheValidation), TimeUnit.SECONDS);
+    }
+
+    private ResponseEntity.BodyBuilder okResponseBuilder(String entityTag, VersionedResult<?> versionedResult) {
+        ResponseEntity.BodyBuilder responseBuilder = ResponseEntity.ok();
+        if (entityTag != null) {
+            responseBuilder.eTag(entityTag).cacheControl(cacheControl());
+        }
+        return dictionaryVersionHeader(responseBuilder, versionedResult);
+    }
+
+    /**
+    * A 304 carries the same Vary as the 200 it stands for, so caches keep the representations apart.
+    */
+    private <T> ResponseEntity<T> notModifiedResponseEntity(String entityTag, VersionedResult<?> versionedResult, String vary) {
+        ResponseEntity.BodyBuilder responseBuilder = ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(entityTag).cacheControl(cacheControl());
+        if (vary != null) {
+            responseBuilder.header(HttpHeaders.VARY, vary);
+        }
+        return dictionaryVersionHeader(responseBuilder, versionedResult).build();
+    }
+
+    /**
+    * Sets the headers okResponseBuilder and notModifiedResponseEntity set, for responses written directly.
+    */
+    private void setValidatorHeaders(HttpServletResponse response, String entityTag, VersionedResult<?> versionedResult) {
+        if (entityTag != null) {
+            response.setHeader(HttpHeaders.ETAG, entityTag);
+            response.setHeader(HttpHeaders.CACHE_CONTROL, cacheControl().getHeaderValue());
+        }
+        if (versionedResult.getDictionaryVersion() != null) {
+            response.setHeader(DICTIONARY_VERSION_HEADER, versionedResult.getDictionaryVersion());
+        }
+    }
+
+    /**
+    * The content hash of the snapshot a response was read from, which /changes accepts as since= (unlike the
+    * study scoped versions behind the validators). Absent for the MskVocabulary, which is not versioned.
+    */
+    private ResponseEntity.BodyBuilder dictionaryVersionHeader(ResponseEntity.BodyBuilder responseBuilder, VersionedResult<?> versionedResult) {
+        if (versionedResult.getDictionaryVersion() != null) {
+            responseBuilder.header(DICTIONARY_VERSION_HEADER, versionedResult.getDictionaryVersion());
+        }
+        return responseBuilder;
+    }
+
+    /**
+    * The first of RENDERED_MEDIA_TYPES the client accepts, trying accepted types from most to least preferred.
+    * Defaults to JSON when there is no Accept header.
+    */
+    private MediaType selectRenderedMediaType(HttpServletRequest request) {
+        String accept = request.getHeader(HttpHeaders.ACCEPT);
+        if (accept == null) {
+            return MediaType.APPLICATION_JSON;
+        }
+        List<MediaType> acceptedMediaTypes = MediaType.parseMediaTypes(accept);
+        MediaType.sortBySpecificityAndQuality(acceptedMediaTypes);
+        for (MediaType acceptedMediaType : acceptedMediaTypes) {
+            for (MediaType renderedMediaType : RENDERED_MEDIA_TYPES) {
+                if (acceptedMediaType.isCompatibleWith(renderedMediaType)) {
+                    return renderedMediaType;
+                }
+            }
+        }
+        return MediaType.APPLICATION_JSON;
+    }
+
+    private MediaType responseContentType(MediaType mediaType) {
+        return MediaType.APPLICATION_JSON.equals(mediaType) ? MediaType.APPLICATION_JSON_UTF8 : mediaType;
+    }
+
+    /**
+    * Without a field projection the body goes through the message converters as usual, otherwise
+    * it is serialized here with the projecting writer for the negotiated media type.
+    */
+    private ResponseEntity<?> projectedResponse(ResponseEntity.BodyBuilder responseBuilder, Object body, SortedSet<String> projectedFields,
+            HttpServletRequest request) {
+        if (projectedFields == null) {
+            return responseBuilder.body(body);
+        }
+        MediaType mediaType = selectRenderedMediaType(request);
+        try {
+            byte[] projectedBody = clinicalAttributeMetadataProjection.getWriter(mediaType, projectedFields).writeValueAsBytes(body);
+            return responseBuilder.contentType(responseContentType(mediaType)).body(projectedBody);
+        } catch (JsonProcessingException e) {
+            throw new UncheckedIOException("Failed to render projected response body", e);
+        }
+    }
+
+    /**
+    * Whether Accept-Encoding allows gzip. An explicit gzip coding takes precedence over "*", and q=0 means not acceptable.
+    */
+    private boolean acceptsGzip(HttpServletRequest request) {
+        String acceptEncoding = request.getHeader(HttpHeaders.ACCEPT_ENCODING);
+        if (acceptEncoding == null) {
+            return false;
+        }
+        boolean wildcardAcceptable = false;
+        for (String coding : acceptEncoding.split(",")) {
+            String[] codingParameters = coding.split(";");
+            String contentCoding = codingParameters[0].trim().toLowerCase();
+            // x-gzip is an alias of gzip
+            if (contentCoding.equals("gzip") || contentCoding.equals("x-gzip")) {
+                return isAcceptableQuality(codingParameters);
+            }
+            if (contentCoding.equals("*")) {
+                wildcardAcceptable = isAcceptableQuality(codingParameters);
+            }
+        }
+        return wildcardAcceptable;
+    }
+
+    private boolean isAcceptableQuality(String[] codingParameters) {
+        for (int i = 1; i < codingParameters.length; i++) {
+            String[] parameter = codingParameters[i].split("=", 2);
+            if (parameter.length == 2 && parameter[0].trim().equalsIgnoreCase("q")) {
+                try {
+                    return Double.parseDouble(parameter[1].trim()) > 0;
+                } catch (NumberFormatException e) {
+                    // a malformed weight is not trusted, identity is always acceptable instead
+                    return false;
+                }
+            }
+        }
+        return true;
     }
 
     @ExceptionHandler
@@ -150,6 +619,18 @@ public class ClinicalDataDictionaryController {
         response.sendError(HttpStatus.NOT_FOUND.value(), e.getMessage());
     }
 
+    @ExceptionHandler
+    public void handleIllegalArgument(IllegalArgumentException e, HttpServletResponse response)
+        throws IOException {
+        response.sendError(HttpStatus.BAD_REQUEST.value(), e.getMessage());
+    }
+
+    @ExceptionHandler
+    public void handleDictionaryVersionNotFound(DictionaryVersionNotFoundException e, HttpServletResponse response)
+        throws IOException {
+        response.sendError(HttpStatus.GONE.value(), e.getMessage());
+    }
+
     @ResponseStatus(code = HttpStatus.SERVICE_UNAVAILABLE, reason = "Failed to refresh metadata cache")
     @ExceptionHandler(FailedCacheRefreshException.class)
     public void handleFailedCacheRefreshException() {}
@@ -0,0 +1,155 @@
+/*
+ * Copyright (c) 2026 Memorial Sloan-Kettering Cancer Center.
+ *
+ * This library is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY, WITHOUT EVEN THE IMPLIED WARRANTY OF MERCHANTABILITY OR FITNESS
+ * FOR A PARTICULAR PURPOSE. The software and documentation provided hereunder
+ * is on an "as is" basis, and Memorial Sloan-Kettering Cancer Center has no
+ * obligations to provide maintenance, support, updates, enhancements or
+ * modifications. In no event shall Memorial Sloan-Kettering Cancer Center be
+ * liable to any party for direct, indirect, special, incidental or
+ * consequential damages, including lost profits, arising out of the use of this
+ * software and its documentation, even if Memorial Sloan-Kettering Cancer
+ * Center has been advised of the possibility of such damage.
+ */
+
+package org.cbioportal.cdd.web;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.SortedSet;
+import java.util.function.Supplier;
+import java.util.zip.GZIPOutputStream;
+import javax.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.cbor.MappingJackson2CborHttpMessageConverter;
+import org.springframework.http.converter.smile.MappingJackson2SmileHttpMessageConverter;
+import org.springframework.stereotype.Component;
+
+/**
+ * Holds fully serialized response bodies (identity and gzip encoded) for the bulk metadata endpoints.
+ * Bodies are rendered once per dictionary version and media type (JSON, Smile or CBOR).
+ * Each body is stored with the version it was rendered for and re-rendered when a different version is
+ * asked for, so with per-study versions a refresh only re-renders the bodies of studies which changed.
+ * The cache is bounded by the size of the bodies it holds and evicts least recently used bodies first.
+ */
+@Component
+public class RenderedResponseCache {
+
+    private static final Logger logger = LoggerFactory.getLogger(RenderedResponseCache.class);
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private MappingJackson2SmileHttpMessageConverter smileHttpMessageConverter;
+
+    @Autowired
+    private MappingJackson2CborHttpMessageConverter cborHttpMessageConverter;
+
+    @Autowired
+    private ClinicalAttributeMetadataProjection clinicalAttributeMetadataProjection;
+
+    @Value("${cdd.web.renderedResponseCache.maximumBytes:268435456}")
+    private long maximumBytes;
+
+    private Cache<String, VersionedResponse> renderedResponses;
+
+    @PostConstruct
+    public void initializeCache() {
+        renderedResponses = CacheBuilder.newBuilder()
+            .maximumWeight(maximumBytes)
+            .weigher((String key, VersionedResponse value) -> value.estimateBytes())
+            .build();
+    }
+
+    /**
+    * Returns the body for key under dictionaryVersion rendered as mediaType (one of ClinicalDataDictionaryController.RENDERED_MEDIA_TYPES),
+    * serializing the value from bodySupplier if needed. If fields is not null only those ClinicalAttributeMetadata properties are rendered.
+    * If dictionaryVersion is null the body is rendered but not cached.
+    */
+    public RenderedResponse getRenderedResponse(String dictionaryVersion, String key, MediaType mediaType, SortedSet<String> fields,
+            Supplier<Object> bodySupplier) {
+        ObjectWriter renderer = fields == null ? getRenderer(mediaType).writer() : clinicalAttributeMetadataProjection.getWriter(mediaType, fields);
+        if (dictionaryVersion == null) {
+            return render(renderer, bodySupplier.get());
+        }
+        String renderedResponseKey = mediaType + ":" + (fields == null ? "" : fields) + ":" + key;
+        VersionedResponse current = renderedResponses.getIfPresent(renderedResponseKey);
+        if (current != null && current.dictionaryVersion.equals(dictionaryVersion)) {
+            return current.renderedResponse;
+        }
+        // rendered without holding any cache lock, so other keys are served while a large body is serialized;
+        // requests racing on the same key may each render it, and the first one stored for this version is kept
+        logger.debug("getRenderedResponse() -- rendering '" + renderedResponseKey + "' for dictionary version " + dictionaryVersion);
+        VersionedResponse rendered = new VersionedResponse(dictionaryVersion, render(renderer, bodySupplier.get()));
+        return renderedResponses.asMap().merge(renderedResponseKey, rendered,
+            (stored, latest) -> stored.dictionaryVersion.equals(dictionaryVersion) ? stored : latest).renderedResponse;
+    }
+
+    private ObjectMapper getRenderer(MediaType mediaType) {
+        if (smileHttpMessageConverter.getSupportedMediaTypes().contains(mediaType)) {
+            return smileHttpMessageConverter.getObjectMapper();
+        }
+        if (cborHttpMessageConverter.getSupportedMediaTypes().contains(mediaType)) {
+            return cborHttpMessageConverter.getObjectMapper();
+        }
+        return objectMapper;
+    }
+
+    private RenderedResponse render(ObjectWriter renderer, Object body) {
+        try {
+            byte[] identity = renderer.writeValueAsBytes(body);
+            ByteArrayOutputStream gzipBuffer = new ByteArrayOutputStream(identity.length / 4 + 64);
+            try (GZIPOutputStream gzipOutputStream = new GZIPOutputStream(gzipBuffer)) {
+                gzipOutputStream.write(identity);
+            }
+            return new RenderedResponse(identity, gzipBuffer.toByteArray());
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to render response body", e);
+        }
+    }
+
+    private static class VersionedResponse {
+        private final String dictionaryVersion;
+        private final RenderedResponse renderedResponse;
+
+        private VersionedResponse(String dictionaryVersion, RenderedResponse renderedResponse) {
+            this.dictionaryVersion = dictionaryVersion;
+            this.renderedResponse = renderedResponse;
+        }
+
+        private int estimateBytes() {
+            // the two bodies plus the version and entry overhead
+            return renderedResponse.identity.length + renderedResponse.gzip.length + 256;
+        }
+    }
+
+    public static class RenderedResponse {
+        private final byte[] identity;
+        private final byte[] gzip;
+
+        private RenderedResponse(byte[] identity, byte[] gzip) {
+            this.identity = identity;
+            this.gzip = gzip;
+        }
+
+        public byte[] getIdentity() {
+            return identity;
+        }
+
+        public byte[] getGzip() {
+            return gzip;
+        }
+    }
+
+}
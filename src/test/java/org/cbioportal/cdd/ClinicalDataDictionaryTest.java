@@ -16,20 +16,39 @@
 package org.cbioportal.cdd;
 
 import org.cbioportal.cdd.repository.topbraid.KnowledgeSystemsRepository;
+import org.cbioportal.cdd.model.CacheRefreshJob;
+import org.cbioportal.cdd.model.ClinicalAttributeMetadata;
+import org.cbioportal.cdd.service.internal.CacheRefreshCoordinator;
 import org.cbioportal.cdd.service.internal.ClinicalAttributeMetadataCache;
+import org.cbioportal.cdd.service.internal.DictionarySnapshot;
+import org.cbioportal.cdd.service.internal.DictionarySnapshotFile;
 import org.cbioportal.cdd.service.exception.*;
 import org.cbioportal.cdd.config.CDDAppConfig;
+import org.cbioportal.cdd.util.ClinicalAttributeMetadataCodec;
 
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
 
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.nio.charset.StandardCharsets;
 import java.util.*;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.zip.GZIPInputStream;
 import static org.hamcrest.Matchers.containsString;
 import static org.hamcrest.Matchers.equalTo;
 import static org.hamcrest.core.IsNot.not;
+import static org.hamcrest.Matchers.hasItem;
 import static org.hamcrest.Matchers.hasKey;
+import static org.hamcrest.Matchers.notNullValue;
+import static org.hamcrest.Matchers.nullValue;
+import static org.hamcrest.Matchers.sameInstance;
 import static org.junit.Assert.assertThat;
 import org.junit.runner.RunWith;
+import org.mockito.Mockito;
 import org.junit.Test;
 import org.junit.Before;
 
@@ -38,18 +57,25 @@ import org.springframework.context.annotation.Import;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.boot.test.context.SpringBootTest.WebEnvironment;
 import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
 import org.springframework.http.HttpStatus;
+import org.springframework.util.StreamUtils;
 import org.springframework.http.ResponseEntity;
 import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.test.util.ReflectionTestUtils;
 
 /**
  * @author Manda Wilson, Avery Wang
  */
 @RunWith(SpringRunner.class)
-@SpringBootTest(webEnvironment = WebEnvironment.RANDOM_PORT)
+@SpringBootTest(webEnvironment = WebEnvironment.RANDOM_PORT, properties = "cdd.snapshot.file=" + ClinicalDataDictionaryTest.SNAPSHOT_FILE)
 @Import({ClinicalDataDictionaryTestConfig.class, CDDAppConfig.class})
 public class ClinicalDataDictionaryTest {
 
+    static final String SNAPSHOT_FILE = "target/test-dictionary-snapshot.bin";
+
     @Autowired
     private TestRestTemplate restTemplate;
 
@@ -59,12 +85,68 @@ public class ClinicalDataDictionaryTest {
     @Autowired
     private ClinicalAttributeMetadataCache clinicalAttributesCache;
 
+    @Autowired
+    private DictionarySnapshotFile dictionarySnapshotFile;
+
+    @Autowired
+    private CacheRefreshCoordinator cacheRefreshCoordinator;
+
+    private final ObjectMapper mapper = new ObjectMapper();
+
     @Before
     // make sure repository is working version before each test
-    public void resetToWorkingRepository() {
+    public void resetToWorkingRepository() throws Exception {
         ClinicalDataDictionaryTestConfig config = new ClinicalDataDictionaryTestConfig();
         config.resetWorkingClinicalAttributesRepository(mockClinicalAttributesRepository);
+        refreshCacheAndWait();
+    }
+
+    /**
+    * Triggers a cache refresh and polls its status until it has finished.
+    * Any refresh already in flight is waited for first so that the new one sees the current repository.
+    */
+    private JsonNode refreshCacheAndWait() throws Exception {
+        waitForCacheRefreshJob(null);
         ResponseEntity<String> response = restTemplate.getForEntity("/api/refreshCache", String.class);
+        assertThat(response.getStatusCode(), equalTo(HttpStatus.ACCEPTED));
+        String jobId = mapper.readTree(response.getBody()).get("job_id").asText();
+        return waitForCacheRefreshJob(jobId);
+    }
+
+    private JsonNode waitForCacheRefreshJob(String jobId) throws Exception {
+        String statusUrl = "/api/refreshCache/status" + (jobId != null ? "?jobId=" + jobId : "");
+        for (int attempt = 0; attempt < 200; attempt++) {
+            ResponseEntity<String> response = restTemplate.getForEntity(statusUrl, String.class);
+            if (response.getStatusCode() == HttpStatus.NOT_FOUND) {
+                return null;
+            }
+            JsonNode job = mapper.readTree(response.getBody());
+            String status = job.get("status").asText();
+            if (status.equals("SUCCEEDED") || status.equals("FAILED")) {
+                return job;
+            }
+            Thread.sleep(50);
+        }
+        throw new AssertionError("cache refresh job did not finish in time");
+    }
+
+    /**
+    * GETs url, checks that it succeeded and returns the JSON body.
+    */
+    private JsonNode getJson(String url) throws Exception {
+        return readJson(restTemplate.getForEntity(url, String.class));
+    }
+
+    /**
+    * POSTs request as JSON to url, checks that it succeeded and returns the JSON body.
+    */
+    private JsonNode postJson(String url, Object request) throws Exception {
+        return readJson(restTemplate.postForEntity(url, request, String.class));
+    }
+
+    private JsonNode readJson(ResponseEntity<String> response) throws Exception {
+        assertThat(response.getStatusCode(), equalTo(HttpStatus.OK));
+        return mapper.readTree(response.getBody());
     }
 
     @Test
@@ -73,13 +155,146 @@ public class ClinicalDataDictionaryTest {
         ResponseEntity<String> response = restTemplate.getForEntity("/api/", String.class);
         assertThat(response.getStatusCode(), equalTo(HttpStatus.OK));
 
-        ObjectMapper mapper = new ObjectMapper();
         JsonNode responseJSON = mapper.readTree(response.getBody());
 
         assertThat(responseJSON.size(), equalTo(5));
         assertThat(response.getBody(), containsString("{\"column_header\":\"LAST_STATUS\",\"display_name\":\"Last Status\",\"description\":\"Last Status.\",\"datatype\":\"STRING\",\"attribute_type\":\"PATIENT\",\"priority\":\"1\"}"));
     }
 
+    @Test
+    public void getClinicalAttributeMetadataGzipTest() throws Exception {
+        // test GET /api/ serves the same body gzip encoded when the client accepts gzip
+        ResponseEntity<String> response = restTemplate.getForEntity("/api/?cancerStudy=mskimpact", String.class);
+        assertThat(response.getStatusCode(), equalTo(HttpStatus.OK));
+
+        HttpURLConnection connection = (HttpURLConnection)restTemplate.getRestTemplate().getUriTemplateHandler().expand("/api/?cancerStudy=mskimpact").toURL().openConnection();
+        connection.setRequestProperty("Accept-Encoding", "gzip");
+        assertThat(connection.getResponseCode(), equalTo(HttpStatus.OK.value()));
+        assertThat(connection.getHeaderField("Content-Encoding"), equalTo("gzip"));
+        assertThat(connection.getHeaderField("Vary"), containsString("Accept-Encoding"));
+        try (InputStream gzipInputStream = new GZIPInputStream(connection.getInputStream())) {
+            assertThat(StreamUtils.copyToString(gzipInputStream, StandardCharsets.UTF_8), equalTo(response.getBody()));
+        }
+        String entityTag = connection.getHeaderField("ETag");
+
+        // only an acceptable gzip coding or wildcard selects gzip, the identity response varies on Accept-Encoding too
+        assertThat(getContentEncoding("/api/?cancerStudy=mskimpact", "deflate, gzip;q=0.5"), equalTo("gzip"));
+        assertThat(getContentEncoding("/api/?cancerStudy=mskimpact", "*"), equalTo("gzip"));
+        assertThat(getContentEncoding("/api/?cancerStudy=mskimpact", "gzip;q=0"), nullValue());
+        assertThat(getContentEncoding("/api/?cancerStudy=mskimpact", "gzip; q=0.0, *"), nullValue());
+        assertThat(getContentEncoding("/api/?cancerStudy=mskimpact", "deflate, *;q=0"), nullValue());
+        assertThat(getContentEncoding("/api/?cancerStudy=mskimpact", "x-gzip-foo"), nullValue());
+        assertThat(restTemplate.getForEntity("/api/?cancerStudy=mskimpact", String.class).getHeaders().getVary(), hasItem("Accept-Encoding"));
+
+        // a 304 varies like the response it stands for
+        HttpHeaders headers = new HttpHeaders();
+        headers.set(HttpHeaders.ACCEPT_ENCODING, "gzip");
+        headers.setIfNoneMatch(entityTag);
+        ResponseEntity<byte[]> notModifiedResponse = restTemplate.exchange("/api/?cancerStudy=mskimpact", HttpMethod.GET, new HttpEntity<Void>(headers), byte[].class);
+        assertThat(notModifiedResponse.getStatusCode(), equalTo(HttpStatus.NOT_MODIFIED));
+        assertThat(notModifiedResponse.getHeaders().getVary(), hasItem("Accept-Encoding"));
+    }
+
+    private String getContentEncoding(String path, String acceptEncoding) throws Exception {
+        HttpURLConnection connection = (HttpURLConnection)restTemplate.getRestTemplate().getUriTemplateHandler().expand(path).toURL().openConnection();
+        connection.setRequestProperty("Accept-Encoding", acceptEncoding);
+        assertThat(connection.getResponseCode(), equalTo(HttpStatus.OK.value()));
+        assertThat(connection.getHeaderField("Vary"), containsString("Accept-Encoding"));
+        return connection.getHeaderField("Content-Encoding");
+    }
+
+    @Test
+    public void getClinicalAttributeMetadataBinaryTest() throws Exception {
+        // test list endpoints serve the same content as Smile or CBOR when the client accepts it
+        JsonNode expectedJSON = getJson("/api/?cancerStudy=mskimpact");
+        HttpHeaders headers = new HttpHeaders();
+        headers.set(HttpHeaders.ACCEPT, "application/x-jackson-smile");
+        ResponseEntity<byte[]> response = restTemplate.exchange("/api/?cancerStudy=mskimpact", HttpMethod.GET, new HttpEntity<Void>(headers), byte[].class);
+        assertThat(response.getStatusCode(), equalTo(HttpStatus.OK));
+        assertThat(response.getHeaders().getContentType().toString(), equalTo("application/x-jackson-smile"));
+        assertThat(new ObjectMapper(new SmileFactory()).readTree(response.getBody()), equalTo(expectedJSON));
+
+        expectedJSON = postJson("/api/search", Arrays.asList("stage"));
+        headers.set(HttpHeaders.ACCEPT, "application/cbor");
+        response = restTemplate.exchange("/api/search", HttpMethod.POST, new HttpEntity<List<String>>(Arrays.asList("stage"), headers), byte[].class);
+        assertThat(response.getStatusCode(), equalTo(HttpStatus.OK));
+        assertThat(response.getHeaders().getContentType().toString(), containsString("application/cbor"));
+        assertThat(new ObjectMapper(new CBORFactory()).readTree(response.getBody()), equalTo(expectedJSON));
+    }
+
+    @Test
+    public void getClinicalAttributeMetadataFieldProjectionTest() throws Exception {
+        // test fields= limits each attribute to the requested properties and rejects unknown ones
+        JsonNode responseJSON = getJson("/api/?cancerStudy=mskimpact&fields=column_header,datatype");
+        assertThat(responseJSON.size(), equalTo(5));
+        for (JsonNode clinicalAttribute : responseJSON) {
+            assertThat(clinicalAttribute.size(), equalTo(2));
+            assertThat(clinicalAttribute.has("column_header"), equalTo(true));
+            assertThat(clinicalAttribute.has("datatype"), equalTo(true));
+        }
+
+        responseJSON = postJson("/api/search?fields=column_header", Arrays.asList("stage"));
+        assertThat(responseJSON.size() > 0, equalTo(true));
+        for (JsonNode clinicalAttribute : responseJSON) {
+            assertThat(clinicalAttribute.size(), equalTo(1));
+        }
+
+        ResponseEntity<String> response = restTemplate.getForEntity("/api/?format=ndjson&allStudies=true&fields=priority", String.class);
+        assertThat(response.getStatusCode(), equalTo(HttpStatus.OK));
+        JsonNode firstLine = mapper.readTree(response.getBody().split("\n")[0]);
+        assertThat(firstLine.size(), equalTo(2));
+        assertThat(firstLine.has("study_id"), equalTo(true));
+        assertThat(firstLine.has("priority"), equalTo(true));
+
+        response = restTemplate.getForEntity("/api/AGE?fields=not_a_field", String.class);
+        assertThat(response.getStatusCode(), equalTo(HttpStatus.BAD_REQUEST));
+    }
+
+    @Test
+    public void streamClinicalAttributeMetadataTest() throws Exception {
+        // test GET /api/?format=ndjson streams one attribute per line, optionally for every study with a study_id
+        ResponseEntity<String> response = restTemplate.getForEntity("/api/?format=ndjson&cancerStudy=mskimpact", String.class);
+        assertThat(response.getStatusCode(), equalTo(HttpStatus.OK));
+        assertThat(response.getHeaders().getContentType().toString(), containsString("application/x-ndjson"));
+        String[] lines = response.getBody().split("\n");
+        assertThat(lines.length, equalTo(5));
+        for (String line : lines) {
+            assertThat(mapper.readTree(line).has("column_header"), equalTo(true));
+        }
+        assertThat(response.getBody(), containsString("{\"column_header\":\"LAST_STATUS\",\"display_name\":\"Last Status\",\"description\":\"Last Status.\",\"datatype\":\"STRING\",\"attribute_type\":\"PATIENT\",\"priority\":\"1\"}\n"));
+
+        response = restTemplate.getForEntity("/api/?format=ndjson&allStudies=true", String.class);
+        lines = response.getBody().split("\n");
+        assertThat(lines.length, equalTo(10));
+        assertThat(response.getBody(), containsString("{\"study_id\":\"test_override_study\",\"column_header\":\"AGE\",\"display_name\":\"Diagnosis Age\""));
+
+        response = restTemplate.getForEntity("/api/?format=ndjson&cancerStudy=not_a_study", String.class);
+        assertThat(response.getStatusCode(), equalTo(HttpStatus.NOT_FOUND));
+    }
+
+    @Test
+    public void streamClinicalAttributeMetadataNotModifiedTest() throws Exception {
+        // test GET /api/?format=ndjson returns a validator and a matching If-None-Match returns 304 without a body
+        ResponseEntity<String> response = restTemplate.getForEntity("/api/?format=ndjson&cancerStudy=mskimpact", String.class);
+        assertThat(response.getStatusCode(), equalTo(HttpStatus.OK));
+        String entityTag = response.getHeaders().getETag();
+        assertThat(entityTag, notNullValue());
+        assertThat(response.getHeaders().getCacheControl(), containsString("max-age="));
+
+        HttpHeaders headers = new HttpHeaders();
+        headers.setIfNoneMatch(entityTag);
+        response = restTemplate.exchange("/api/?format=ndjson&cancerStudy=mskimpact", HttpMethod.GET, new HttpEntity<Void>(headers), String.class);
+        assertThat(response.getStatusCode(), equalTo(HttpStatus.NOT_MODIFIED));
+        assertThat(response.getHeaders().getETag(), equalTo(entityTag));
+        assertThat(response.getHeaders().getFirst("CDD-Dictionary-Version"), equalTo(clinicalAttributesCache.getSnapshot().getContentHash()));
+        assertThat(response.getBody(), nullValue());
+
+        // streaming every study is a different response, so the validator must not match
+        response = restTemplate.exchange("/api/?format=ndjson&allStudies=true", HttpMethod.GET, new HttpEntity<Void>(headers), String.class);
+        assertThat(response.getStatusCode(), equalTo(HttpStatus.OK));
+        assertThat(response.getHeaders().getETag(), not(equalTo(entityTag)));
+    }
+
     @Test
     public void getClinicalAttributeMetadataBySearchTermsTest() throws Exception {
         //test we can get a list of clinical attributes by search term
@@ -87,7 +302,6 @@ public class ClinicalDataDictionaryTest {
         ResponseEntity<String> response = restTemplate.postForEntity("/api/search", searchTerms, String.class);
         assertThat(response.getStatusCode(), equalTo(HttpStatus.OK));
 
-        ObjectMapper mapper = new ObjectMapper();
         JsonNode responseJSON = mapper.readTree(response.getBody());
         assertThat(responseJSON.size(), equalTo(2));
         assertThat(response.getBody(), containsString("{\"column_header\":\"CLIN_M_STAGE\",\"display_name\":\"Neoplasm American Joint Committee on Cancer Clinical Distant Metastasis M Stage\",\"description\":"
@@ -116,13 +330,133 @@ public class ClinicalDataDictionaryTest {
         ResponseEntity<String> response = restTemplate.postForEntity("/api/search?attributeType=PATIENT", searchTerms, String.class);
         assertThat(response.getStatusCode(), equalTo(HttpStatus.OK));
 
-        ObjectMapper mapper = new ObjectMapper();
         JsonNode responseJSON = mapper.readTree(response.getBody());
         assertThat(responseJSON.size(), equalTo(1));
         assertThat(response.getBody(), containsString("{\"column_header\":\"CLIN_M_STAGE\",\"display_name\":\"Neoplasm American Joint Committee on Cancer Clinical Distant Metastasis M Stage\",\"description\":"
             + "\"Extent of the distant metastasis for the cancer based on evidence obtained from clinical assessment parameters determined prior to treatment.\",\"datatype\":\"STRING\",\"attribute_type\":\"PATIENT\",\"priority\":\"1\"}"));
     }
 
+    @Test
+    public void getClinicalAttributeMetadataBySearchTermsInclusiveTest() throws Exception {
+        // test inclusive search across fields, ignoring case, with terms shorter and longer than the index n-grams
+        List<String> searchTerms = Arrays.asList("dISEASE", "st");
+        JsonNode responseJSON = postJson("/api/search?inclusiveSearch=true", searchTerms);
+        assertThat(responseJSON.size(), equalTo(2));
+        // DISEASE_STAGE is the closer match, AGE only matches through its description
+        assertThat(responseJSON.get(0).get("column_header").asText(), equalTo("DISEASE_STAGE"));
+        assertThat(responseJSON.get(1).get("column_header").asText(), equalTo("AGE"));
+
+        searchTerms = Arrays.asList("metastasis", "marrow");
+        ResponseEntity<String> response = restTemplate.postForEntity("/api/search?inclusiveSearch=true", searchTerms, String.class);
+        assertThat(response.getStatusCode(), equalTo(HttpStatus.NOT_FOUND));
+    }
+
+    @Test
+    public void getClinicalAttributeMetadataBySearchTermsPagedTest() throws Exception {
+        // test pages of the search results match the same slices of the full ranking
+        List<String> searchTerms = Arrays.asList("s", "a");
+        JsonNode allResults = postJson("/api/search", searchTerms);
+        assertThat(allResults.size(), equalTo(5));
+        for (int offset = 0; offset <= 5; offset += 2) {
+            JsonNode page = postJson("/api/search?offset=" + offset + "&limit=2", searchTerms);
+            assertThat(page.size(), equalTo(Math.max(0, Math.min(2, 5 - offset))));
+            for (int i = 0; i < page.size(); i++) {
+                assertThat(page.get(i), equalTo(allResults.get(offset + i)));
+            }
+        }
+        ResponseEntity<String> response = restTemplate.postForEntity("/api/search?limit=-1", searchTerms, String.class);
+        assertThat(response.getStatusCode(), equalTo(HttpStatus.BAD_REQUEST));
+    }
+
+    @Test
+    public void searchResultCacheTest() throws Exception {
+        // test a repeated query is answered from the search result cache, including a query with no matches
+        JsonNode statistics = getJson("/api/cacheStatistics");
+        long hitCount = statistics.get(0).get("hit_count").asLong();
+        List<String> searchTerms = Arrays.asList("stage");
+        ResponseEntity<String> response = restTemplate.postForEntity("/api/search?attributeType=sample", searchTerms, String.class);
+        assertThat(response.getStatusCode(), equalTo(HttpStatus.OK));
+        ResponseEntity<String> cachedResponse = restTemplate.postForEntity("/api/search?attributeType=SAMPLE", searchTerms, String.class);
+        assertThat(cachedResponse.getBody(), equalTo(response.getBody()));
+        restTemplate.postForEntity("/api/search", Arrays.asList("no such attribute"), String.class);
+        response = restTemplate.postForEntity("/api/search", Arrays.asList("no such attribute"), String.class);
+        assertThat(response.getStatusCode(), equalTo(HttpStatus.NOT_FOUND));
+
+        statistics = getJson("/api/cacheStatistics");
+        assertThat(statistics.get(0).get("cache_name").asText(), equalTo("searchResultCache"));
+        assertThat(statistics.get(0).get("hit_count").asLong(), equalTo(hitCount + 2));
+        assertThat(statistics.get(1).get("cache_name").asText(), equalTo("levenshteinDistanceCache"));
+    }
+
+    @Test
+    public void getClinicalAttributeMetadataSuggestionsTest() throws Exception {
+        // test prefixes of column headers and display names, each attribute is suggested once
+        JsonNode responseJSON = getJson("/api/suggest?prefix=disease");
+        assertThat(responseJSON.size(), equalTo(1));
+        assertThat(responseJSON.get(0).get("column_header").asText(), equalTo("DISEASE_STAGE"));
+
+        assertThat(getJson("/api/suggest?prefix=D").size(), equalTo(2));
+        assertThat(getJson("/api/suggest?prefix=d&limit=1").size(), equalTo(1));
+        assertThat(getJson("/api/suggest?prefix=xyz").size(), equalTo(0));
+        ResponseEntity<String> response = restTemplate.getForEntity("/api/suggest?prefix=d&limit=0", String.class);
+        assertThat(response.getStatusCode(), equalTo(HttpStatus.BAD_REQUEST));
+    }
+
+    @Test
+    public void getClinicalAttributeMetadataSuggestionsNotModifiedTest() throws Exception {
+        // test GET /api/suggest returns a validator and a matching If-None-Match returns 304
+        ResponseEntity<String> response = restTemplate.getForEntity("/api/suggest?prefix=d", String.class);
+        assertThat(response.getStatusCode(), equalTo(HttpStatus.OK));
+        String entityTag = response.getHeaders().getETag();
+        assertThat(entityTag, notNullValue());
+        assertThat(response.getHeaders().getCacheControl(), containsString("max-age="));
+
+        HttpHeaders headers = new HttpHeaders();
+        headers.setIfNoneMatch(entityTag);
+        response = restTemplate.exchange("/api/suggest?prefix=d", HttpMethod.GET, new HttpEntity<Void>(headers), String.class);
+        assertThat(response.getStatusCode(), equalTo(HttpStatus.NOT_MODIFIED));
+
+        // a different limit selects a different response, so the validator must not match
+        response = restTemplate.exchange("/api/suggest?prefix=d&limit=1", HttpMethod.GET, new HttpEntity<Void>(headers), String.class);
+        assertThat(response.getStatusCode(), equalTo(HttpStatus.OK));
+        assertThat(response.getHeaders().getETag(), not(equalTo(entityTag)));
+    }
+
+    @Test
+    public void getClinicalAttributeMetadataByFuzzySearchTermsTest() throws Exception {
+        // test typos in column headers and display names are found by fuzzy search, closest first
+        List<String> searchTerms = Arrays.asList("DISEASE_STAEG", "last stats");
+        ResponseEntity<String> response = restTemplate.postForEntity("/api/search", searchTerms, String.class);
+        assertThat(response.getStatusCode(), equalTo(HttpStatus.NOT_FOUND));
+        JsonNode responseJSON = postJson("/api/search?fuzzy=true", searchTerms);
+        assertThat(responseJSON.size(), equalTo(2));
+        assertThat(responseJSON.get(0).get("column_header").asText(), equalTo("LAST_STATUS"));
+        assertThat(responseJSON.get(1).get("column_header").asText(), equalTo("DISEASE_STAGE"));
+
+        assertThat(postJson("/api/search?fuzzy=true&maxEditDistance=1", searchTerms).size(), equalTo(1));
+        response = restTemplate.postForEntity("/api/search?fuzzy=true&inclusiveSearch=true", searchTerms, String.class);
+        assertThat(response.getStatusCode(), equalTo(HttpStatus.NOT_FOUND));
+        response = restTemplate.postForEntity("/api/search?fuzzy=true&maxEditDistance=10", searchTerms, String.class);
+        assertThat(response.getStatusCode(), equalTo(HttpStatus.BAD_REQUEST));
+    }
+
+    @Test
+    public void searchAfterCacheRefreshTest() throws Exception {
+        // test search results follow the dictionary after a refresh (cached distances are scoped to the dictionary version)
+        List<String> searchTerms = Arrays.asList("age");
+        ResponseEntity<String> response = restTemplate.postForEntity("/api/search", searchTerms, String.class);
+        assertThat(response.getStatusCode(), equalTo(HttpStatus.OK));
+        assertThat(response.getBody(), containsString("\"column_header\":\"AGE\""));
+        ClinicalDataDictionaryTestConfig config = new ClinicalDataDictionaryTestConfig();
+        config.resetUpdatedClinicalAttributesRepository(mockClinicalAttributesRepository);
+        refreshCacheAndWait();
+        response = restTemplate.postForEntity("/api/search", Arrays.asList("necrosis"), String.class);
+        assertThat(response.getStatusCode(), equalTo(HttpStatus.OK));
+        assertThat(response.getBody(), containsString("\"column_header\":\"NECROSIS\""));
+        response = restTemplate.postForEntity("/api/search", Arrays.asList("stage"), String.class);
+        assertThat(response.getStatusCode(), equalTo(HttpStatus.NOT_FOUND));
+    }
+
     @Test
     public void getClinicalAttributeMetadataFilteredTest() throws Exception {
         // test we can get a list of clinical attributes returned by POST /api/
@@ -130,7 +464,6 @@ public class ClinicalDataDictionaryTest {
         ResponseEntity<String> response = restTemplate.postForEntity("/api/", columnHeaders, String.class);
         assertThat(response.getStatusCode(), equalTo(HttpStatus.OK));
 
-        ObjectMapper mapper = new ObjectMapper();
         JsonNode responseJSON = mapper.readTree(response.getBody());
 
         assertThat(responseJSON.size(), equalTo(2));
@@ -179,7 +512,6 @@ public class ClinicalDataDictionaryTest {
         List<String> columnHeaders = Arrays.asList("DISEASE_STAGE");
         ResponseEntity<String> response = restTemplate.postForEntity("/api/", columnHeaders, String.class);
         assertThat(response.getStatusCode(), equalTo(HttpStatus.OK));
-        ObjectMapper mapper = new ObjectMapper();
         JsonNode responseJSON = mapper.readTree(response.getBody());
         assertThat(response.getBody(), containsString("\"priority\":\"1\""));
         // query again with cancerStudy mskimpact and look for default priority 0
@@ -198,6 +530,52 @@ public class ClinicalDataDictionaryTest {
         assertThat(response.getStatusCode(), equalTo(HttpStatus.NOT_FOUND));
     }
 
+    @Test
+    public void getClinicalAttributeMetadataPartialTest() throws Exception {
+        // test POST /api/?partial=true returns found attributes and suggestions for unresolved column headers instead of a 404
+        List<String> columnHeaders = Arrays.asList("AGE", "LAST_STATSU", "INVALID_ATTRIBUTE", "disease stage");
+        JsonNode responseJSON = postJson("/api/?partial=true&cancerStudy=mskimpact", columnHeaders);
+        JsonNode clinicalAttributes = responseJSON.get("clinical_attributes");
+        assertThat(clinicalAttributes.size(), equalTo(1));
+        assertThat(clinicalAttributes.get(0).get("column_header").asText(), equalTo("AGE"));
+        assertThat(clinicalAttributes.get(0).get("priority").asText(), equalTo("0"));
+        JsonNode unresolvedColumnHeaders = responseJSON.get("unresolved_column_headers");
+        assertThat(unresolvedColumnHeaders.size(), equalTo(3));
+        assertThat(unresolvedColumnHeaders.get(0).get("column_header").asText(), equalTo("LAST_STATSU"));
+        assertThat(unresolvedColumnHeaders.get(0).get("suggestions").get(0).asText(), equalTo("LAST_STATUS"));
+        assertThat(unresolvedColumnHeaders.get(1).get("suggestions").size(), equalTo(0));
+        assertThat(unresolvedColumnHeaders.get(2).get("suggestions").get(0).asText(), equalTo("DISEASE_STAGE"));
+
+        // the default mode is unchanged
+        ResponseEntity<String> response = restTemplate.postForEntity("/api/?partial=false", columnHeaders, String.class);
+        assertThat(response.getStatusCode(), equalTo(HttpStatus.NOT_FOUND));
+    }
+
+    @Test
+    public void getClinicalAttributeMetadataForCancerStudiesTest() throws Exception {
+        // test POST /api/studies resolves column headers in each study and emits each distinct attribute once
+        Map<String, List<String>> request = new HashMap<String, List<String>>();
+        request.put("cancer_studies", Arrays.asList("mskimpact", "test_override_study", "mskimpact"));
+        request.put("column_headers", Arrays.asList("age", "LAST_STATUS", "INVALID_ATTRIBUTE", "AGE"));
+        JsonNode responseJSON = postJson("/api/studies", request);
+        JsonNode studies = responseJSON.get("studies");
+        assertThat(studies.size(), equalTo(2));
+        assertThat(studies.get("mskimpact").get("AGE").asText(), equalTo("priority_zero/AGE"));
+        assertThat(studies.get("mskimpact").get("LAST_STATUS").asText(), equalTo("mskimpact/LAST_STATUS"));
+        assertThat(studies.get("test_override_study").get("AGE").asText(), equalTo("test_override_study/AGE"));
+        assertThat(studies.get("test_override_study").get("LAST_STATUS").asText(), equalTo("default/LAST_STATUS"));
+        JsonNode attributes = responseJSON.get("attributes");
+        assertThat(attributes.size(), equalTo(4));
+        assertThat(attributes.get("priority_zero/AGE").get("priority").asText(), equalTo("0"));
+        assertThat(attributes.get("test_override_study/AGE").get("priority").asText(), equalTo("100"));
+        assertThat(responseJSON.get("unresolved_column_headers").size(), equalTo(1));
+        assertThat(responseJSON.get("unresolved_column_headers").get(0).get("column_header").asText(), equalTo("INVALID_ATTRIBUTE"));
+
+        request.put("cancer_studies", Arrays.asList("mskimpact", "not_a_study"));
+        ResponseEntity<String> response = restTemplate.postForEntity("/api/studies", request, String.class);
+        assertThat(response.getStatusCode(), equalTo(HttpStatus.NOT_FOUND));
+    }
+
     @Test
     public void getClinicalAttributeTest() throws Exception {
         // test we can get one clinical attribute returned by GET /api/AGE/
@@ -219,6 +597,26 @@ public class ClinicalDataDictionaryTest {
         assertThat(response.getBody(), containsString(",\"priority\":\"0\""));
     }
 
+    @Test
+    public void getClinicalAttributeNotModifiedTest() throws Exception {
+        // test GET /api/AGE returns a validator and a matching If-None-Match returns 304
+        ResponseEntity<String> response = restTemplate.getForEntity("/api/AGE", String.class);
+        assertThat(response.getStatusCode(), equalTo(HttpStatus.OK));
+        String entityTag = response.getHeaders().getETag();
+        assertThat(entityTag, notNullValue());
+        assertThat(response.getHeaders().getCacheControl(), containsString("max-age="));
+
+        HttpHeaders headers = new HttpHeaders();
+        headers.setIfNoneMatch(entityTag);
+        response = restTemplate.exchange("/api/AGE", HttpMethod.GET, new HttpEntity<Void>(headers), String.class);
+        assertThat(response.getStatusCode(), equalTo(HttpStatus.NOT_MODIFIED));
+
+        // a different study selects a different response, so the validator must not match
+        response = restTemplate.exchange("/api/AGE?cancerStudy=test_override_study", HttpMethod.GET, new HttpEntity<Void>(headers), String.class);
+        assertThat(response.getStatusCode(), equalTo(HttpStatus.OK));
+        assertThat(response.getHeaders().getETag(), not(equalTo(entityTag)));
+    }
+
     @Test
     public void getClinicalAttributeInvalidClinicalAttributeTest() throws Exception {
         // test invalid clinical attribute throws an exception in GET /api/INVALID_ATTRIBUTE
@@ -233,32 +631,164 @@ public class ClinicalDataDictionaryTest {
         ClinicalDataDictionaryTestConfig config = new ClinicalDataDictionaryTestConfig();
         // change repository to version with 2 attributes/1 override
         config.resetUpdatedClinicalAttributesRepository(mockClinicalAttributesRepository);
-        ResponseEntity<String> response = restTemplate.getForEntity("/api/refreshCache", String.class);
-        assertThat(response.getBody(), equalTo("{\"response\":\"Success!\"}"));
-        assertThat(response.getStatusCode(), equalTo(HttpStatus.OK));
+        JsonNode job = refreshCacheAndWait();
+        assertThat(job.get("status").asText(), equalTo("SUCCEEDED"));
+        assertThat(job.get("message").asText(), equalTo("Success!"));
         assertThat(mockClinicalAttributesRepository.getClinicalAttributeMetadata().size(), equalTo(2));
         assertThat(mockClinicalAttributesRepository.getClinicalAttributeMetadataOverrides(), hasKey("updated_override_study"));
         assertThat(mockClinicalAttributesRepository.getClinicalAttributeMetadataOverrides().size(), equalTo(1));
         // change repository to non-working version
         config.resetNotWorkingClinicalAttributesRepository(mockClinicalAttributesRepository);
-        response = restTemplate.getForEntity("/api/refreshCache", String.class);
-        assertThat(response.getBody(), containsString("org.cbioportal.cdd.service.exception.FailedCacheRefreshException"));
-        assertThat(response.getStatusCode(), equalTo(HttpStatus.SERVICE_UNAVAILABLE));
+        job = refreshCacheAndWait();
+        assertThat(job.get("status").asText(), equalTo("FAILED"));
+        // the last snapshot keeps being served while refreshes fail
+        ResponseEntity<String> response = restTemplate.getForEntity("/api/cancerStudies", String.class);
+        assertThat(response.getStatusCode(), equalTo(HttpStatus.OK));
         // change repository to version with 5 attributes/2 overrides
         config.resetWorkingClinicalAttributesRepository(mockClinicalAttributesRepository);
-        restTemplate.getForEntity("/api/refreshCache", String.class);
+        refreshCacheAndWait();
         assertThat(mockClinicalAttributesRepository.getClinicalAttributeMetadata().size(), equalTo(5));
         assertThat(mockClinicalAttributesRepository.getClinicalAttributeMetadataOverrides().size(), equalTo(2));
         assertThat(mockClinicalAttributesRepository.getClinicalAttributeMetadataOverrides(), not(hasKey("updated_override_study")));
     }
 
+    @Test
+    public void snapshotFileTest() throws Exception {
+        // test a refresh with unchanged content leaves the snapshot file alone
+        Date dateOfSnapshotFile = dictionarySnapshotFile.read().getDateOfRefresh();
+        refreshCacheAndWait();
+        assertThat(dictionarySnapshotFile.read().getDateOfRefresh(), equalTo(dateOfSnapshotFile));
+
+        // test a successful refresh with changed content writes the published dictionary to the snapshot file
+        ClinicalDataDictionaryTestConfig config = new ClinicalDataDictionaryTestConfig();
+        config.resetUpdatedClinicalAttributesRepository(mockClinicalAttributesRepository);
+        refreshCacheAndWait();
+        DictionarySnapshot snapshot = clinicalAttributesCache.getSnapshot();
+        ClinicalAttributeMetadataCodec.Dictionary dictionary = dictionarySnapshotFile.read();
+        assertThat(dictionary, notNullValue());
+        assertThat(dictionary.getDateOfRefresh(), equalTo(snapshot.getBuildTimestamp()));
+        assertThat(dictionary.getClinicalAttributeMetadata().size(), equalTo(snapshot.getDefaults().size()));
+        for (ClinicalAttributeMetadata clinicalAttribute : dictionary.getClinicalAttributeMetadata()) {
+            assertThat(mapper.writeValueAsString(clinicalAttribute), equalTo(mapper.writeValueAsString(snapshot.getDefaults().get(clinicalAttribute.getColumnHeader()))));
+        }
+        assertThat(dictionary.getOverrides().keySet(), equalTo(snapshot.getStudies()));
+        for (Map.Entry<String, ArrayList<ClinicalAttributeMetadata>> entry : dictionary.getOverrides().entrySet()) {
+            assertThat(entry.getValue().size(), equalTo(snapshot.getOverrides().get(entry.getKey()).size()));
+            for (ClinicalAttributeMetadata clinicalAttribute : entry.getValue()) {
+                assertThat(mapper.writeValueAsString(clinicalAttribute),
+                    equalTo(mapper.writeValueAsString(snapshot.getOverrides().get(entry.getKey()).get(clinicalAttribute.getColumnHeader()))));
+            }
+        }
+
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void startupWithoutSnapshotTest() throws Exception {
+        // test that without a published snapshot (no snapshot file) startup waits for the first refresh to publish one
+        AtomicReference<DictionarySnapshot> currentSnapshot =
+            (AtomicReference<DictionarySnapshot>) ReflectionTestUtils.getField(clinicalAttributesCache, "currentSnapshot");
+        currentSnapshot.set(null);
+        ClinicalDataDictionaryTestConfig config = new ClinicalDataDictionaryTestConfig();
+        config.resetUpdatedClinicalAttributesRepository(mockClinicalAttributesRepository);
+        cacheRefreshCoordinator.validateCacheOnStartup();
+        DictionarySnapshot snapshot = clinicalAttributesCache.getSnapshot();
+        assertThat(snapshot, notNullValue());
+        assertThat(snapshot.getStudies(), hasItem("updated_override_study"));
+        assertThat(cacheRefreshCoordinator.getJob(null).getStatus(), equalTo(CacheRefreshJob.Status.SUCCEEDED));
+        ResponseEntity<String> response = restTemplate.getForEntity("/api/cancerStudies", String.class);
+        assertThat(response.getStatusCode(), equalTo(HttpStatus.OK));
+    }
+
+    @Test
+    public void scheduledRefreshGraphFingerprintTest() throws Exception {
+        // test scheduled checks skip the refresh while the repository graph fingerprint is unchanged, and refresh once it changes
+        Mockito.when(mockClinicalAttributesRepository.getGraphFingerprint()).thenReturn("triples=1");
+        refreshCacheAndWait();
+        String contentHash = clinicalAttributesCache.getSnapshot().getContentHash();
+        String latestJobId = cacheRefreshCoordinator.getJob(null).getJobId();
+        Date dateOfLastCacheRefresh = clinicalAttributesCache.getDateOfLastCacheRefresh();
+        // the data changes but the fingerprint does not
+        ClinicalDataDictionaryTestConfig config = new ClinicalDataDictionaryTestConfig();
+        config.resetUpdatedClinicalAttributesRepository(mockClinicalAttributesRepository);
+        Mockito.when(mockClinicalAttributesRepository.getGraphFingerprint()).thenReturn("triples=1");
+        cacheRefreshCoordinator.validateCacheOnSchedule();
+        assertThat(cacheRefreshCoordinator.getJob(null).getJobId(), equalTo(latestJobId));
+        assertThat(clinicalAttributesCache.getSnapshot().getContentHash(), equalTo(contentHash));
+        assertThat(clinicalAttributesCache.getDateOfLastCacheRefresh(), equalTo(dateOfLastCacheRefresh));
+
+        // a skipped refresh does not postpone the staleness bound, so a stale cache is refreshed anyway
+        clinicalAttributesCache.setDateOfLastCacheRefresh(new Date(System.currentTimeMillis() - TimeUnit.DAYS.toMillis(30)));
+        cacheRefreshCoordinator.validateCacheOnSchedule();
+        JsonNode job = waitForCacheRefreshJob(cacheRefreshCoordinator.getJob(null).getJobId());
+        assertThat(job.get("status").asText(), equalTo("SUCCEEDED"));
+        assertThat(clinicalAttributesCache.getSnapshot().getContentHash(), not(equalTo(contentHash)));
+        assertThat(clinicalAttributesCache.cacheIsStale(), equalTo(false));
+
+        contentHash = clinicalAttributesCache.getSnapshot().getContentHash();
+        config.resetWorkingClinicalAttributesRepository(mockClinicalAttributesRepository);
+        Mockito.when(mockClinicalAttributesRepository.getGraphFingerprint()).thenReturn("triples=2");
+        cacheRefreshCoordinator.validateCacheOnSchedule();
+        job = waitForCacheRefreshJob(cacheRefreshCoordinator.getJob(null).getJobId());
+        assertThat(job.get("status").asText(), equalTo("SUCCEEDED"));
+        assertThat(clinicalAttributesCache.getSnapshot().getContentHash(), not(equalTo(contentHash)));
+        assertThat(clinicalAttributesCache.getGraphFingerprintOfLastRefresh(), equalTo("triples=2"));
+        // the fingerprint probed by the scheduled check is the one recorded by the refresh, the repository is not probed again
+        Mockito.verify(mockClinicalAttributesRepository, Mockito.times(1)).getGraphFingerprint();
+    }
+
+    @Test
+    public void getDictionaryChangesTest() throws Exception {
+        // test GET /api/changes lists what a refresh changed, and a refresh with the same data keeps the study views
+        List<ClinicalAttributeMetadata> mskimpactView = clinicalAttributesCache.getSnapshot().getClinicalAttributeMetadata("mskimpact");
+        Map<String, ClinicalAttributeMetadata> mskimpactOverrides = clinicalAttributesCache.getSnapshot().getOverrides().get("mskimpact");
+        Map<String, ClinicalAttributeMetadata> defaults = clinicalAttributesCache.getSnapshot().getDefaults();
+        refreshCacheAndWait();
+        assertThat(clinicalAttributesCache.getSnapshot().getClinicalAttributeMetadata("mskimpact"), sameInstance(mskimpactView));
+        // the fetched overrides hash the same as the filled in ones, so the maps are reused rather than rebuilt
+        assertThat(clinicalAttributesCache.getSnapshot().getOverrides().get("mskimpact"), sameInstance(mskimpactOverrides));
+        assertThat(clinicalAttributesCache.getSnapshot().getDefaults(), sameInstance(defaults));
+
+        String dictionaryVersion = restTemplate.getForEntity("/api/cancerStudies", String.class).getHeaders().getFirst("CDD-Dictionary-Version");
+        assertThat(dictionaryVersion, equalTo(clinicalAttributesCache.getSnapshot().getContentHash()));
+        // every metadata response names the whole dictionary version, not the study scoped version behind its validator
+        assertThat(restTemplate.getForEntity("/api/?cancerStudy=test_override_study", String.class).getHeaders().getFirst("CDD-Dictionary-Version"),
+            equalTo(dictionaryVersion));
+        assertThat(restTemplate.getForEntity("/api/AGE?cancerStudy=test_override_study", String.class).getHeaders().getFirst("CDD-Dictionary-Version"),
+            equalTo(dictionaryVersion));
+        assertThat(restTemplate.getForEntity("/api/?format=ndjson", String.class).getHeaders().getFirst("CDD-Dictionary-Version"),
+            equalTo(dictionaryVersion));
+        assertThat(restTemplate.postForEntity("/api/search", Arrays.asList("stage"), String.class).getHeaders().getFirst("CDD-Dictionary-Version"),
+            equalTo(dictionaryVersion));
+        ClinicalDataDictionaryTestConfig config = new ClinicalDataDictionaryTestConfig();
+        config.resetUpdatedClinicalAttributesRepository(mockClinicalAttributesRepository);
+        refreshCacheAndWait();
+
+        JsonNode responseJSON = getJson("/api/changes?since=" + dictionaryVersion);
+        assertThat(responseJSON.size(), equalTo(1));
+        JsonNode changeSet = responseJSON.get(0);
+        assertThat(changeSet.get("from_version").asText(), equalTo(dictionaryVersion));
+        assertThat(changeSet.get("to_version").asText(), equalTo(clinicalAttributesCache.getSnapshot().getContentHash()));
+        assertThat(changeSet.get("added_attributes").size(), equalTo(1));
+        assertThat(changeSet.get("added_attributes").get(0).get("column_header").asText(), equalTo("NECROSIS"));
+        assertThat(changeSet.get("modified_attributes").size(), equalTo(0));
+        assertThat(changeSet.get("removed_attributes").toString(), equalTo("[\"BONE_MARROW_SAMPLE_HISTOLOGY\",\"CLIN_M_STAGE\",\"DISEASE_STAGE\",\"LAST_STATUS\"]"));
+        assertThat(changeSet.get("added_studies").toString(), equalTo("[\"updated_override_study\"]"));
+        assertThat(changeSet.get("removed_studies").toString(), equalTo("[\"mskimpact\",\"test_override_study\"]"));
+
+        ResponseEntity<String> response = restTemplate.getForEntity("/api/changes?since=" + clinicalAttributesCache.getSnapshot().getContentHash(), String.class);
+        assertThat(response.getStatusCode(), equalTo(HttpStatus.OK));
+        assertThat(response.getBody(), equalTo("[]"));
+        response = restTemplate.getForEntity("/api/changes?since=UNKNOWN_VERSION", String.class);
+        assertThat(response.getStatusCode(), equalTo(HttpStatus.GONE));
+    }
+
     @Test
     public void getCancerStudiesTest() throws Exception {
         // test all cancer studies are returned by GET /api/cancerStudies
         ResponseEntity<String> response = restTemplate.getForEntity("/api/cancerStudies", String.class);
         assertThat(response.getStatusCode(), equalTo(HttpStatus.OK));
 
-        ObjectMapper mapper = new ObjectMapper();
         JsonNode responseJSON = mapper.readTree(response.getBody());
 
         assertThat(responseJSON.size(), equalTo(2));
@@ -272,7 +802,6 @@ public class ClinicalDataDictionaryTest {
         ResponseEntity<String> response = restTemplate.getForEntity("/api/", String.class);
         assertThat(response.getStatusCode(), equalTo(HttpStatus.OK));
 
-        ObjectMapper mapper = new ObjectMapper();
         JsonNode responseJSON = mapper.readTree(response.getBody());
 
         assertThat(getPriority(responseJSON, "AGE"), equalTo("1"));
@@ -293,7 +822,6 @@ public class ClinicalDataDictionaryTest {
         ResponseEntity<String> response = restTemplate.getForEntity("/api/", String.class);
         assertThat(response.getStatusCode(), equalTo(HttpStatus.OK));
 
-        ObjectMapper mapper = new ObjectMapper();
         JsonNode responseJSON = mapper.readTree(response.getBody());
 
         assertThat(getPriority(responseJSON, "LAST_STATUS"), equalTo("1"));
@@ -0,0 +1,69 @@
+/*
+ * Copyright (c) 2026 Memorial Sloan-Kettering Cancer Center.
+ *
+ * This library is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY, WITHOUT EVEN THE IMPLIED WARRANTY OF MERCHANTABILITY OR FITNESS
+ * FOR A PARTICULAR PURPOSE. The software and documentation provided hereunder
+ * is on an "as is" basis, and Memorial Sloan-Kettering Cancer Center has no
+ * obligations to provide maintenance, support, updates, enhancements or
+ * modifications. In no event shall Memorial Sloan-Kettering Cancer Center be
+ * liable to any party for direct, indirect, special, incidental or
+ * consequential damages, including lost profits, arising out of the use of this
+ * software and its documentation, even if Memorial Sloan-Kettering Cancer
+ * Center has been advised of the possibility of such damage.
+ */
+
+package org.cbioportal.cdd.service.internal;
+
+import java.util.ArrayList;
+import org.cbioportal.cdd.model.CacheRefreshJob;
+import org.cbioportal.cdd.model.MskVocabularyField;
+import org.cbioportal.cdd.repository.topbraid.MskVocabularyRepository;
+import org.cbioportal.cdd.service.exception.ClinicalMetadataSourceUnresponsiveException;
+import org.cbioportal.cdd.service.exception.FailedCacheRefreshException;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.nullValue;
+import static org.hamcrest.Matchers.sameInstance;
+import static org.junit.Assert.assertThat;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mockito;
+import org.springframework.test.util.ReflectionTestUtils;
+
+public class CDDServiceMskVocabularyImplTest {
+
+    private MskVocabularyRepository mskVocabularyRepository;
+    private CDDServiceMskVocabularyImpl cddServiceMskVocabularyImpl;
+
+    @Before
+    public void createService() {
+        mskVocabularyRepository = Mockito.mock(MskVocabularyRepository.class);
+        cddServiceMskVocabularyImpl = new CDDServiceMskVocabularyImpl();
+        ReflectionTestUtils.setField(cddServiceMskVocabularyImpl, "mskVocabularyRepository", mskVocabularyRepository);
+    }
+
+    @Test
+    public void cacheRefreshJobTest() throws Exception {
+        // test the job returned by a refresh can be looked up by its id, or as the latest job, and other ids are unknown
+        Mockito.when(mskVocabularyRepository.getClinicalAttributeMetadata()).thenReturn(new ArrayList<MskVocabularyField>());
+        assertThat(cddServiceMskVocabularyImpl.getCacheRefreshJob(null), nullValue());
+        CacheRefreshJob job = cddServiceMskVocabularyImpl.forceResetCache();
+        assertThat(job.getStatus(), equalTo(CacheRefreshJob.Status.SUCCEEDED));
+        assertThat(cddServiceMskVocabularyImpl.getCacheRefreshJob(job.getJobId()), sameInstance(job));
+        assertThat(cddServiceMskVocabularyImpl.getCacheRefreshJob(null), sameInstance(job));
+        assertThat(cddServiceMskVocabularyImpl.getCacheRefreshJob("not_a_job"), nullValue());
+    }
+
+    @Test
+    public void failedCacheRefreshJobTest() throws Exception {
+        // test a failed refresh still leaves a finished job to look up
+        Mockito.when(mskVocabularyRepository.getClinicalAttributeMetadata()).thenThrow(new ClinicalMetadataSourceUnresponsiveException("faking a problem getting the MskVocabulary terms"));
+        try {
+            cddServiceMskVocabularyImpl.forceResetCache();
+        } catch (FailedCacheRefreshException e) {
+            assertThat(cddServiceMskVocabularyImpl.getCacheRefreshJob(null).getStatus(), equalTo(CacheRefreshJob.Status.FAILED));
+            return;
+        }
+        throw new AssertionError("expected FailedCacheRefreshException");
+    }
+}
@@ -0,0 +1,79 @@
+/*
+ * Copyright (c) 2026 Memorial Sloan-Kettering Cancer Center.
+ *
+ * This library is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY, WITHOUT EVEN THE IMPLIED WARRANTY OF MERCHANTABILITY OR FITNESS
+ * FOR A PARTICULAR PURPOSE. The software and documentation provided hereunder
+ * is on an "as is" basis, and Memorial Sloan-Kettering Cancer Center has no
+ * obligations to provide maintenance, support, updates, enhancements or
+ * modifications. In no event shall Memorial Sloan-Kettering Cancer Center be
+ * liable to any party for direct, indirect, special, incidental or
+ * consequential damages, including lost profits, arising out of the use of this
+ * software and its documentation, even if Memorial Sloan-Kettering Cancer
+ * Center has been advised of the possibility of such damage.
+ */
+
+package org.cbioportal.cdd.service.internal;
+
+import java.util.*;
+import org.apache.commons.lang3.StringUtils;
+import org.cbioportal.cdd.model.ClinicalAttributeMetadata;
+import static org.hamcrest.Matchers.equalTo;
+import static org.junit.Assert.assertThat;
+import org.junit.Test;
+
+public class ClinicalAttributeFuzzyIndexTest {
+
+    private static final List<ClinicalAttributeMetadata> ATTRIBUTES = Arrays.asList(
+        new ClinicalAttributeMetadata("DISEASE_STAGE", "Disease Stage", "Stage of the disease.", "STRING", "SAMPLE", "1"),
+        new ClinicalAttributeMetadata("LAST_STATUS", "Last Status", "Last status.", "STRING", "PATIENT", "1"),
+        new ClinicalAttributeMetadata("AGE", "Diagnosis Age", "Age at diagnosis.", "NUMBER", "PATIENT", "1"),
+        new ClinicalAttributeMetadata("AGE_CURRENT", "Current Age", "Current age.", "NUMBER", "PATIENT", "1"),
+        new ClinicalAttributeMetadata("CLIN_M_STAGE", "M Stage", "Clinical M stage.", "STRING", "SAMPLE", "1"),
+        new ClinicalAttributeMetadata("CLIN_T_STAGE", null, "Clinical T stage.", "STRING", "SAMPLE", "1"));
+
+    /**
+    * Every attribute with a normalized column header or display name within maximumEditDistance, by comparing against each key.
+    */
+    private static Map<Integer, Integer> findOrdinalsWithinByScan(String searchTerm, int maximumEditDistance) {
+        HashMap<Integer, Integer> ordinalDistances = new HashMap<Integer, Integer>();
+        String normalizedSearchTerm = ClinicalAttributeFuzzyIndex.normalize(searchTerm);
+        for (int ordinal = 0; ordinal < ATTRIBUTES.size(); ordinal++) {
+            for (String field : new String[] {ATTRIBUTES.get(ordinal).getColumnHeader(), ATTRIBUTES.get(ordinal).getDisplayName()}) {
+                if (field == null) {
+                    continue;
+                }
+                int distance = StringUtils.getLevenshteinDistance(normalizedSearchTerm, ClinicalAttributeFuzzyIndex.normalize(field));
+                if (distance <= maximumEditDistance) {
+                    ordinalDistances.merge(ordinal, distance, Math::min);
+                }
+            }
+        }
+        return ordinalDistances;
+    }
+
+    @Test
+    public void findOrdinalsWithinTest() throws Exception {
+        // test the BK-tree finds exactly the attributes a scan over every key finds, with the same distances
+        ClinicalAttributeFuzzyIndex fuzzyIndex = new ClinicalAttributeFuzzyIndex(ATTRIBUTES);
+        for (String searchTerm : new String[] {"DISEASE_STAEG", "last stats", "age", "Diagnosis  Age", "CLIN_X_STAGE", "current_age", "xyz", ""}) {
+            for (int maximumEditDistance = 0; maximumEditDistance <= 3; maximumEditDistance++) {
+                assertThat(searchTerm + " within " + maximumEditDistance, fuzzyIndex.findOrdinalsWithin(searchTerm, maximumEditDistance),
+                    equalTo(findOrdinalsWithinByScan(searchTerm, maximumEditDistance)));
+            }
+        }
+    }
+
+    @Test
+    public void normalizeTest() throws Exception {
+        // test display names and column headers normalize to the same key
+        assertThat(ClinicalAttributeFuzzyIndex.normalize(" Diagnosis \t Age "), equalTo("DIAGNOSIS_AGE"));
+        assertThat(new ClinicalAttributeFuzzyIndex(ATTRIBUTES).findOrdinalsWithin("diagnosis age", 0), equalTo(Collections.singletonMap(2, 0)));
+    }
+
+    @Test
+    public void emptyIndexTest() throws Exception {
+        // test an empty dictionary finds nothing
+        assertThat(new ClinicalAttributeFuzzyIndex(Collections.<ClinicalAttributeMetadata>emptyList()).findOrdinalsWithin("AGE", 3).size(), equalTo(0));
+    }
+}
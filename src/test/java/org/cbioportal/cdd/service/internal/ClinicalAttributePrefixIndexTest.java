@@ -0,0 +1,57 @@
+/*
+ * Copyright (c) 2026 Memorial Sloan-Kettering Cancer Center.
+ *
+ * This library is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY, WITHOUT EVEN THE IMPLIED WARRANTY OF MERCHANTABILITY OR FITNESS
+ * FOR A PARTICULAR PURPOSE. The software and documentation provided hereunder
+ * is on an "as is" basis, and Memorial Sloan-Kettering Cancer Center has no
+ * obligations to provide maintenance, support, updates, enhancements or
+ * modifications. In no event shall Memorial Sloan-Kettering Cancer Center be
+ * liable to any party for direct, indirect, special, incidental or
+ * consequential damages, including lost profits, arising out of the use of this
+ * software and its documentation, even if Memorial Sloan-Kettering Cancer
+ * Center has been advised of the possibility of such damage.
+ */
+
+package org.cbioportal.cdd.service.internal;
+
+import java.util.*;
+import org.cbioportal.cdd.model.ClinicalAttributeMetadata;
+import static org.hamcrest.Matchers.equalTo;
+import static org.junit.Assert.assertThat;
+import org.junit.Test;
+
+public class ClinicalAttributePrefixIndexTest {
+
+    private final ClinicalAttributePrefixIndex prefixIndex = new ClinicalAttributePrefixIndex(Arrays.asList(
+        new ClinicalAttributeMetadata("DISEASE_STAGE", "Disease Stage", "Stage of the disease.", "STRING", "SAMPLE", "1"),
+        new ClinicalAttributeMetadata("DIAGNOSIS_AGE", "Age at Diagnosis", "Age at diagnosis.", "NUMBER", "PATIENT", "10"),
+        new ClinicalAttributeMetadata("DAYS_TO_DEATH", "Days to Death", "Days to death.", "NUMBER", "PATIENT", "not a number"),
+        new ClinicalAttributeMetadata("AGE", "Diagnosis Age", "Age.", "NUMBER", "PATIENT", "5"),
+        new ClinicalAttributeMetadata("DFS_STATUS", "Disease Free Status", "Disease free status.", "STRING", "PATIENT", "1")));
+
+    private List<String> findColumnHeadersStartingWith(String prefix, int limit) {
+        List<String> columnHeaders = new ArrayList<String>();
+        for (ClinicalAttributeMetadata clinicalAttributeMetadata : prefixIndex.findAttributesStartingWith(prefix, limit)) {
+            columnHeaders.add(clinicalAttributeMetadata.getColumnHeader());
+        }
+        return columnHeaders;
+    }
+
+    @Test
+    public void findAttributesStartingWithTest() throws Exception {
+        // test prefixes match column headers and display names case insensitively, highest priority first and ties in dictionary order
+        assertThat(findColumnHeadersStartingWith("d", 10), equalTo(Arrays.asList("DIAGNOSIS_AGE", "AGE", "DISEASE_STAGE", "DFS_STATUS", "DAYS_TO_DEATH")));
+        assertThat(findColumnHeadersStartingWith("Disease", 10), equalTo(Arrays.asList("DISEASE_STAGE", "DFS_STATUS")));
+        assertThat(findColumnHeadersStartingWith("age", 10), equalTo(Arrays.asList("DIAGNOSIS_AGE", "AGE")));
+        assertThat(findColumnHeadersStartingWith("xyz", 10), equalTo(Collections.<String>emptyList()));
+    }
+
+    @Test
+    public void limitTest() throws Exception {
+        // test the limit keeps the best matches, and an attribute matching by column header and display name is returned once
+        assertThat(findColumnHeadersStartingWith("d", 2), equalTo(Arrays.asList("DIAGNOSIS_AGE", "AGE")));
+        assertThat(findColumnHeadersStartingWith("d", 1), equalTo(Arrays.asList("DIAGNOSIS_AGE")));
+        assertThat(findColumnHeadersStartingWith("days", 10), equalTo(Arrays.asList("DAYS_TO_DEATH")));
+    }
+}
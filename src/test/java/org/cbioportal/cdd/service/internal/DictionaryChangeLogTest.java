@@ -0,0 +1,134 @@
+/*
+ * Copyright (c) 2026 Memorial Sloan-Kettering Cancer Center.
+ *
+ * This library is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY, WITHOUT EVEN THE IMPLIED WARRANTY OF MERCHANTABILITY OR FITNESS
+ * FOR A PARTICULAR PURPOSE. The software and documentation provided hereunder
+ * is on an "as is" basis, and Memorial Sloan-Kettering Cancer Center has no
+ * obligations to provide maintenance, support, updates, enhancements or
+ * modifications. In no event shall Memorial Sloan-Kettering Cancer Center be
+ * liable to any party for direct, indirect, special, incidental or
+ * consequential damages, including lost profits, arising out of the use of this
+ * software and its documentation, even if Memorial Sloan-Kettering Cancer
+ * Center has been advised of the possibility of such damage.
+ */
+
+package org.cbioportal.cdd.service.internal;
+
+import java.util.*;
+import org.cbioportal.cdd.model.ClinicalAttributeMetadata;
+import org.cbioportal.cdd.model.DictionaryChangeSet;
+import org.cbioportal.cdd.service.exception.DictionaryVersionNotFoundException;
+import static org.hamcrest.Matchers.equalTo;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+public class DictionaryChangeLogTest {
+
+    private DictionaryChangeLog dictionaryChangeLog;
+
+    @Before
+    public void createDictionaryChangeLog() {
+        dictionaryChangeLog = new DictionaryChangeLog();
+        ReflectionTestUtils.setField(dictionaryChangeLog, "maximumChangeSets", 2);
+    }
+
+    private static ClinicalAttributeMetadata clinicalAttribute(String columnHeader, String priority) {
+        return new ClinicalAttributeMetadata(columnHeader, columnHeader.toLowerCase(), "Description of " + columnHeader, "STRING", "SAMPLE", priority);
+    }
+
+    private static Map<String, ClinicalAttributeMetadata> clinicalAttributes(ClinicalAttributeMetadata... clinicalAttributes) {
+        LinkedHashMap<String, ClinicalAttributeMetadata> clinicalAttributeMap = new LinkedHashMap<String, ClinicalAttributeMetadata>();
+        for (ClinicalAttributeMetadata clinicalAttribute : clinicalAttributes) {
+            clinicalAttributeMap.put(clinicalAttribute.getColumnHeader(), clinicalAttribute);
+        }
+        return clinicalAttributeMap;
+    }
+
+    private static DictionarySnapshot snapshot(long versionId, Map<String, ClinicalAttributeMetadata> defaults,
+            Map<String, Map<String, ClinicalAttributeMetadata>> overrides) {
+        return new DictionarySnapshot(versionId, new Date(versionId), defaults, new HashMap<String, Map<String, ClinicalAttributeMetadata>>(overrides));
+    }
+
+    private static DictionarySnapshot snapshot(long versionId, String priority) {
+        return snapshot(versionId, clinicalAttributes(clinicalAttribute("AGE", priority)), Collections.<String, Map<String, ClinicalAttributeMetadata>>emptyMap());
+    }
+
+    @Test
+    public void changeSetTest() throws Exception {
+        // test added, modified and removed attributes and studies are found, and only changed overrides are listed
+        Map<String, Map<String, ClinicalAttributeMetadata>> previousOverrides = new HashMap<String, Map<String, ClinicalAttributeMetadata>>();
+        previousOverrides.put("mskimpact", clinicalAttributes(clinicalAttribute("AGE", "0")));
+        previousOverrides.put("removed_study", clinicalAttributes(clinicalAttribute("DISEASE_STAGE", "0")));
+        DictionarySnapshot previous = snapshot(1, clinicalAttributes(clinicalAttribute("AGE", "1"), clinicalAttribute("DISEASE_STAGE", "1"),
+            clinicalAttribute("LAST_STATUS", "1")), previousOverrides);
+        Map<String, Map<String, ClinicalAttributeMetadata>> latestOverrides = new HashMap<String, Map<String, ClinicalAttributeMetadata>>();
+        latestOverrides.put("mskimpact", clinicalAttributes(clinicalAttribute("AGE", "0"), clinicalAttribute("DISEASE_STAGE", "0")));
+        latestOverrides.put("added_study", clinicalAttributes(clinicalAttribute("AGE", "0")));
+        DictionarySnapshot latest = snapshot(2, clinicalAttributes(clinicalAttribute("AGE", "1"), clinicalAttribute("DISEASE_STAGE", "2"),
+            clinicalAttribute("NECROSIS", "1")), latestOverrides);
+
+        dictionaryChangeLog.record(previous, latest);
+        List<DictionaryChangeSet> changesSince = dictionaryChangeLog.getChangesSince(previous.getContentHash(), latest.getContentHash());
+        assertThat(changesSince.size(), equalTo(1));
+        DictionaryChangeSet changeSet = changesSince.get(0);
+        assertThat(changeSet.getFromVersion(), equalTo(previous.getContentHash()));
+        assertThat(changeSet.getToVersion(), equalTo(latest.getContentHash()));
+        assertThat(changeSet.getAddedAttributes().size(), equalTo(1));
+        assertThat(changeSet.getAddedAttributes().get(0).getColumnHeader(), equalTo("NECROSIS"));
+        assertThat(changeSet.getModifiedAttributes().size(), equalTo(1));
+        assertThat(changeSet.getModifiedAttributes().get(0).getPriority(), equalTo("2"));
+        assertThat(changeSet.getRemovedAttributes(), equalTo(Arrays.asList("LAST_STATUS")));
+        assertThat(changeSet.getAddedStudies(), equalTo(Arrays.asList("added_study")));
+        assertThat(changeSet.getModifiedStudies(), equalTo(Collections.singletonMap("mskimpact", Arrays.asList("DISEASE_STAGE"))));
+        assertThat(changeSet.getRemovedStudies(), equalTo(Arrays.asList("removed_study")));
+    }
+
+    @Test
+    public void unchangedContentTest() throws Exception {
+        // test a refresh with the same content records nothing, and a client on the current version has no changes
+        DictionarySnapshot previous = snapshot(1, "1");
+        DictionarySnapshot latest = snapshot(2, "1");
+        assertThat(latest.getContentHash(), equalTo(previous.getContentHash()));
+        dictionaryChangeLog.record(previous, latest);
+        assertThat(dictionaryChangeLog.getChangesSince(previous.getContentHash(), latest.getContentHash()).size(), equalTo(0));
+        try {
+            dictionaryChangeLog.getChangesSince("UNKNOWN_VERSION", latest.getContentHash());
+            fail("expected an unknown dictionary version");
+        } catch (DictionaryVersionNotFoundException e) {
+        }
+    }
+
+    @Test
+    public void changeSetChainTest() throws Exception {
+        // test change sets are chained oldest first, the oldest are forgotten, and a return to an earlier version starts from the latest change
+        DictionarySnapshot first = snapshot(1, "1");
+        DictionarySnapshot second = snapshot(2, "2");
+        DictionarySnapshot third = snapshot(3, "3");
+        DictionarySnapshot fourth = snapshot(4, "2");
+        dictionaryChangeLog.record(first, second);
+        dictionaryChangeLog.record(second, third);
+        dictionaryChangeLog.record(third, fourth);
+
+        List<DictionaryChangeSet> changesSince = dictionaryChangeLog.getChangesSince(third.getContentHash(), fourth.getContentHash());
+        assertThat(changesSince.size(), equalTo(1));
+        assertThat(changesSince.get(0).getToVersion(), equalTo(second.getContentHash()));
+        // the second and fourth dictionaries have the same content, so a client on the second is current
+        assertThat(dictionaryChangeLog.getChangesSince(second.getContentHash(), fourth.getContentHash()).size(), equalTo(0));
+        try {
+            dictionaryChangeLog.getChangesSince(first.getContentHash(), fourth.getContentHash());
+            fail("expected the first dictionary version to be forgotten");
+        } catch (DictionaryVersionNotFoundException e) {
+        }
+
+        DictionarySnapshot fifth = snapshot(5, "4");
+        dictionaryChangeLog.record(fourth, fifth);
+        changesSince = dictionaryChangeLog.getChangesSince(third.getContentHash(), fifth.getContentHash());
+        assertThat(changesSince.size(), equalTo(2));
+        assertThat(changesSince.get(0).getFromVersion(), equalTo(third.getContentHash()));
+        assertThat(changesSince.get(1).getToVersion(), equalTo(fifth.getContentHash()));
+    }
+}
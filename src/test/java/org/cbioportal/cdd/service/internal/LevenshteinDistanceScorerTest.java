@@ -0,0 +1,68 @@
+/*
+ * Copyright (c) 2026 Memorial Sloan-Kettering Cancer Center.
+ *
+ * This library is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY, WITHOUT EVEN THE IMPLIED WARRANTY OF MERCHANTABILITY OR FITNESS
+ * FOR A PARTICULAR PURPOSE. The software and documentation provided hereunder
+ * is on an "as is" basis, and Memorial Sloan-Kettering Cancer Center has no
+ * obligations to provide maintenance, support, updates, enhancements or
+ * modifications. In no event shall Memorial Sloan-Kettering Cancer Center be
+ * liable to any party for direct, indirect, special, incidental or
+ * consequential damages, including lost profits, arising out of the use of this
+ * software and its documentation, even if Memorial Sloan-Kettering Cancer
+ * Center has been advised of the possibility of such damage.
+ */
+
+package org.cbioportal.cdd.service.internal;
+
+import java.util.Random;
+import org.apache.commons.lang3.StringUtils;
+import org.cbioportal.cdd.model.ClinicalAttributeMetadata;
+import static org.hamcrest.Matchers.equalTo;
+import static org.junit.Assert.assertThat;
+import org.junit.Test;
+
+public class LevenshteinDistanceScorerTest {
+
+    private static String randomString(Random random, int maximumLength) {
+        char[] characters = new char[random.nextInt(maximumLength + 1)];
+        for (int i = 0; i < characters.length; i++) {
+            // a small alphabet so that strings share characters and distances stay near the band
+            characters[i] = (char) ('a' + random.nextInt(3));
+        }
+        return new String(characters);
+    }
+
+    @Test
+    public void bandedDistanceTest() throws Exception {
+        // test the banded distance equals the full distance up to the maximum and reports anything further as exceeding it
+        Random random = new Random(42);
+        for (int i = 0; i < 2000; i++) {
+            String s = randomString(random, 12);
+            String t = randomString(random, 12);
+            int expectedDistance = StringUtils.getLevenshteinDistance(s, t);
+            for (int maximumDistance = 0; maximumDistance <= 4; maximumDistance++) {
+                int expected = expectedDistance <= maximumDistance ? expectedDistance : LevenshteinDistanceScorer.EXCEEDS_MAXIMUM;
+                assertThat(s + " / " + t + " within " + maximumDistance, LevenshteinDistanceScorer.distance(s, t, maximumDistance), equalTo(expected));
+            }
+            assertThat(LevenshteinDistanceScorer.distance(s, t, LevenshteinDistanceScorer.EXCEEDS_MAXIMUM), equalTo(expectedDistance));
+        }
+        assertThat(LevenshteinDistanceScorer.distance("", "", -1), equalTo(LevenshteinDistanceScorer.EXCEEDS_MAXIMUM));
+        assertThat(LevenshteinDistanceScorer.distance("", "abc", 3), equalTo(3));
+    }
+
+    @Test
+    public void minimumDistanceTest() throws Exception {
+        // test the closest field matches levenshteinDistanceFromSearchTerm, including fields which do not contain the search term
+        ClinicalAttributeMetadata clinicalAttribute = new ClinicalAttributeMetadata("DISEASE_STAGE", "Disease Stage", "Stage of the disease at diagnosis.",
+            "STRING", "SAMPLE", "1");
+        for (String searchTerm : new String[] {"STAGE", "stage", "Disease", "diagnosis", "DISEASE_STAGE", "unrelated"}) {
+            int expectedDistance = clinicalAttribute.levenshteinDistanceFromSearchTerm(searchTerm);
+            for (int maximumDistance : new int[] {0, 5, 8, 30, Integer.MAX_VALUE - 1}) {
+                int expected = expectedDistance <= maximumDistance ? expectedDistance : LevenshteinDistanceScorer.EXCEEDS_MAXIMUM;
+                assertThat(searchTerm + " within " + maximumDistance, LevenshteinDistanceScorer.minimumDistance(clinicalAttribute, searchTerm, maximumDistance),
+                    equalTo(expected));
+            }
+        }
+    }
+}
@@ -0,0 +1,68 @@
+/*
+ * Copyright (c) 2026 Memorial Sloan-Kettering Cancer Center.
+ *
+ * This library is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY, WITHOUT EVEN THE IMPLIED WARRANTY OF MERCHANTABILITY OR FITNESS
+ * FOR A PARTICULAR PURPOSE. The software and documentation provided hereunder
+ * is on an "as is" basis, and Memorial Sloan-Kettering Cancer Center has no
+ * obligations to provide maintenance, support, updates, enhancements or
+ * modifications. In no event shall Memorial Sloan-Kettering Cancer Center be
+ * liable to any party for direct, indirect, special, incidental or
+ * consequential damages, including lost profits, arising out of the use of this
+ * software and its documentation, even if Memorial Sloan-Kettering Cancer
+ * Center has been advised of the possibility of such damage.
+ */
+
+package org.cbioportal.cdd.service.internal;
+
+import java.util.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.cbioportal.cdd.model.ClinicalAttributeMetadata;
+import static org.hamcrest.Matchers.equalTo;
+import static org.junit.Assert.assertThat;
+import org.junit.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+public class SearchResultCacheTest {
+
+    private static SearchResultCache searchResultCache(long maximumBytes) {
+        SearchResultCache searchResultCache = new SearchResultCache();
+        ReflectionTestUtils.setField(searchResultCache, "maximumBytes", maximumBytes);
+        searchResultCache.initializeCache();
+        return searchResultCache;
+    }
+
+    private static List<ClinicalAttributeMetadata> searchResult(int size) {
+        ClinicalAttributeMetadata clinicalAttribute = new ClinicalAttributeMetadata("AGE", "Diagnosis Age", "Age.", "NUMBER", "PATIENT", "1");
+        return new ArrayList<ClinicalAttributeMetadata>(Collections.nCopies(size, clinicalAttribute));
+    }
+
+    @Test
+    public void cachedSearchResultTest() throws Exception {
+        // test a repeated query is answered from the cache, and a query for another dictionary version is searched again
+        SearchResultCache searchResultCache = searchResultCache(1 << 20);
+        AtomicInteger searches = new AtomicInteger();
+        for (int i = 0; i < 3; i++) {
+            Optional<List<ClinicalAttributeMetadata>> searchResult = searchResultCache.getSearchResult("version1", Arrays.asList("age"), null, false, -1, 0, null,
+                () -> { searches.incrementAndGet(); return searchResult(2); });
+            assertThat(searchResult.get().size(), equalTo(2));
+        }
+        assertThat(searches.get(), equalTo(1));
+        searchResultCache.getSearchResult("version2", Arrays.asList("age"), null, false, -1, 0, null, () -> { searches.incrementAndGet(); return null; });
+        assertThat(searches.get(), equalTo(2));
+        assertThat(searchResultCache.size(), equalTo(1L));
+    }
+
+    @Test
+    public void maximumBytesTest() throws Exception {
+        // test results are weighed by their length, so a result larger than the whole budget is not kept
+        SearchResultCache searchResultCache = searchResultCache(4096);
+        AtomicInteger searches = new AtomicInteger();
+        for (int i = 0; i < 2; i++) {
+            searchResultCache.getSearchResult("version1", Arrays.asList("a"), null, false, -1, 0, null,
+                () -> { searches.incrementAndGet(); return searchResult(10000); });
+        }
+        assertThat(searches.get(), equalTo(2));
+        assertThat(searchResultCache.size(), equalTo(0L));
+    }
+}
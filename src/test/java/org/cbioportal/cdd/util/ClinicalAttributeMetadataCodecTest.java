@@ -0,0 +1,91 @@
+/*
+ * Copyright (c) 2026 Memorial Sloan-Kettering Cancer Center.
+ *
+ * This library is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY, WITHOUT EVEN THE IMPLIED WARRANTY OF MERCHANTABILITY OR FITNESS
+ * FOR A PARTICULAR PURPOSE. The software and documentation provided hereunder
+ * is on an "as is" basis, and Memorial Sloan-Kettering Cancer Center has no
+ * obligations to provide maintenance, support, updates, enhancements or
+ * modifications. In no event shall Memorial Sloan-Kettering Cancer Center be
+ * liable to any party for direct, indirect, special, incidental or
+ * consequential damages, including lost profits, arising out of the use of this
+ * software and its documentation, even if Memorial Sloan-Kettering Cancer
+ * Center has been advised of the possibility of such damage.
+ */
+
+package org.cbioportal.cdd.util;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.nio.ByteBuffer;
+import java.util.*;
+import org.cbioportal.cdd.model.ClinicalAttributeMetadata;
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.equalTo;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
+import org.junit.Test;
+
+public class ClinicalAttributeMetadataCodecTest {
+
+    private final ObjectMapper mapper = new ObjectMapper();
+
+    private static ClinicalAttributeMetadata clinicalAttribute(String columnHeader, String priority) {
+        return new ClinicalAttributeMetadata(columnHeader, columnHeader.toLowerCase(), "Description of " + columnHeader, "STRING", "SAMPLE", priority);
+    }
+
+    private byte[] encodeTestDictionary() {
+        ClinicalAttributeMetadata stage = clinicalAttribute("DISEASE_STAGE", "1");
+        stage.setAdditionalProperty("source", "test");
+        ClinicalAttributeMetadata stageOverride = clinicalAttribute("DISEASE_STAGE", "0");
+        stageOverride.setStudyId("mskimpact");
+        HashMap<String, List<ClinicalAttributeMetadata>> overrides = new HashMap<String, List<ClinicalAttributeMetadata>>();
+        overrides.put("mskimpact", Arrays.asList(stageOverride));
+        return ClinicalAttributeMetadataCodec.encodeDictionary(new Date(1000L), Arrays.asList(stage, clinicalAttribute("AGE", null)), overrides);
+    }
+
+    @Test
+    public void dictionaryRoundTripTest() throws Exception {
+        // test a dictionary decodes to the attributes and overrides it was encoded from
+        ClinicalAttributeMetadataCodec.Dictionary dictionary = ClinicalAttributeMetadataCodec.decodeDictionary(ByteBuffer.wrap(encodeTestDictionary()));
+        assertThat(dictionary.getDateOfRefresh(), equalTo(new Date(1000L)));
+        assertThat(dictionary.getClinicalAttributeMetadata().size(), equalTo(2));
+        ClinicalAttributeMetadata stage = clinicalAttribute("DISEASE_STAGE", "1");
+        stage.setAdditionalProperty("source", "test");
+        assertThat(mapper.writeValueAsString(dictionary.getClinicalAttributeMetadata().get(0)), equalTo(mapper.writeValueAsString(stage)));
+        assertThat(mapper.writeValueAsString(dictionary.getClinicalAttributeMetadata().get(1)), equalTo(mapper.writeValueAsString(clinicalAttribute("AGE", null))));
+        assertThat(dictionary.getOverrides().keySet(), equalTo(Collections.singleton("mskimpact")));
+        assertThat(dictionary.getOverrides().get("mskimpact").get(0).getStudyId(), equalTo("mskimpact"));
+        assertThat(dictionary.getOverrides().get("mskimpact").get(0).getPriority(), equalTo("0"));
+    }
+
+    @Test
+    public void corruptDictionaryTest() throws Exception {
+        // test a flipped payload bit fails the checksum and a truncated value is rejected before decoding
+        byte[] encodedDictionary = encodeTestDictionary();
+        encodedDictionary[encodedDictionary.length - 1] ^= 1;
+        try {
+            ClinicalAttributeMetadataCodec.decodeDictionary(ByteBuffer.wrap(encodedDictionary));
+            fail("expected a checksum mismatch");
+        } catch (IllegalArgumentException e) {
+            assertThat(e.getMessage(), containsString("Checksum"));
+        }
+        try {
+            ClinicalAttributeMetadataCodec.decodeDictionary(ByteBuffer.wrap(encodeTestDictionary(), 0, ClinicalAttributeMetadataCodec.HEADER_LENGTH + 1));
+            fail("expected a truncated value");
+        } catch (IllegalArgumentException e) {
+            assertThat(e.getMessage(), containsString("truncated"));
+        }
+    }
+
+    @Test
+    public void wrongKindTest() throws Exception {
+        // test an encoded attribute list is not mistaken for a dictionary
+        byte[] encodedClinicalAttributeMetadata = ClinicalAttributeMetadataCodec.encodeClinicalAttributeMetadata(Arrays.asList(clinicalAttribute("AGE", "1")));
+        try {
+            ClinicalAttributeMetadataCodec.decodeDictionary(ByteBuffer.wrap(encodedClinicalAttributeMetadata));
+            fail("expected a kind mismatch");
+        } catch (IllegalArgumentException e) {
+            assertThat(e.getMessage(), containsString("kind"));
+        }
+    }
+}
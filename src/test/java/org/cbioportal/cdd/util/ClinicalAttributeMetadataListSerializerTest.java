@@ -0,0 +1,88 @@
+/*
+ * Copyright (c) 2026 Memorial Sloan-Kettering Cancer Center.
+ *
+ * This library is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY, WITHOUT EVEN THE IMPLIED WARRANTY OF MERCHANTABILITY OR FITNESS
+ * FOR A PARTICULAR PURPOSE. The software and documentation provided hereunder
+ * is on an "as is" basis, and Memorial Sloan-Kettering Cancer Center has no
+ * obligations to provide maintenance, support, updates, enhancements or
+ * modifications. In no event shall Memorial Sloan-Kettering Cancer Center be
+ * liable to any party for direct, indirect, special, incidental or
+ * consequential damages, including lost profits, arising out of the use of this
+ * software and its documentation, even if Memorial Sloan-Kettering Cancer
+ * Center has been advised of the possibility of such damage.
+ */
+
+package org.cbioportal.cdd.util;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.nio.ByteBuffer;
+import java.util.*;
+import org.cbioportal.cdd.model.ClinicalAttributeMetadata;
+import org.ehcache.impl.serialization.CompactJavaSerializer;
+import org.ehcache.impl.serialization.PlainJavaSerializer;
+import org.ehcache.impl.serialization.TransientStateRepository;
+import org.ehcache.spi.serialization.SerializerException;
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.equalTo;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
+import org.junit.Test;
+
+public class ClinicalAttributeMetadataListSerializerTest {
+
+    private final ObjectMapper mapper = new ObjectMapper();
+
+    private final ClinicalAttributeMetadataListSerializer serializer = new ClinicalAttributeMetadataListSerializer(getClass().getClassLoader());
+
+    private static ArrayList<ClinicalAttributeMetadata> clinicalAttributeMetadata(int size) {
+        ArrayList<ClinicalAttributeMetadata> clinicalAttributeMetadata = new ArrayList<ClinicalAttributeMetadata>();
+        for (int i = 0; i < size; i++) {
+            clinicalAttributeMetadata.add(new ClinicalAttributeMetadata("ATTRIBUTE_" + i, "Attribute " + i, "Description of attribute " + i, "STRING", "SAMPLE", "1"));
+        }
+        return clinicalAttributeMetadata;
+    }
+
+    @Test
+    public void roundTripTest() throws Exception {
+        // test small values are stored as is and large values deflated, and both read back unchanged
+        ArrayList<ClinicalAttributeMetadata> clinicalAttributeMetadata = clinicalAttributeMetadata(5);
+        ByteBuffer serialized = serializer.serialize(clinicalAttributeMetadata);
+        assertThat(mapper.writeValueAsString(serializer.read(serialized)), equalTo(mapper.writeValueAsString(clinicalAttributeMetadata)));
+        assertThat(serializer.equals(clinicalAttributeMetadata, serializer.serialize(clinicalAttributeMetadata)), equalTo(true));
+
+        ArrayList<ClinicalAttributeMetadata> largeClinicalAttributeMetadata = clinicalAttributeMetadata(200);
+        serialized = serializer.serialize(largeClinicalAttributeMetadata);
+        assertThat(serialized.get(0), equalTo((byte) 1));
+        assertThat(serialized.remaining() < ClinicalAttributeMetadataCodec.encodeClinicalAttributeMetadata(largeClinicalAttributeMetadata).length, equalTo(true));
+        assertThat(mapper.writeValueAsString(serializer.read(serialized)), equalTo(mapper.writeValueAsString(largeClinicalAttributeMetadata)));
+    }
+
+    @Test
+    public void overridesRoundTripTest() throws Exception {
+        // test the overrides serializer reads back every study
+        ClinicalAttributeMetadataOverridesSerializer overridesSerializer = new ClinicalAttributeMetadataOverridesSerializer(getClass().getClassLoader());
+        HashMap<String, ArrayList<ClinicalAttributeMetadata>> overrides = new HashMap<String, ArrayList<ClinicalAttributeMetadata>>();
+        overrides.put("mskimpact", clinicalAttributeMetadata(2));
+        overrides.put("test_override_study", clinicalAttributeMetadata(1));
+        assertThat(mapper.writeValueAsString(overridesSerializer.read(overridesSerializer.serialize(overrides))), equalTo(mapper.writeValueAsString(overrides)));
+    }
+
+    @Test
+    public void legacyJavaSerializedEntryTest() throws Exception {
+        // test entries written by the serializer the JSR-107 provider defaults to are still read, and others are unreadable
+        ArrayList<ClinicalAttributeMetadata> clinicalAttributeMetadata = clinicalAttributeMetadata(5);
+        PlainJavaSerializer<Object> plainJavaSerializer = new PlainJavaSerializer<Object>(getClass().getClassLoader());
+        assertThat(mapper.writeValueAsString(serializer.read(plainJavaSerializer.serialize(clinicalAttributeMetadata))),
+            equalTo(mapper.writeValueAsString(clinicalAttributeMetadata)));
+
+        CompactJavaSerializer<Object> compactJavaSerializer = new CompactJavaSerializer<Object>(getClass().getClassLoader());
+        compactJavaSerializer.init(new TransientStateRepository());
+        try {
+            serializer.read(compactJavaSerializer.serialize(clinicalAttributeMetadata));
+            fail("expected an unreadable entry");
+        } catch (SerializerException e) {
+            assertThat(e.getMessage(), containsString("java serialized"));
+        }
+    }
+}
@@ -0,0 +1,43 @@
+/*
+ * Copyright (c) 2026 Memorial Sloan-Kettering Cancer Center.
+ *
+ * This library is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY, WITHOUT EVEN THE IMPLIED WARRANTY OF MERCHANTABILITY OR FITNESS
+ * FOR A PARTICULAR PURPOSE. The software and documentation provided hereunder
+ * is on an "as is" basis, and Memorial Sloan-Kettering Cancer Center has no
+ * obligations to provide maintenance, support, updates, enhancements or
+ * modifications. In no event shall Memorial Sloan-Kettering Cancer Center be
+ * liable to any party for direct, indirect, special, incidental or
+ * consequential damages, including lost profits, arising out of the use of this
+ * software and its documentation, even if Memorial Sloan-Kettering Cancer
+ * Center has been advised of the possibility of such damage.
+ */
+
+package org.cbioportal.cdd.util;
+
+import org.ehcache.spi.serialization.SerializerException;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.notNullValue;
+import static org.junit.Assert.assertThat;
+import org.junit.Test;
+import org.springframework.cache.concurrent.ConcurrentMapCache;
+
+public class PersistentCacheErrorHandlerTest {
+
+    @Test
+    public void unreadableEntryTest() throws Exception {
+        // test an entry which cannot be deserialized is evicted, so the lookup is a cache miss
+        ConcurrentMapCache cache = new ConcurrentMapCache("clinicalAttributeMetadataEHCache");
+        cache.put("key", "value");
+        cache.put("otherKey", "otherValue");
+        new PersistentCacheErrorHandler().handleCacheGetError(new SerializerException("unreadable"), cache, "key");
+        assertThat(cache.get("key"), equalTo(null));
+        assertThat(cache.get("otherKey"), notNullValue());
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void otherCacheErrorTest() throws Exception {
+        // test any other cache error is rethrown
+        new PersistentCacheErrorHandler().handleCacheGetError(new IllegalStateException("store closed"), new ConcurrentMapCache("cache"), "key");
+    }
+}